@@ -0,0 +1,57 @@
+package com.pet.flights.benchmark;
+
+import com.pet.flights.cache.ScheduleCache;
+import com.pet.flights.resilience.CircuitBreaker;
+import com.pet.flights.resilience.HedgedRequests;
+import com.pet.flights.search.ConnectionScanSearchEngine;
+import com.pet.flights.service.ConnectionTable;
+import com.pet.flights.service.FlightDetailsService;
+import com.pet.flights.service.RouteService;
+import com.pet.flights.service.ScheduleService;
+import com.pet.flights.store.ScheduleStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Wires the services the way the application context does, but against a stubbed upstream.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static RouteService routeService(StubRestTemplate restTemplate) {
+        return new RouteService(restTemplate, StubRestTemplate.ROUTES_API, Duration.ofHours(1), Duration.ofHours(6),
+                circuitBreaker("routes"), new SimpleMeterRegistry(), Runnable::run);
+    }
+
+    static ScheduleService scheduleService(StubRestTemplate restTemplate) {
+        ScheduleCache scheduleCache = new ScheduleCache(Duration.ofHours(1), Duration.ofHours(1), 1_000_000);
+        return new ScheduleService(restTemplate, StubRestTemplate.SCHEDULES_API, scheduleCache,
+                new ScheduleStore("", Duration.ofHours(24)),
+                Duration.ofSeconds(10), Runnable::run, 64, Duration.ofSeconds(5), circuitBreaker("schedules"),
+                new HedgedRequests(Runnable::run, Duration.ZERO, 0), new SimpleMeterRegistry());
+    }
+
+    static ConnectionTable connectionTable(RouteService routeService, ScheduleService scheduleService,
+                                           ExecutorService legFetchExecutor, int minSearches) {
+        return new ConnectionTable(routeService, scheduleService, legFetchExecutor, searchEngine(), 200, minSearches, 2,
+                Duration.ofSeconds(10));
+    }
+
+    static FlightDetailsService flightDetailsService(RouteService routeService, ScheduleService scheduleService,
+                                                     ExecutorService legFetchExecutor, ConnectionTable connectionTable) {
+        return new FlightDetailsService(routeService, scheduleService, legFetchExecutor, legFetchExecutor, searchEngine(),
+                connectionTable, Duration.ofSeconds(30), 3, 1, true, new SimpleMeterRegistry());
+    }
+
+    private static CircuitBreaker circuitBreaker(String name) {
+        return new CircuitBreaker(name, 20, 10, 0.5, Duration.ofSeconds(30));
+    }
+
+    private static ConnectionScanSearchEngine searchEngine() {
+        return new ConnectionScanSearchEngine(Duration.ZERO, Duration.ofHours(2));
+    }
+}
@@ -0,0 +1,100 @@
+package com.pet.flights.benchmark;
+
+import com.pet.flights.Exception.TravelDateException;
+import com.pet.flights.model.EpochMinutes;
+import com.pet.flights.model.FlightDetails;
+import com.pet.flights.service.ConnectionTable;
+import com.pet.flights.service.FlightDetailsService;
+import com.pet.flights.service.RouteService;
+import com.pet.flights.service.ScheduleService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end search against stubbed upstreams. Schedules are cached after the warmup, so this
+ * measures graph lookups, schedule expansion and connection joining rather than fetch latency.
+ * With {@code hotPairs} every searched pair is materialized in the connection table up front.
+ * The search window starts next month, so that it lies within the table's horizon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlightSearchBenchmark {
+
+    private static final int SEARCH_PAIRS = 64;
+
+    @Param({"250"})
+    int airports;
+
+    @Param({"20"})
+    int routesPerAirport;
+
+    @Param({"4"})
+    int flightsPerDay;
+
+    @Param({"1", "2"})
+    int maxStops;
+
+    @Param({"7"})
+    int windowDays;
+
+    @Param({"false", "true"})
+    boolean hotPairs;
+
+    private String departureDateTime;
+    private String arrivalDateTime;
+    private ExecutorService legFetchExecutor;
+    private FlightDetailsService flightDetailsService;
+    private String[][] searchPairs;
+    private int nextPair;
+
+    @Setup
+    public void setUp() {
+        SyntheticNetwork network = SyntheticNetwork.generate(airports, routesPerAirport, flightsPerDay, 42);
+        StubRestTemplate restTemplate = new StubRestTemplate(network);
+        RouteService routeService = BenchmarkFixtures.routeService(restTemplate);
+        ScheduleService scheduleService = BenchmarkFixtures.scheduleService(restTemplate);
+        legFetchExecutor = Executors.newFixedThreadPool(8);
+        ConnectionTable connectionTable =
+                BenchmarkFixtures.connectionTable(routeService, scheduleService, legFetchExecutor, 1);
+        flightDetailsService = BenchmarkFixtures.flightDetailsService(routeService, scheduleService, legFetchExecutor,
+                connectionTable);
+
+        LocalDateTime windowStart = YearMonth.now().plusMonths(1).atDay(1).atStartOfDay();
+        departureDateTime = EpochMinutes.format(EpochMinutes.of(windowStart));
+        arrivalDateTime = EpochMinutes.format(EpochMinutes.of(windowStart.plusDays(windowDays)));
+
+        List<String> airportCodes = network.getAirports();
+        searchPairs = new String[SEARCH_PAIRS][];
+        for (int i = 0; i < SEARCH_PAIRS; i++) {
+            String departure = airportCodes.get(airports - 1 - i % (airports / 2));
+            String arrival = airportCodes.get(airports / 2 - i % (airports / 4));
+            searchPairs[i] = new String[]{departure, arrival};
+            if (hotPairs) {
+                connectionTable.recordSearch(departure, arrival);
+            }
+        }
+        connectionTable.refresh();
+    }
+
+    @TearDown
+    public void tearDown() {
+        legFetchExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public List<FlightDetails> getFlightDetails() throws TravelDateException {
+        String[] searchPair = searchPairs[nextPair++ & (SEARCH_PAIRS - 1)];
+        return flightDetailsService.getFlightDetails(searchPair[0], searchPair[1], departureDateTime, arrivalDateTime,
+                maxStops);
+    }
+}
@@ -0,0 +1,49 @@
+package com.pet.flights.benchmark;
+
+import com.pet.flights.graph.RouteGraph;
+import com.pet.flights.service.RouteService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteServiceBenchmark {
+
+    @Param({"250", "1000"})
+    int airports;
+
+    @Param({"20"})
+    int routesPerAirport;
+
+    private RouteService routeService;
+    private RouteGraph routeGraph;
+    private String departure;
+    private String arrival;
+
+    @Setup
+    public void setUp() {
+        SyntheticNetwork network = SyntheticNetwork.generate(airports, routesPerAirport, 1, 42);
+        routeService = BenchmarkFixtures.routeService(new StubRestTemplate(network));
+        routeGraph = routeService.getRouteGraph();
+        departure = network.getAirports().get(airports - 1);
+        arrival = network.getAirports().get(airports - 2);
+    }
+
+    @Benchmark
+    public RouteGraph refreshRoutes() {
+        routeService.refreshRoutes();
+        return routeService.getRouteGraph();
+    }
+
+    @Benchmark
+    public void connectingAirports(Blackhole blackhole) {
+        blackhole.consume(routeGraph.hasRoute(departure, arrival));
+        blackhole.consume(routeGraph.getConnectingAirports(departure, arrival));
+    }
+}
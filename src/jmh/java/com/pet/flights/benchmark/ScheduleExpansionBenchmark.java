@@ -0,0 +1,41 @@
+package com.pet.flights.benchmark;
+
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Schedule;
+import com.pet.flights.service.MonthSlice;
+import com.pet.flights.service.ScheduleService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Month;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScheduleExpansionBenchmark {
+
+    @Param({"4", "16"})
+    int flightsPerDay;
+
+    private ScheduleService scheduleService;
+    private Schedule schedule;
+    private MonthSlice monthSlice;
+
+    @Setup
+    public void setUp() {
+        SyntheticNetwork network = SyntheticNetwork.generate(10, 1, flightsPerDay, 42);
+        scheduleService = BenchmarkFixtures.scheduleService(new StubRestTemplate(network));
+        List<String> airports = network.getAirports();
+        schedule = network.getSchedule(airports.get(0), airports.get(1), 2030, 3);
+        monthSlice = new MonthSlice(2030, Month.MARCH, 1, 31);
+    }
+
+    @Benchmark
+    public List<FlightSchedule> expandMonth() {
+        return scheduleService.getValidFlightSchedulesForDatesWithinMonth(schedule, monthSlice);
+    }
+}
@@ -0,0 +1,34 @@
+package com.pet.flights.benchmark;
+
+import com.pet.flights.model.Route;
+import com.pet.flights.model.Schedule;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Serves the routes and schedules APIs from a {@link SyntheticNetwork} without any I/O.
+ */
+public class StubRestTemplate extends RestTemplate {
+
+    public static final String ROUTES_API = "stub://routes";
+    public static final String SCHEDULES_API = "stub://schedules/";
+    private final SyntheticNetwork network;
+
+    public StubRestTemplate(SyntheticNetwork network) {
+        this.network = network;
+    }
+
+    @Override
+    public <T> T getForObject(String url, Class<T> responseType, Object... uriVariables) {
+        if (responseType == Route[].class) {
+            return responseType.cast(network.getRoutes().toArray(Route[]::new));
+        }
+        // {departure}/{arrival}/years/{year}/months/{month}
+        String[] path = url.substring(SCHEDULES_API.length()).split("/");
+        return responseType.cast(network.getSchedule(path[0], path[1],
+                Integer.parseInt(path[3]), Integer.parseInt(path[5])));
+    }
+
+    public Schedule getSchedule(String departure, String arrival, int year, int month) {
+        return network.getSchedule(departure, arrival, year, month);
+    }
+}
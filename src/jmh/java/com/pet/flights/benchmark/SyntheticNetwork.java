@@ -0,0 +1,102 @@
+package com.pet.flights.benchmark;
+
+import com.pet.flights.model.DaySchedule;
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Route;
+import com.pet.flights.model.Schedule;
+
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deterministic route network: the first tenth of the airports are hubs connected to every
+ * other airport in both directions, the rest get random extra routes between each other.
+ */
+public final class SyntheticNetwork {
+
+    private static final String RYANAIR = "RYANAIR";
+    private final List<String> airports;
+    private final List<Route> routes;
+    private final int flightsPerDay;
+    private final long seed;
+    private final Map<String, Schedule> schedules = new ConcurrentHashMap<>();
+
+    private SyntheticNetwork(List<String> airports, List<Route> routes, int flightsPerDay, long seed) {
+        this.airports = airports;
+        this.routes = routes;
+        this.flightsPerDay = flightsPerDay;
+        this.seed = seed;
+    }
+
+    public static SyntheticNetwork generate(int airportCount, int routesPerAirport, int flightsPerDay, long seed) {
+        Random random = new Random(seed);
+        List<String> airports = new ArrayList<>(airportCount);
+        for (int i = 0; i < airportCount; i++) {
+            airports.add(airportCode(i));
+        }
+        int hubCount = Math.max(1, airportCount / 10);
+        Set<String> routeKeys = new LinkedHashSet<>();
+        for (int hub = 0; hub < hubCount; hub++) {
+            for (int airport = 0; airport < airportCount; airport++) {
+                if (hub != airport) {
+                    routeKeys.add(airports.get(hub) + "/" + airports.get(airport));
+                    routeKeys.add(airports.get(airport) + "/" + airports.get(hub));
+                }
+            }
+        }
+        for (int airport = hubCount; airport < airportCount; airport++) {
+            for (int i = 0; i < routesPerAirport; i++) {
+                int destination = random.nextInt(airportCount);
+                if (destination != airport) {
+                    routeKeys.add(airports.get(airport) + "/" + airports.get(destination));
+                }
+            }
+        }
+        List<Route> routes = routeKeys.stream()
+                .map(routeKey -> routeKey.split("/"))
+                .map(route -> new Route(route[0], route[1], null, false, false, RYANAIR, "CITY"))
+                .toList();
+        return new SyntheticNetwork(airports, routes, flightsPerDay, seed);
+    }
+
+    public List<String> getAirports() {
+        return airports;
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    public Schedule getSchedule(String departure, String arrival, int year, int month) {
+        return schedules.computeIfAbsent(departure + "/" + arrival + "/" + year + "/" + month,
+                key -> buildSchedule(key.hashCode(), YearMonth.of(year, month)));
+    }
+
+    private Schedule buildSchedule(int routeSeed, YearMonth yearMonth) {
+        Random random = new Random(seed ^ routeSeed);
+        int spacing = (18 * 60) / flightsPerDay;
+        List<DaySchedule> days = new ArrayList<>(yearMonth.lengthOfMonth());
+        for (int day = 1; day <= yearMonth.lengthOfMonth(); day++) {
+            List<FlightSchedule> flights = new ArrayList<>(flightsPerDay);
+            for (int flight = 0; flight < flightsPerDay; flight++) {
+                int departure = 5 * 60 + flight * spacing + random.nextInt(Math.max(1, spacing / 2));
+                int arrival = Math.min(departure + 60 + random.nextInt(120), 23 * 60 + 59);
+                flights.add(new FlightSchedule(1000 + flight, hoursAndMinutes(departure), hoursAndMinutes(arrival)));
+            }
+            days.add(new DaySchedule(day, flights));
+        }
+        return new Schedule(yearMonth.getMonthValue(), days);
+    }
+
+    private static String hoursAndMinutes(int minuteOfDay) {
+        return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    private static String airportCode(int index) {
+        return new String(new char[]{
+                (char) ('A' + index / (26 * 26) % 26),
+                (char) ('A' + index / 26 % 26),
+                (char) ('A' + index % 26)});
+    }
+}
@@ -15,4 +15,18 @@ public class ControllerExceptionHandler extends ResponseEntityExceptionHandler {
         ErrorModel error = new ErrorModel(ex.getMessage());
         return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    @ExceptionHandler(SearchTimeoutException.class)
+    public ResponseEntity<Object> handleSearchTimeoutException(
+            SearchTimeoutException ex) {
+        ErrorModel error = new ErrorModel(ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @ExceptionHandler(SearchParameterException.class)
+    public ResponseEntity<Object> handleSearchParameterException(
+            SearchParameterException ex) {
+        ErrorModel error = new ErrorModel(ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
 }
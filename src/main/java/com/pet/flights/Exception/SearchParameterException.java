@@ -0,0 +1,7 @@
+package com.pet.flights.Exception;
+
+public class SearchParameterException extends RuntimeException {
+    public SearchParameterException(String errorMessage) {
+        super(errorMessage);
+    }
+}
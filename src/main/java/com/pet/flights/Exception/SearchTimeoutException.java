@@ -0,0 +1,7 @@
+package com.pet.flights.Exception;
+
+public class SearchTimeoutException extends RuntimeException {
+    public SearchTimeoutException(String errorMessage) {
+        super(errorMessage);
+    }
+}
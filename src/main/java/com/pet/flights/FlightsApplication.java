@@ -1,19 +1,35 @@
 package com.pet.flights;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @SpringBootApplication
+@EnableScheduling
 public class FlightsApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(FlightsApplication.class, args);
 	}
 
-	@Bean
-	public RestTemplate restTemplate() {
-		return new RestTemplate();
+	@Bean(destroyMethod = "shutdownNow")
+	public ExecutorService legFetchExecutor(@Value("${flights.search.fetch-threads:32}") int fetchThreads) {
+		return Executors.newFixedThreadPool(fetchThreads, new CustomizableThreadFactory("leg-fetch-"));
+	}
+
+	@Bean(destroyMethod = "shutdownNow")
+	public ExecutorService batchSearchExecutor(@Value("${flights.batch.search-threads:4}") int searchThreads) {
+		return Executors.newFixedThreadPool(searchThreads, new CustomizableThreadFactory("batch-search-"));
+	}
+
+	@Bean(destroyMethod = "shutdownNow")
+	public ExecutorService routeRefreshExecutor() {
+		return Executors.newSingleThreadExecutor(new CustomizableThreadFactory("route-refresh-"));
 	}
 }
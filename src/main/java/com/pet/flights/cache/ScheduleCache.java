@@ -0,0 +1,182 @@
+package com.pet.flights.cache;
+
+import com.pet.flights.model.Schedule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Month schedules keyed on (departure, arrival, year, month), evicted least recently used once
+ * {@code maxEntries} is reached. Empty months are cached too, for the shorter negative TTL.
+ * <p>
+ * Every entry counts its hits since the last {@link #drainHits()}, which is what schedule
+ * ingestion ranks the months to re-poll by.
+ */
+@Component
+public class ScheduleCache {
+
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int maxEntries;
+    private final Map<ScheduleKey, CacheEntry> entries;
+    /**
+     * The same entries without access order, for reads that must not count as a use.
+     */
+    private final Map<ScheduleKey, CacheEntry> unorderedEntries = new HashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    @Autowired
+    public ScheduleCache(@Value("${schedules.cache.ttl:PT15M}") Duration ttl,
+                         @Value("${schedules.cache.negative-ttl:PT5M}") Duration negativeTtl,
+                         @Value("${schedules.cache.max-entries:20000}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ScheduleKey, CacheEntry> eldest) {
+                if (size() > ScheduleCache.this.maxEntries) {
+                    unorderedEntries.remove(eldest.getKey());
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Schedule get(ScheduleKey key) {
+        Schedule schedule = getIfPresent(key);
+        if (schedule == null) {
+            missCount.incrementAndGet();
+        }
+        return schedule;
+    }
+
+    /**
+     * Like {@link #get(ScheduleKey)}, but a miss is not counted: it is for probes that go on to
+     * {@link #get(ScheduleKey)} the month themselves when it is not cached.
+     */
+    public Schedule getIfPresent(ScheduleKey key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null && now - entry.expiresAt < 0) {
+                hitCount.incrementAndGet();
+                entry.hits++;
+                return entry.schedule;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                unorderedEntries.remove(key);
+            }
+        }
+        return null;
+    }
+
+    public void put(ScheduleKey key, Schedule schedule) {
+        long expiresAt = System.nanoTime() + ttlNanosOf(schedule);
+        CacheEntry entry = new CacheEntry(schedule, expiresAt);
+        synchronized (entries) {
+            unorderedEntries.put(key, entry);
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * The live entry of {@code key} without counting a hit or a miss, and without making it more
+     * recently used.
+     */
+    public Schedule peek(ScheduleKey key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            CacheEntry entry = unorderedEntries.get(key);
+            return entry != null && now - entry.expiresAt < 0 ? entry.schedule : null;
+        }
+    }
+
+    /**
+     * Replaces the entry of {@code key} with {@code replacement} and a fresh TTL, but only while
+     * it still holds {@code expected}.
+     */
+    public boolean replace(ScheduleKey key, Schedule expected, Schedule replacement) {
+        long expiresAt = System.nanoTime() + ttlNanosOf(replacement);
+        synchronized (entries) {
+            CacheEntry entry = unorderedEntries.get(key);
+            if (entry == null || entry.schedule != expected) {
+                return false;
+            }
+            CacheEntry replacementEntry = new CacheEntry(replacement, expiresAt);
+            replacementEntry.hits = entry.hits;
+            unorderedEntries.put(key, replacementEntry);
+            entries.put(key, replacementEntry);
+            return true;
+        }
+    }
+
+    /**
+     * Hits of every live entry since the previous call, including months nobody asked for.
+     */
+    public Map<ScheduleKey, Long> drainHits() {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Map<ScheduleKey, Long> hits = new HashMap<>(entries.size() * 2);
+            for (Map.Entry<ScheduleKey, CacheEntry> entry : entries.entrySet()) {
+                if (now - entry.getValue().expiresAt < 0) {
+                    hits.put(entry.getKey(), entry.getValue().hits);
+                    entry.getValue().hits = 0;
+                }
+            }
+            return hits;
+        }
+    }
+
+    public void invalidate(ScheduleKey key) {
+        synchronized (entries) {
+            entries.remove(key);
+            unorderedEntries.remove(key);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private long ttlNanosOf(Schedule schedule) {
+        boolean emptyMonth = schedule.getDays() == null || schedule.getDays().isEmpty();
+        return emptyMonth ? negativeTtlNanos : ttlNanos;
+    }
+
+    private static final class CacheEntry {
+        private final Schedule schedule;
+        private final long expiresAt;
+        private long hits;
+
+        private CacheEntry(Schedule schedule, long expiresAt) {
+            this.schedule = schedule;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
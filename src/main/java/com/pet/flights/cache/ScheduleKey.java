@@ -0,0 +1,55 @@
+package com.pet.flights.cache;
+
+import java.util.Objects;
+
+public final class ScheduleKey {
+    private final String departure;
+    private final String arrival;
+    private final int year;
+    private final int month;
+
+    public ScheduleKey(String departure, String arrival, int year, int month) {
+        this.departure = departure;
+        this.arrival = arrival;
+        this.year = year;
+        this.month = month;
+    }
+
+    public String getDeparture() {
+        return departure;
+    }
+
+    public String getArrival() {
+        return arrival;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ScheduleKey that)) {
+            return false;
+        }
+        return year == that.year && month == that.month
+                && departure.equals(that.departure) && arrival.equals(that.arrival);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(departure, arrival, year, month);
+    }
+
+    @Override
+    public String toString() {
+        return departure + "-" + arrival + "/" + year + "-" + month;
+    }
+}
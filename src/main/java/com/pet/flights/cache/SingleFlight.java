@@ -0,0 +1,77 @@
+package com.pet.flights.cache;
+
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller starts the loader on
+ * {@code executor}, and every caller, the first included, waits up to {@code timeout} for its
+ * result and sees the same value or the same failure. The load belongs to no caller, so a caller
+ * that is interrupted or times out only stops waiting; the others still get the value. Even an
+ * {@link Error} of the loader completes the waiting callers and frees the key.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private final Duration timeout;
+
+    public SingleFlight(Executor executor, Duration timeout) {
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> pendingCall = inFlight.putIfAbsent(key, call);
+        if (pendingCall != null) {
+            return await(key, pendingCall);
+        }
+        try {
+            executor.execute(() -> load(key, call, loader));
+        } catch (RejectedExecutionException e) {
+            call.completeExceptionally(e);
+            inFlight.remove(key, call);
+        }
+        return await(key, call);
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Leaves the in-flight map before completing, so no caller woken by the result still finds this call.
+     */
+    private void load(K key, CompletableFuture<V> call, Supplier<V> loader) {
+        V value;
+        try {
+            value = loader.get();
+        } catch (Throwable e) {
+            inFlight.remove(key, call);
+            call.completeExceptionally(e);
+            return;
+        }
+        inFlight.remove(key, call);
+        call.complete(value);
+    }
+
+    private V await(K key, CompletableFuture<V> pendingCall) {
+        try {
+            return pendingCall.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ResourceAccessException("In-flight fetch of " + key + " failed: " + e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResourceAccessException("Timed out after " + timeout + " waiting for in-flight fetch of " + key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for in-flight fetch of " + key);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.pet.flights.config;
+
+import com.pet.flights.cache.ScheduleCache;
+import com.pet.flights.service.SearchResultCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheMetricsConfiguration {
+
+    @Bean
+    public MeterBinder scheduleCacheMetrics(ScheduleCache scheduleCache) {
+        return registry -> {
+            FunctionCounter.builder("schedules.cache.requests", scheduleCache, ScheduleCache::getHitCount)
+                    .tag("result", "hit")
+                    .description("Schedule cache lookups that found a live month")
+                    .register(registry);
+            FunctionCounter.builder("schedules.cache.requests", scheduleCache, ScheduleCache::getMissCount)
+                    .tag("result", "miss")
+                    .description("Schedule cache lookups that found no live month")
+                    .register(registry);
+            FunctionCounter.builder("schedules.cache.evictions", scheduleCache, ScheduleCache::getEvictionCount)
+                    .description("Months evicted from the schedule cache because it was full")
+                    .register(registry);
+            Gauge.builder("schedules.cache.size", scheduleCache, ScheduleCache::size)
+                    .description("Months held by the schedule cache")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder searchResultCacheMetrics(SearchResultCache searchResultCache) {
+        return registry -> {
+            FunctionCounter.builder("flights.result.cache.requests", searchResultCache, SearchResultCache::getHitCount)
+                    .tag("result", "hit")
+                    .description("Searches answered from the result cache")
+                    .register(registry);
+            FunctionCounter.builder("flights.result.cache.requests", searchResultCache, SearchResultCache::getMissCount)
+                    .tag("result", "miss")
+                    .description("Searches the result cache had no page for")
+                    .register(registry);
+            FunctionCounter.builder("flights.result.cache.evictions", searchResultCache, SearchResultCache::getEvictionCount)
+                    .description("Pages evicted from the result cache because it was full")
+                    .register(registry);
+            Gauge.builder("flights.result.cache.size", searchResultCache, SearchResultCache::size)
+                    .description("Pages held by the result cache")
+                    .register(registry);
+            Gauge.builder("flights.result.cache.bytes", searchResultCache, SearchResultCache::getBytes)
+                    .description("Serialized bytes held by the result cache")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
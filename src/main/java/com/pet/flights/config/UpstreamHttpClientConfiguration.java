@@ -0,0 +1,139 @@
+package com.pet.flights.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.ChannelOption;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.function.ToIntFunction;
+
+@Configuration
+public class UpstreamHttpClientConfiguration {
+
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final Duration connectionRequestTimeout;
+    private final Duration keepAlive;
+    private final Duration connectionTimeToLive;
+    private final boolean compression;
+
+    public UpstreamHttpClientConfiguration(@Value("${upstream.http.max-connections:200}") int maxConnections,
+                                           @Value("${upstream.http.max-connections-per-route:100}") int maxConnectionsPerRoute,
+                                           @Value("${upstream.http.connect-timeout:PT2S}") Duration connectTimeout,
+                                           @Value("${upstream.http.read-timeout:PT5S}") Duration readTimeout,
+                                           @Value("${upstream.http.connection-request-timeout:PT2S}") Duration connectionRequestTimeout,
+                                           @Value("${upstream.http.keep-alive:PT30S}") Duration keepAlive,
+                                           @Value("${upstream.http.connection-time-to-live:PT5M}") Duration connectionTimeToLive,
+                                           @Value("${upstream.http.compression:true}") boolean compression) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.connectionRequestTimeout = connectionRequestTimeout;
+        this.keepAlive = keepAlive;
+        this.connectionTimeToLive = connectionTimeToLive;
+        this.compression = compression;
+    }
+
+    @Bean
+    public PoolingHttpClientConnectionManager upstreamConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setConnectionTimeToLive(TimeValue.ofMilliseconds(connectionTimeToLive.toMillis()))
+                .setDefaultSocketConfig(SocketConfig.custom()
+                        .setSoTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .setSoKeepAlive(true)
+                        .build())
+                .build();
+    }
+
+    @Bean
+    public CloseableHttpClient upstreamHttpClient(PoolingHttpClientConnectionManager upstreamConnectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeout.toMillis()))
+                .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAlive.toMillis()))
+                .setContentCompressionEnabled(compression)
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(upstreamConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(TimeValue.ofMilliseconds(keepAlive.toMillis()))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient upstreamHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(upstreamHttpClient));
+    }
+
+    /**
+     * Reactor limits connections per remote host, like Apache's per-route limit, so it gets
+     * {@code max-connections-per-route} and both clients allow the same connections to one host.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider upstreamConnectionProvider() {
+        return ConnectionProvider.builder("upstream")
+                .maxConnections(maxConnectionsPerRoute)
+                .pendingAcquireTimeout(connectionRequestTimeout)
+                .maxIdleTime(keepAlive)
+                .maxLifeTime(connectionTimeToLive)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient webClient(WebClient.Builder webClientBuilder, ConnectionProvider upstreamConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(upstreamConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(readTimeout)
+                .compress(compression);
+        return webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @Bean
+    public MeterBinder upstreamConnectionPoolMetrics(PoolingHttpClientConnectionManager upstreamConnectionManager) {
+        return registry -> {
+            registerPoolGauge(registry, upstreamConnectionManager, "leased", PoolStats::getLeased);
+            registerPoolGauge(registry, upstreamConnectionManager, "available", PoolStats::getAvailable);
+            registerPoolGauge(registry, upstreamConnectionManager, "pending", PoolStats::getPending);
+            registerPoolGauge(registry, upstreamConnectionManager, "max", PoolStats::getMax);
+        };
+    }
+
+    private static void registerPoolGauge(MeterRegistry registry,
+                                          PoolingHttpClientConnectionManager connectionManager,
+                                          String state, ToIntFunction<PoolStats> statistic) {
+        Gauge.builder("upstream.http.pool.connections", connectionManager,
+                        manager -> statistic.applyAsInt(manager.getTotalStats()))
+                .tag("state", state)
+                .description("Connections in the upstream HTTP pool")
+                .register(registry);
+    }
+}
@@ -0,0 +1,107 @@
+package com.pet.flights.config;
+
+import com.pet.flights.resilience.CircuitBreaker;
+import com.pet.flights.resilience.HedgedRequests;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class UpstreamResilienceConfiguration {
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final Duration openDuration;
+
+    public UpstreamResilienceConfiguration(@Value("${upstream.circuit-breaker.window-size:20}") int windowSize,
+                                           @Value("${upstream.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                           @Value("${upstream.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                                           @Value("${upstream.circuit-breaker.open-duration:PT30S}") Duration openDuration) {
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+    }
+
+    @Bean
+    public CircuitBreaker schedulesCircuitBreaker() {
+        return new CircuitBreaker("schedules", windowSize, minimumCalls, failureRateThreshold, openDuration);
+    }
+
+    @Bean
+    public CircuitBreaker routesCircuitBreaker() {
+        return new CircuitBreaker("routes", windowSize, minimumCalls, failureRateThreshold, openDuration);
+    }
+
+    /**
+     * Runs schedule requests and their hedges. No more requests than the bulkhead admits can
+     * be in flight anyway, so the pool has as many threads; further attempts queue instead of
+     * piling up threads blocked on a permit.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService upstreamRequestExecutor(
+            @Value("${schedules.api.max-concurrent-requests:64}") int maxConcurrentRequests) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrentRequests, maxConcurrentRequests,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new CustomizableThreadFactory("upstream-request-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs coalesced schedule loads, so no caller's interrupt cancels a load others wait for.
+     * Each load holds its thread while its upstream request runs, so the pool matches the
+     * bulkhead as well.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService scheduleLoadExecutor(
+            @Value("${schedules.api.max-concurrent-requests:64}") int maxConcurrentRequests) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrentRequests, maxConcurrentRequests,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new CustomizableThreadFactory("schedule-load-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Bean
+    public HedgedRequests scheduleRequests(@Qualifier("upstreamRequestExecutor") ExecutorService upstreamRequestExecutor,
+                                           @Value("${schedules.api.hedge-delay:PT0.5S}") Duration hedgeDelay,
+                                           @Value("${schedules.api.hedge-budget:0.1}") double hedgeBudget) {
+        return new HedgedRequests(upstreamRequestExecutor, hedgeDelay, hedgeBudget);
+    }
+
+    @Bean
+    public MeterBinder upstreamResilienceMetrics(@Qualifier("schedulesCircuitBreaker") CircuitBreaker schedulesCircuitBreaker,
+                                                 @Qualifier("routesCircuitBreaker") CircuitBreaker routesCircuitBreaker,
+                                                 @Qualifier("scheduleRequests") HedgedRequests scheduleRequests) {
+        return registry -> {
+            registerStateGauge(registry, schedulesCircuitBreaker);
+            registerStateGauge(registry, routesCircuitBreaker);
+            FunctionCounter.builder("upstream.schedules.hedges", scheduleRequests, HedgedRequests::getHedgeCount)
+                    .description("Schedule requests sent a second time because the first was slow")
+                    .register(registry);
+        };
+    }
+
+    private static void registerStateGauge(MeterRegistry registry, CircuitBreaker circuitBreaker) {
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("upstream.circuit.breaker.state", circuitBreaker,
+                            breaker -> breaker.getState() == state ? 1 : 0)
+                    .tag("endpoint", circuitBreaker.getName())
+                    .tag("state", state.name().toLowerCase())
+                    .description("1 for the state the upstream circuit breaker is in")
+                    .register(registry);
+        }
+    }
+}
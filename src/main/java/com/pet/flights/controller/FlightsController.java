@@ -1,34 +1,275 @@
 package com.pet.flights.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pet.flights.Exception.SearchParameterException;
 import com.pet.flights.Exception.TravelDateException;
+import com.pet.flights.model.ErrorModel;
 import com.pet.flights.model.FlightDetails;
+import com.pet.flights.model.FlightQuery;
+import com.pet.flights.model.FlightQueryResult;
+import com.pet.flights.model.PairFlightDetails;
+import com.pet.flights.service.BatchSearchSink;
+import com.pet.flights.service.FlightDetailsByPair;
+import com.pet.flights.service.FlightDetailsPage;
 import com.pet.flights.service.FlightDetailsService;
+import com.pet.flights.service.FlightSearch;
+import com.pet.flights.service.ReactiveFlightDetailsService;
+import com.pet.flights.service.SearchPhases;
+import com.pet.flights.service.SearchResultCache;
+import com.pet.flights.service.SerializedPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 
 @RestController
 @RequestMapping("/flights")
 public class FlightsController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+    static final String PARTIAL_RESULTS_HEADER = "X-Partial-Results";
+    static final String CACHED_SERVER_TIMING = "cache;desc=hit";
+    private static final String ANY_AIRPORT = "*";
+    private static final int FLUSH_EVERY = 64;
     private final FlightDetailsService flightDetailsService;
+    private final ReactiveFlightDetailsService reactiveFlightDetailsService;
+    private final SearchResultCache searchResultCache;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter ndjsonWriter;
+    private final boolean serverTiming;
+    private final int maxBatchQueries;
 
     @Autowired
-    public FlightsController(FlightDetailsService flightDetailsService) {
+    public FlightsController(FlightDetailsService flightDetailsService,
+                             ReactiveFlightDetailsService reactiveFlightDetailsService,
+                             SearchResultCache searchResultCache,
+                             ObjectMapper objectMapper,
+                             @Value("${flights.search.server-timing:false}") boolean serverTiming,
+                             @Value("${flights.batch.max-queries:1000}") int maxBatchQueries) {
         this.flightDetailsService = flightDetailsService;
+        this.reactiveFlightDetailsService = reactiveFlightDetailsService;
+        this.searchResultCache = searchResultCache;
+        this.objectMapper = objectMapper;
+        this.ndjsonWriter = objectMapper.writerFor(FlightDetails.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.serverTiming = serverTiming;
+        this.maxBatchQueries = maxBatchQueries;
     }
 
+    /**
+     * Answers from the {@link SearchResultCache} when the same search was answered recently;
+     * otherwise searches and caches the serialized page unless it is partial.
+     */
     @GetMapping("/interconnections")
+    public ResponseEntity<byte[]> getFlightDetails(@RequestParam(name = "departure") String departure,
+                                                   @RequestParam(name = "arrival") String arrival,
+                                                   @RequestParam(name = "departureDateTime") String departureDateTime,
+                                                   @RequestParam(name = "arrivalDateTime") String arrivalDateTime,
+                                                   @RequestParam(name = "maxStops", defaultValue = "1") int maxStops,
+                                                   @RequestParam(name = "sort", required = false) String sort,
+                                                   @RequestParam(name = "limit", required = false) Integer limit,
+                                                   @RequestParam(name = "cursor", required = false) String cursor)
+            throws TravelDateException, JsonProcessingException {
+        FlightSearch search = flightDetailsService.prepareSearch(departure, arrival, departureDateTime, arrivalDateTime,
+                maxStops, sort, limit, cursor);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        SerializedPage cachedPage = searchResultCache.get(search);
+        if (cachedPage != null) {
+            if (cachedPage.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, cachedPage.getNextCursor());
+            }
+            if (serverTiming) {
+                response.header(SERVER_TIMING_HEADER, CACHED_SERVER_TIMING);
+            }
+            return response.body(cachedPage.getBody());
+        }
+
+        FlightDetailsPage page = flightDetailsService.getFlightDetailsPage(search);
+        SerializedPage serializedPage = new SerializedPage(objectMapper.writeValueAsBytes(page.getFlightDetails()),
+                page.getNextCursor());
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        if (page.isPartial()) {
+            response.header(PARTIAL_RESULTS_HEADER, "true");
+        } else if (page.getRoutes() != null) {
+            searchResultCache.put(search, serializedPage, page.getRoutes());
+        }
+        if (serverTiming && page.getPhases() != null) {
+            response.header(SERVER_TIMING_HEADER, page.getPhases().toServerTiming());
+        }
+        return response.body(serializedPage.getBody());
+    }
+
+    /**
+     * Searches several departure and arrival airports at once — or, without {@code arrival} or
+     * with {@code arrival=*}, every destination reachable from the departures — and returns the
+     * itineraries grouped by airport pair.
+     */
+    @GetMapping("/interconnections/pairs")
+    public ResponseEntity<List<PairFlightDetails>> getFlightDetailsByPair(@RequestParam(name = "departure") List<String> departures,
+                                                                          @RequestParam(name = "arrival", required = false) List<String> arrivals,
+                                                                          @RequestParam(name = "departureDateTime") String departureDateTime,
+                                                                          @RequestParam(name = "arrivalDateTime") String arrivalDateTime,
+                                                                          @RequestParam(name = "maxStops", defaultValue = "1") int maxStops)
+            throws TravelDateException {
+        List<String> arrivalAirports = arrivals == null || arrivals.contains(ANY_AIRPORT) ? List.of() : arrivals;
+        FlightDetailsByPair flightDetailsByPair = flightDetailsService.getFlightDetailsByPair(departures,
+                arrivalAirports, departureDateTime, arrivalDateTime, maxStops);
+        List<PairFlightDetails> pairs = new ArrayList<>(flightDetailsByPair.getFlightDetails().size());
+        flightDetailsByPair.getFlightDetails().forEach((pair, flightDetails) ->
+                pairs.add(new PairFlightDetails(pair.getDeparture(), pair.getArrival(), flightDetails)));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (flightDetailsByPair.isPartial()) {
+            response.header(PARTIAL_RESULTS_HEADER, "true");
+        }
+        if (serverTiming) {
+            response.header(SERVER_TIMING_HEADER, flightDetailsByPair.getPhases().toServerTiming());
+        }
+        return response.body(pairs);
+    }
+
+    /**
+     * Same search, written as newline-delimited JSON while it runs. The first itinerary is
+     * flushed right away, later ones in batches. Itineraries go out in the order they are found,
+     * so {@code sort}, {@code limit} and {@code cursor} are rejected with an error line rather
+     * than ignored. A search
+     * that skipped routes ends with a {@code {"partial":true}} line, as its headers are long gone.
+     */
+    @GetMapping(value = "/interconnections", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFlightDetails(@RequestParam(name = "departure") String departure,
+                                                                     @RequestParam(name = "arrival") String arrival,
+                                                                     @RequestParam(name = "departureDateTime") String departureDateTime,
+                                                                     @RequestParam(name = "arrivalDateTime") String arrivalDateTime,
+                                                                     @RequestParam(name = "maxStops", defaultValue = "1") int maxStops,
+                                                                     @RequestParam(name = "sort", required = false) String sort,
+                                                                     @RequestParam(name = "limit", required = false) Integer limit,
+                                                                     @RequestParam(name = "cursor", required = false) String cursor)
+            throws TravelDateException, JsonProcessingException {
+        if (sort != null || limit != null || cursor != null) {
+            byte[] error = objectMapper.writeValueAsBytes(
+                    new ErrorModel("sort, limit and cursor are not supported for " + MediaType.APPLICATION_NDJSON_VALUE));
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_NDJSON).body(outputStream -> {
+                outputStream.write(error);
+                outputStream.write('\n');
+            });
+        }
+        FlightSearch search = flightDetailsService.prepareSearch(departure, arrival, departureDateTime, arrivalDateTime, maxStops);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                int[] written = {0};
+                SearchPhases phases = new SearchPhases();
+                flightDetailsService.getFlightDetails(search, flightDetails -> {
+                    try {
+                        ndjsonWriter.writeValue(generator, flightDetails);
+                        generator.writeRaw('\n');
+                        if (written[0]++ % FLUSH_EVERY == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, phases);
+                if (phases.isPartial()) {
+                    objectMapper.writeValue(generator, Map.of("partial", true));
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Runs many searches in one call over shared schedule fetches and writes one
+     * newline-delimited JSON result per query as soon as it is complete, tagged with the
+     * query's index. A query that is invalid or fails gets an error line; the others still run.
+     */
+    @PostMapping(value = "/interconnections/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBatchFlightDetails(@RequestBody List<FlightQuery> queries) {
+        if (queries.size() > maxBatchQueries) {
+            throw new SearchParameterException("A batch holds at most " + maxBatchQueries + " queries");
+        }
+        List<FlightQueryResult> invalidQueries = new ArrayList<>();
+        List<FlightSearch> searches = new ArrayList<>(queries.size());
+        List<Integer> searchIndexes = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            try {
+                searches.add(prepareSearch(queries.get(i)));
+                searchIndexes.add(i);
+            } catch (TravelDateException | SearchParameterException | DateTimeParseException e) {
+                invalidQueries.add(new FlightQueryResult(i, e.getMessage()));
+            }
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                for (FlightQueryResult invalidQuery : invalidQueries) {
+                    writeLine(generator, invalidQuery);
+                }
+                flightDetailsService.getFlightDetailsPages(searches, new BatchSearchSink() {
+                    @Override
+                    public void accept(int index, FlightDetailsPage page) {
+                        writeLine(generator, new FlightQueryResult(searchIndexes.get(index),
+                                page.getFlightDetails(), page.isPartial()));
+                    }
+
+                    @Override
+                    public void fail(int index, RuntimeException error) {
+                        writeLine(generator, new FlightQueryResult(searchIndexes.get(index), error.getMessage()));
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/interconnections/reactive")
     @ResponseStatus(HttpStatus.OK)
-    public List<FlightDetails> getFlightDetails(@RequestParam(name = "departure") String departure,
-                                                @RequestParam(name = "arrival") String arrival,
-                                                @RequestParam(name = "departureDateTime") String departureDateTime,
-                                                @RequestParam(name = "arrivalDateTime") String arrivalDateTime)
+    public Flux<FlightDetails> getFlightDetailsReactive(@RequestParam(name = "departure") String departure,
+                                                        @RequestParam(name = "arrival") String arrival,
+                                                        @RequestParam(name = "departureDateTime") String departureDateTime,
+                                                        @RequestParam(name = "arrivalDateTime") String arrivalDateTime)
             throws TravelDateException {
-        return flightDetailsService.getFlightDetails(departure, arrival, departureDateTime, arrivalDateTime);
+        return reactiveFlightDetailsService.getFlightDetails(departure, arrival, departureDateTime, arrivalDateTime);
+    }
+
+    private FlightSearch prepareSearch(FlightQuery query) throws TravelDateException {
+        if (query.getDeparture() == null || query.getArrival() == null
+                || query.getDepartureDateTime() == null || query.getArrivalDateTime() == null) {
+            throw new SearchParameterException("departure, arrival, departureDateTime and arrivalDateTime are required");
+        }
+        return flightDetailsService.prepareSearch(query.getDeparture(), query.getArrival(),
+                query.getDepartureDateTime(), query.getArrivalDateTime(), query.getMaxStops(),
+                query.getSort(), query.getLimit(), null);
+    }
+
+    private void writeLine(JsonGenerator generator, FlightQueryResult result) {
+        try {
+            objectMapper.writeValue(generator, result);
+            generator.writeRaw('\n');
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 }
@@ -0,0 +1,42 @@
+package com.pet.flights.graph;
+
+import java.util.Objects;
+
+public final class AirportPair {
+    private final String departure;
+    private final String arrival;
+
+    public AirportPair(String departure, String arrival) {
+        this.departure = departure;
+        this.arrival = arrival;
+    }
+
+    public String getDeparture() {
+        return departure;
+    }
+
+    public String getArrival() {
+        return arrival;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AirportPair that)) {
+            return false;
+        }
+        return departure.equals(that.departure) && arrival.equals(that.arrival);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(departure, arrival);
+    }
+
+    @Override
+    public String toString() {
+        return departure + "-" + arrival;
+    }
+}
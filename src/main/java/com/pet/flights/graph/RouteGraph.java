@@ -0,0 +1,336 @@
+package com.pet.flights.graph;
+
+import com.pet.flights.model.Route;
+
+import java.util.*;
+
+/**
+ * Immutable index over the route network. Airport codes are interned to dense int ids and
+ * the outbound/inbound adjacency is kept CSR-style: the neighbours of airport {@code id}
+ * are {@code targets[offsets[id]] .. targets[offsets[id + 1] - 1]}, sorted by id.
+ * <p>
+ * For up to {@link #REACHABILITY_LEGS} legs the graph also keeps, per airport, a bitmap of the
+ * airports reachable within that many legs, so searches for pairs without any route are
+ * rejected with a few word reads.
+ */
+public final class RouteGraph {
+
+    public static final int REACHABILITY_LEGS = 3;
+    private static final int UNKNOWN_AIRPORT = -1;
+
+    private final Map<String, Integer> airportIds;
+    private final String[] airportCodes;
+    private final int[] outboundOffsets;
+    private final int[] outboundTargets;
+    private final int[] inboundOffsets;
+    private final int[] inboundSources;
+    private final int reachabilityWords;
+    private final long[] reachability;
+
+    private RouteGraph(Map<String, Integer> airportIds, String[] airportCodes,
+                       int[] outboundOffsets, int[] outboundTargets,
+                       int[] inboundOffsets, int[] inboundSources) {
+        this.airportIds = airportIds;
+        this.airportCodes = airportCodes;
+        this.outboundOffsets = outboundOffsets;
+        this.outboundTargets = outboundTargets;
+        this.inboundOffsets = inboundOffsets;
+        this.inboundSources = inboundSources;
+        this.reachabilityWords = (airportCodes.length + 63) >>> 6;
+        this.reachability = buildReachability();
+    }
+
+    public static RouteGraph of(Collection<Route> routes) {
+        Map<String, Integer> airportIds = new HashMap<>();
+        List<String> airportCodes = new ArrayList<>();
+        long[] edges = new long[routes.size()];
+        int edgeCount = 0;
+        for (Route route : routes) {
+            if (route.getAirportFrom() == null || route.getAirportTo() == null) {
+                continue;
+            }
+            int from = intern(route.getAirportFrom(), airportIds, airportCodes);
+            int to = intern(route.getAirportTo(), airportIds, airportCodes);
+            if (from != to) {
+                edges[edgeCount++] = ((long) from << 32) | to;
+            }
+        }
+        edges = distinct(edges, edgeCount);
+
+        int airportCount = airportCodes.size();
+        int[] outboundOffsets = new int[airportCount + 1];
+        int[] inboundOffsets = new int[airportCount + 1];
+        for (long edge : edges) {
+            outboundOffsets[from(edge) + 1]++;
+            inboundOffsets[to(edge) + 1]++;
+        }
+        for (int id = 0; id < airportCount; id++) {
+            outboundOffsets[id + 1] += outboundOffsets[id];
+            inboundOffsets[id + 1] += inboundOffsets[id];
+        }
+
+        int[] outboundTargets = new int[edges.length];
+        int[] inboundSources = new int[edges.length];
+        int[] outboundCursor = Arrays.copyOf(outboundOffsets, airportCount);
+        int[] inboundCursor = Arrays.copyOf(inboundOffsets, airportCount);
+        for (long edge : edges) {
+            outboundTargets[outboundCursor[from(edge)]++] = to(edge);
+            inboundSources[inboundCursor[to(edge)]++] = from(edge);
+        }
+        // edges are sorted by (from, to), so outbound runs are already sorted; inbound runs are not
+        for (int id = 0; id < airportCount; id++) {
+            Arrays.sort(inboundSources, inboundOffsets[id], inboundOffsets[id + 1]);
+        }
+
+        return new RouteGraph(Map.copyOf(airportIds), airportCodes.toArray(String[]::new),
+                outboundOffsets, outboundTargets, inboundOffsets, inboundSources);
+    }
+
+    public int getAirportCount() {
+        return airportCodes.length;
+    }
+
+    public int getRouteCount() {
+        return outboundTargets.length;
+    }
+
+    public int getAirportId(String airportCode) {
+        return airportIds.getOrDefault(airportCode, UNKNOWN_AIRPORT);
+    }
+
+    public String getAirportCode(int airportId) {
+        return airportCodes[airportId];
+    }
+
+    public boolean hasRoute(String airportFrom, String airportTo) {
+        int from = getAirportId(airportFrom);
+        int to = getAirportId(airportTo);
+        return from != UNKNOWN_AIRPORT && to != UNKNOWN_AIRPORT
+                && Arrays.binarySearch(outboundTargets, outboundOffsets[from], outboundOffsets[from + 1], to) >= 0;
+    }
+
+    /**
+     * Whether {@code airportTo} can be reached from {@code airportFrom} in at most
+     * {@code maxLegs} legs. Up to {@link #REACHABILITY_LEGS} legs this reads the precomputed
+     * bitmaps; beyond that it searches the graph.
+     */
+    public boolean isReachable(String airportFrom, String airportTo, int maxLegs) {
+        int from = getAirportId(airportFrom);
+        int to = getAirportId(airportTo);
+        if (from == UNKNOWN_AIRPORT || to == UNKNOWN_AIRPORT || from == to || maxLegs < 1) {
+            return false;
+        }
+        if (maxLegs <= REACHABILITY_LEGS) {
+            long word = reachability[reachabilityRow(maxLegs, from) + (to >>> 6)];
+            return (word & (1L << to)) != 0;
+        }
+        boolean[] origin = new boolean[airportCodes.length];
+        origin[from] = true;
+        return hops(origin, new boolean[airportCodes.length], maxLegs, outboundOffsets, outboundTargets)[to] <= maxLegs;
+    }
+
+    public List<String> getDestinations(String airportFrom) {
+        int from = getAirportId(airportFrom);
+        if (from == UNKNOWN_AIRPORT) {
+            return List.of();
+        }
+        return toAirportCodes(outboundTargets, outboundOffsets[from], outboundOffsets[from + 1]);
+    }
+
+    public List<String> getOrigins(String airportTo) {
+        int to = getAirportId(airportTo);
+        if (to == UNKNOWN_AIRPORT) {
+            return List.of();
+        }
+        return toAirportCodes(inboundSources, inboundOffsets[to], inboundOffsets[to + 1]);
+    }
+
+    public List<String> getConnectingAirports(String airportFrom, String airportTo) {
+        int from = getAirportId(airportFrom);
+        int to = getAirportId(airportTo);
+        if (from == UNKNOWN_AIRPORT || to == UNKNOWN_AIRPORT) {
+            return List.of();
+        }
+        List<String> connectingAirports = new ArrayList<>();
+        int outbound = outboundOffsets[from];
+        int outboundEnd = outboundOffsets[from + 1];
+        int inbound = inboundOffsets[to];
+        int inboundEnd = inboundOffsets[to + 1];
+        while (outbound < outboundEnd && inbound < inboundEnd) {
+            int hub = outboundTargets[outbound];
+            int source = inboundSources[inbound];
+            if (hub < source) {
+                outbound++;
+            } else if (hub > source) {
+                inbound++;
+            } else {
+                connectingAirports.add(airportCodes[hub]);
+                outbound++;
+                inbound++;
+            }
+        }
+        return connectingAirports;
+    }
+
+    /**
+     * Routes that lie on some path of at most {@code maxLegs} legs from {@code airportFrom} to
+     * {@code airportTo}, i.e. {@code hops(from, u) + 1 + hops(v, to) <= maxLegs}. Paths never
+     * pass through either end airport.
+     */
+    public List<AirportPair> getRoutesOnPaths(String airportFrom, String airportTo, int maxLegs) {
+        return getRoutesOnPaths(List.of(airportFrom), List.of(airportTo), maxLegs);
+    }
+
+    /**
+     * Same for paths from any of {@code airportsFrom} to any of {@code airportsTo}, found by one
+     * search from all origins and one from all destinations. Without destinations every
+     * airport but the origins is one, and paths may pass through them. Paths never pass
+     * through an origin, nor through a destination given explicitly; an airport in both sets
+     * is an origin. Unknown airports are ignored.
+     */
+    public List<AirportPair> getRoutesOnPaths(Collection<String> airportsFrom, Collection<String> airportsTo,
+                                              int maxLegs) {
+        boolean anyDestination = airportsTo.isEmpty();
+        boolean[] origins = toAirportSet(airportsFrom);
+        boolean[] destinations = anyDestination ? new boolean[airportCodes.length] : toAirportSet(airportsTo);
+        boolean hasOrigin = false;
+        boolean hasDestination = false;
+        for (int airport = 0; airport < airportCodes.length; airport++) {
+            destinations[airport] = !origins[airport] && (anyDestination || destinations[airport]);
+            hasOrigin |= origins[airport];
+            hasDestination |= destinations[airport];
+        }
+        if (!hasOrigin || !hasDestination || maxLegs < 1) {
+            return List.of();
+        }
+        boolean[] passThrough = anyDestination ? new boolean[airportCodes.length] : destinations;
+        int[] hopsFromOrigin = hops(origins, passThrough, maxLegs - 1, outboundOffsets, outboundTargets);
+        int[] hopsToDestination = hops(destinations, origins, maxLegs - 1, inboundOffsets, inboundSources);
+
+        List<AirportPair> routes = new ArrayList<>();
+        for (int airport = 0; airport < airportCodes.length; airport++) {
+            if (passThrough[airport] || hopsFromOrigin[airport] > maxLegs - 1) {
+                continue;
+            }
+            for (int i = outboundOffsets[airport]; i < outboundOffsets[airport + 1]; i++) {
+                int next = outboundTargets[i];
+                if (!origins[next] && hopsFromOrigin[airport] + 1 + hopsToDestination[next] <= maxLegs) {
+                    routes.add(new AirportPair(airportCodes[airport], airportCodes[next]));
+                }
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * Row {@code legs - 1, airport} holds the airports reachable from {@code airport} within
+     * {@code legs} legs: its direct destinations, or'ed with the rows one leg shorter of each of
+     * them. A path through the origin or the destination never reaches anything earlier, so the
+     * bitmaps agree with the paths {@link #getRoutesOnPaths} allows.
+     */
+    private long[] buildReachability() {
+        int airportCount = airportCodes.length;
+        long[] rows = new long[REACHABILITY_LEGS * airportCount * reachabilityWords];
+        for (int airport = 0; airport < airportCount; airport++) {
+            int row = reachabilityRow(1, airport);
+            for (int i = outboundOffsets[airport]; i < outboundOffsets[airport + 1]; i++) {
+                int next = outboundTargets[i];
+                rows[row + (next >>> 6)] |= 1L << next;
+            }
+        }
+        for (int legs = 2; legs <= REACHABILITY_LEGS; legs++) {
+            for (int airport = 0; airport < airportCount; airport++) {
+                int row = reachabilityRow(legs, airport);
+                System.arraycopy(rows, reachabilityRow(1, airport), rows, row, reachabilityWords);
+                for (int i = outboundOffsets[airport]; i < outboundOffsets[airport + 1]; i++) {
+                    int shorter = reachabilityRow(legs - 1, outboundTargets[i]);
+                    for (int word = 0; word < reachabilityWords; word++) {
+                        rows[row + word] |= rows[shorter + word];
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private int reachabilityRow(int legs, int airport) {
+        return ((legs - 1) * airportCodes.length + airport) * reachabilityWords;
+    }
+
+    private List<String> toAirportCodes(int[] ids, int start, int end) {
+        List<String> codes = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            codes.add(airportCodes[ids[i]]);
+        }
+        return codes;
+    }
+
+    private boolean[] toAirportSet(Collection<String> codes) {
+        boolean[] airports = new boolean[airportCodes.length];
+        for (String code : codes) {
+            int airport = getAirportId(code);
+            if (airport != UNKNOWN_AIRPORT) {
+                airports[airport] = true;
+            }
+        }
+        return airports;
+    }
+
+    /**
+     * Breadth-first hop counts from all {@code starts}, never entering an {@code excluded}
+     * airport.
+     */
+    private int[] hops(boolean[] starts, boolean[] excluded, int maxHops, int[] offsets, int[] neighbours) {
+        int[] hops = new int[airportCodes.length];
+        Arrays.fill(hops, Integer.MAX_VALUE / 2);
+        int[] queue = new int[airportCodes.length];
+        int head = 0;
+        int tail = 0;
+        for (int airport = 0; airport < airportCodes.length; airport++) {
+            if (starts[airport]) {
+                hops[airport] = 0;
+                queue[tail++] = airport;
+            }
+        }
+        while (head < tail) {
+            int airport = queue[head++];
+            if (hops[airport] == maxHops) {
+                continue;
+            }
+            for (int i = offsets[airport]; i < offsets[airport + 1]; i++) {
+                int next = neighbours[i];
+                if (!excluded[next] && hops[next] > hops[airport] + 1) {
+                    hops[next] = hops[airport] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return hops;
+    }
+
+    private static int intern(String airportCode, Map<String, Integer> airportIds, List<String> airportCodes) {
+        return airportIds.computeIfAbsent(airportCode, code -> {
+            airportCodes.add(code);
+            return airportCodes.size() - 1;
+        });
+    }
+
+    private static long[] distinct(long[] edges, int edgeCount) {
+        Arrays.sort(edges, 0, edgeCount);
+        int distinctCount = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            if (distinctCount == 0 || edges[distinctCount - 1] != edges[i]) {
+                edges[distinctCount++] = edges[i];
+            }
+        }
+        return Arrays.copyOf(edges, distinctCount);
+    }
+
+    private static int from(long edge) {
+        return (int) (edge >>> 32);
+    }
+
+    private static int to(long edge) {
+        return (int) edge;
+    }
+}
@@ -0,0 +1,58 @@
+package com.pet.flights.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Local date-times encoded as minutes since 1970-01-01T00:00, so legs can be compared and
+ * joined as plain longs and only formatted when they are written out.
+ */
+public final class EpochMinutes {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    private static final DateTimeFormatter dateTimeFormatter =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm", Locale.ENGLISH);
+
+    private EpochMinutes() {
+    }
+
+    public static long of(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    public static long of(LocalDate date, int minuteOfDay) {
+        return date.toEpochDay() * MINUTES_PER_DAY + minuteOfDay;
+    }
+
+    public static long parse(String dateTime) {
+        return of(LocalDateTime.parse(dateTime, dateTimeFormatter));
+    }
+
+    public static int parseMinuteOfDay(String hoursAndMinutes) {
+        int separator = hoursAndMinutes.indexOf(':');
+        int hours = Integer.parseInt(hoursAndMinutes, 0, separator, 10);
+        int minutes = Integer.parseInt(hoursAndMinutes, separator + 1, hoursAndMinutes.length(), 10);
+        return hours * 60 + minutes;
+    }
+
+    public static String formatMinuteOfDay(int minuteOfDay) {
+        int hours = minuteOfDay / 60;
+        int minutes = minuteOfDay % 60;
+        return (hours < 10 ? "0" : "") + hours + (minutes < 10 ? ":0" : ":") + minutes;
+    }
+
+    public static long toEpochDay(long epochMinute) {
+        return Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    public static String format(long epochMinute) {
+        return toLocalDateTime(epochMinute).format(dateTimeFormatter);
+    }
+}
@@ -1,5 +1,7 @@
 package com.pet.flights.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.List;
 
 public class FlightDetails {
@@ -19,6 +21,16 @@ public class FlightDetails {
         return legs;
     }
 
+    @JsonIgnore
+    public long getDepartureEpochMinute() {
+        return legs.get(0).getDepartureEpochMinute();
+    }
+
+    @JsonIgnore
+    public long getArrivalEpochMinute() {
+        return legs.get(legs.size() - 1).getArrivalEpochMinute();
+    }
+
     @Override
     public String toString() {
         return stops + "," + legs.toString();
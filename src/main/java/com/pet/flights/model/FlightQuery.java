@@ -0,0 +1,51 @@
+package com.pet.flights.model;
+
+public class FlightQuery {
+    String departure;
+    String arrival;
+    String departureDateTime;
+    String arrivalDateTime;
+    int maxStops = 1;
+    String sort;
+    Integer limit;
+
+    public FlightQuery() {
+    }
+
+    public FlightQuery(String departure, String arrival, String departureDateTime, String arrivalDateTime,
+                       int maxStops) {
+        this.departure = departure;
+        this.arrival = arrival;
+        this.departureDateTime = departureDateTime;
+        this.arrivalDateTime = arrivalDateTime;
+        this.maxStops = maxStops;
+    }
+
+    public String getDeparture() {
+        return departure;
+    }
+
+    public String getArrival() {
+        return arrival;
+    }
+
+    public String getDepartureDateTime() {
+        return departureDateTime;
+    }
+
+    public String getArrivalDateTime() {
+        return arrivalDateTime;
+    }
+
+    public int getMaxStops() {
+        return maxStops;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,40 @@
+package com.pet.flights.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FlightQueryResult {
+    int index;
+    List<FlightDetails> flightDetails;
+    Boolean partial;
+    String error;
+
+    public FlightQueryResult(int index, List<FlightDetails> flightDetails, boolean partial) {
+        this.index = index;
+        this.flightDetails = flightDetails;
+        this.partial = partial ? Boolean.TRUE : null;
+    }
+
+    public FlightQueryResult(int index, String error) {
+        this.index = index;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public List<FlightDetails> getFlightDetails() {
+        return flightDetails;
+    }
+
+    public Boolean getPartial() {
+        return partial;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
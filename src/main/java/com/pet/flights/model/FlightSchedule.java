@@ -1,19 +1,35 @@
 package com.pet.flights.model;
 
-import java.time.LocalDateTime;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class FlightSchedule {
     int number;
     String departureTime;
     String arrivalTime;
+    long departureEpochMinute;
+    long arrivalEpochMinute;
 
     public FlightSchedule() {
     }
 
     public FlightSchedule(int number, String departureTime, String arrivalTime) {
         this.number = number;
-        this.departureTime = departureTime;
-        this.arrivalTime = arrivalTime;
+        this.departureTime = Symbols.intern(departureTime);
+        this.arrivalTime = Symbols.intern(arrivalTime);
+    }
+
+    public FlightSchedule(int number, long departureEpochMinute, long arrivalEpochMinute) {
+        this.number = number;
+        this.departureEpochMinute = departureEpochMinute;
+        this.arrivalEpochMinute = arrivalEpochMinute;
+    }
+
+    public void setDepartureTime(String departureTime) {
+        this.departureTime = Symbols.intern(departureTime);
+    }
+
+    public void setArrivalTime(String arrivalTime) {
+        this.arrivalTime = Symbols.intern(arrivalTime);
     }
 
     public int getNumber() {
@@ -21,15 +37,25 @@ public class FlightSchedule {
     }
 
     public String getDepartureTime() {
-        return departureTime;
+        return departureTime != null ? departureTime : EpochMinutes.format(departureEpochMinute);
     }
 
     public String getArrivalTime() {
-        return arrivalTime;
+        return arrivalTime != null ? arrivalTime : EpochMinutes.format(arrivalEpochMinute);
+    }
+
+    @JsonIgnore
+    public long getDepartureEpochMinute() {
+        return departureEpochMinute;
+    }
+
+    @JsonIgnore
+    public long getArrivalEpochMinute() {
+        return arrivalEpochMinute;
     }
 
     @Override
     public String toString() {
-        return number + "," + departureTime + "," + arrivalTime;
+        return number + "," + getDepartureTime() + "," + getArrivalTime();
     }
 }
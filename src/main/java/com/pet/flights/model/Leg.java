@@ -1,17 +1,25 @@
 package com.pet.flights.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+@JsonPropertyOrder({"departureAirport", "arrivalAirport", "departureDateTime", "arrivalDateTime"})
 public class Leg {
 
     String departureAirport;
     String arrivalAirport;
-    String departureDateTime;
-    String arrivalDateTime;
+    long departureEpochMinute;
+    long arrivalEpochMinute;
 
-    public Leg(String departureAirport, String arrivalAirport, String departureDateTime, String arrivalDateTime) {
+    public Leg(String departureAirport, String arrivalAirport, long departureEpochMinute, long arrivalEpochMinute) {
         this.departureAirport = departureAirport;
         this.arrivalAirport = arrivalAirport;
-        this.departureDateTime = departureDateTime;
-        this.arrivalDateTime = arrivalDateTime;
+        this.departureEpochMinute = departureEpochMinute;
+        this.arrivalEpochMinute = arrivalEpochMinute;
+    }
+
+    public Leg(String departureAirport, String arrivalAirport, String departureDateTime, String arrivalDateTime) {
+        this(departureAirport, arrivalAirport, EpochMinutes.parse(departureDateTime), EpochMinutes.parse(arrivalDateTime));
     }
 
     public String getDepartureAirport() {
@@ -23,15 +31,25 @@ public class Leg {
     }
 
     public String getDepartureDateTime() {
-        return departureDateTime;
+        return EpochMinutes.format(departureEpochMinute);
     }
 
     public String getArrivalDateTime() {
-        return arrivalDateTime;
+        return EpochMinutes.format(arrivalEpochMinute);
+    }
+
+    @JsonIgnore
+    public long getDepartureEpochMinute() {
+        return departureEpochMinute;
+    }
+
+    @JsonIgnore
+    public long getArrivalEpochMinute() {
+        return arrivalEpochMinute;
     }
 
     @Override
     public String toString() {
-        return departureAirport + "," + arrivalAirport+ "," + departureDateTime + ","  + arrivalDateTime;
+        return departureAirport + "," + arrivalAirport+ "," + getDepartureDateTime() + ","  + getArrivalDateTime();
     }
 }
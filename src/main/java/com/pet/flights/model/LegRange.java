@@ -0,0 +1,56 @@
+package com.pet.flights.model;
+
+import java.util.List;
+
+/**
+ * Legs read by index, so callers can look at airports and times before — or without — a
+ * {@link Leg} object being created for them.
+ */
+public interface LegRange {
+
+    int size();
+
+    String getDepartureAirport(int index);
+
+    String getArrivalAirport(int index);
+
+    long getDepartureEpochMinute(int index);
+
+    long getArrivalEpochMinute(int index);
+
+    Leg get(int index);
+
+    static LegRange of(List<Leg> legs) {
+        return new LegRange() {
+            @Override
+            public int size() {
+                return legs.size();
+            }
+
+            @Override
+            public String getDepartureAirport(int index) {
+                return legs.get(index).getDepartureAirport();
+            }
+
+            @Override
+            public String getArrivalAirport(int index) {
+                return legs.get(index).getArrivalAirport();
+            }
+
+            @Override
+            public long getDepartureEpochMinute(int index) {
+                return legs.get(index).getDepartureEpochMinute();
+            }
+
+            @Override
+            public long getArrivalEpochMinute(int index) {
+                return legs.get(index).getArrivalEpochMinute();
+            }
+
+            @Override
+            public Leg get(int index) {
+                return legs.get(index);
+            }
+        };
+    }
+}
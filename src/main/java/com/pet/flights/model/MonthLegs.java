@@ -0,0 +1,139 @@
+package com.pet.flights.model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The flights of one route and month as two arrays of epoch minutes, grouped by day. Built
+ * once per {@link Schedule} instance; day ranges are index ranges into the arrays. A flight's
+ * {@link Leg} is only created the first time someone asks for it and is then shared by every
+ * search and itinerary that uses the flight.
+ */
+public final class MonthLegs {
+
+    private final String departure;
+    private final String arrival;
+    private final YearMonth month;
+    private final long[] departures;
+    private final long[] arrivals;
+    // dayStarts[day] is the index of the day's first flight, dayStarts[lengthOfMonth + 1] the end
+    private final int[] dayStarts;
+    private final AtomicReferenceArray<Leg> legs;
+
+    private MonthLegs(String departure, String arrival, YearMonth month, long[] departures, long[] arrivals,
+                      int[] dayStarts) {
+        this.departure = departure;
+        this.arrival = arrival;
+        this.month = month;
+        this.departures = departures;
+        this.arrivals = arrivals;
+        this.dayStarts = dayStarts;
+        this.legs = new AtomicReferenceArray<>(departures.length);
+    }
+
+    static MonthLegs of(String departure, String arrival, YearMonth month, List<DaySchedule> days) {
+        int lengthOfMonth = month.lengthOfMonth();
+        int[] dayStarts = new int[lengthOfMonth + 2];
+        for (DaySchedule daySchedule : days) {
+            if (isWithin(daySchedule.getDay(), lengthOfMonth) && daySchedule.getFlights() != null) {
+                dayStarts[daySchedule.getDay() + 1] += daySchedule.getFlights().size();
+            }
+        }
+        for (int day = 1; day <= lengthOfMonth; day++) {
+            dayStarts[day + 1] += dayStarts[day];
+        }
+
+        long[] departures = new long[dayStarts[lengthOfMonth + 1]];
+        long[] arrivals = new long[departures.length];
+        int[] cursor = Arrays.copyOf(dayStarts, lengthOfMonth + 1);
+        for (DaySchedule daySchedule : days) {
+            if (!isWithin(daySchedule.getDay(), lengthOfMonth) || daySchedule.getFlights() == null) {
+                continue;
+            }
+            long startOfDay = EpochMinutes.of(LocalDate.of(month.getYear(), month.getMonth(), daySchedule.getDay()), 0);
+            for (FlightSchedule flight : daySchedule.getFlights()) {
+                int index = cursor[daySchedule.getDay()]++;
+                departures[index] = startOfDay + EpochMinutes.parseMinuteOfDay(flight.getDepartureTime());
+                arrivals[index] = startOfDay + EpochMinutes.parseMinuteOfDay(flight.getArrivalTime());
+            }
+        }
+        return new MonthLegs(departure, arrival, month, departures, arrivals, dayStarts);
+    }
+
+    /**
+     * The flights departing on the days {@code [fromDay, toDay)}.
+     */
+    public LegRange between(int fromDay, int toDay) {
+        int lengthOfMonth = month.lengthOfMonth();
+        int from = Math.max(1, Math.min(fromDay, lengthOfMonth + 1));
+        int to = Math.max(from, Math.min(toDay, lengthOfMonth + 1));
+        return new Days(dayStarts[from], dayStarts[to] - dayStarts[from]);
+    }
+
+    public int size() {
+        return departures.length;
+    }
+
+    boolean isOf(String departure, String arrival, YearMonth month) {
+        return this.departure.equals(departure) && this.arrival.equals(arrival) && this.month.equals(month);
+    }
+
+    private Leg leg(int index) {
+        Leg leg = legs.get(index);
+        if (leg == null) {
+            Leg created = new Leg(departure, arrival, departures[index], arrivals[index]);
+            leg = legs.compareAndExchange(index, null, created);
+            if (leg == null) {
+                leg = created;
+            }
+        }
+        return leg;
+    }
+
+    private static boolean isWithin(int day, int lengthOfMonth) {
+        return day >= 1 && day <= lengthOfMonth;
+    }
+
+    private final class Days implements LegRange {
+        private final int offset;
+        private final int size;
+
+        private Days(int offset, int size) {
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public String getDepartureAirport(int index) {
+            return departure;
+        }
+
+        @Override
+        public String getArrivalAirport(int index) {
+            return arrival;
+        }
+
+        @Override
+        public long getDepartureEpochMinute(int index) {
+            return departures[offset + index];
+        }
+
+        @Override
+        public long getArrivalEpochMinute(int index) {
+            return arrivals[offset + index];
+        }
+
+        @Override
+        public Leg get(int index) {
+            return leg(offset + index);
+        }
+    }
+}
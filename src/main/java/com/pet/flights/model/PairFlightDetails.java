@@ -0,0 +1,27 @@
+package com.pet.flights.model;
+
+import java.util.List;
+
+public class PairFlightDetails {
+    String departure;
+    String arrival;
+    List<FlightDetails> flightDetails;
+
+    public PairFlightDetails(String departure, String arrival, List<FlightDetails> flightDetails) {
+        this.departure = departure;
+        this.arrival = arrival;
+        this.flightDetails = flightDetails;
+    }
+
+    public String getDeparture() {
+        return departure;
+    }
+
+    public String getArrival() {
+        return arrival;
+    }
+
+    public List<FlightDetails> getFlightDetails() {
+        return flightDetails;
+    }
+}
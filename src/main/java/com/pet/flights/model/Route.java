@@ -21,13 +21,33 @@ public class Route {
                  boolean seasonalRoute,
                  String operator,
                  String group) {
-        this.airportFrom = airportFrom;
-        this.airportTo = airportTo;
-        this.connectingAirport = connectingAirport;
+        this.airportFrom = Symbols.intern(airportFrom);
+        this.airportTo = Symbols.intern(airportTo);
+        this.connectingAirport = Symbols.intern(connectingAirport);
         this.newRoute = newRoute;
         this.seasonalRoute = seasonalRoute;
-        this.operator = operator;
-        this.group = group;
+        this.operator = Symbols.intern(operator);
+        this.group = Symbols.intern(group);
+    }
+
+    public void setAirportFrom(String airportFrom) {
+        this.airportFrom = Symbols.intern(airportFrom);
+    }
+
+    public void setAirportTo(String airportTo) {
+        this.airportTo = Symbols.intern(airportTo);
+    }
+
+    public void setConnectingAirport(String connectingAirport) {
+        this.connectingAirport = Symbols.intern(connectingAirport);
+    }
+
+    public void setOperator(String operator) {
+        this.operator = Symbols.intern(operator);
+    }
+
+    public void setGroup(String group) {
+        this.group = Symbols.intern(group);
     }
 
 
@@ -1,10 +1,12 @@
 package com.pet.flights.model;
 
+import java.time.YearMonth;
 import java.util.List;
 
 public class Schedule {
     int month;
     List<DaySchedule> days;
+    private transient volatile MonthLegs legs;
 
     public Schedule() {
     }
@@ -21,4 +23,20 @@ public class Schedule {
     public List<DaySchedule> getDays() {
         return days;
     }
+
+    /**
+     * This schedule's flights as legs of the route {@code departure}-{@code arrival}, expanded
+     * on first use and shared afterwards.
+     */
+    public MonthLegs getLegs(String departure, String arrival, YearMonth yearMonth) {
+        MonthLegs monthLegs = legs;
+        if (monthLegs != null && monthLegs.isOf(departure, arrival, yearMonth)) {
+            return monthLegs;
+        }
+        monthLegs = MonthLegs.of(departure, arrival, yearMonth, days == null ? List.of() : days);
+        if (legs == null) {
+            legs = monthLegs;
+        }
+        return monthLegs;
+    }
 }
@@ -0,0 +1,25 @@
+package com.pet.flights.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of the short strings every route and schedule repeats — airport codes,
+ * operators, route groups and times of day — so each distinct value is held once no matter how
+ * often the upstream APIs send it.
+ */
+public final class Symbols {
+
+    private static final Map<String, String> SYMBOLS = new ConcurrentHashMap<>();
+
+    private Symbols() {
+    }
+
+    public static String intern(String symbol) {
+        if (symbol == null) {
+            return null;
+        }
+        String canonical = SYMBOLS.putIfAbsent(symbol, symbol);
+        return canonical != null ? canonical : symbol;
+    }
+}
@@ -0,0 +1,122 @@
+package com.pet.flights.resilience;
+
+import java.time.Duration;
+
+/**
+ * Count-based circuit breaker for one upstream endpoint. It opens once at least
+ * {@code minimumCalls} of the last {@code windowSize} calls were recorded and the share of
+ * failures among them reaches {@code failureRateThreshold}. While open, calls are refused for
+ * {@code openDuration}; after that a single trial call is let through (half-open), whose outcome
+ * closes the breaker again or reopens it.
+ * <p>
+ * Every permitted call must end in exactly one of {@link #onSuccess()}, {@link #onFailure()}
+ * or {@link #onIgnored()}.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final boolean[] failures;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int recordedCalls;
+    private int failedCalls;
+    private int next;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration) {
+        this.name = name;
+        this.failures = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Whether a call may go upstream now.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+        } else {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else {
+            record(true);
+            if (recordedCalls >= minimumCalls && failedCalls >= failureRateThreshold * recordedCalls) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Ends a permitted call that says nothing about the upstream's health, e.g. one that was
+     * cancelled before it was sent.
+     */
+    public synchronized void onIgnored() {
+        trialInFlight = false;
+    }
+
+    private void record(boolean failure) {
+        if (recordedCalls == failures.length) {
+            failedCalls -= failures[next] ? 1 : 0;
+        } else {
+            recordedCalls++;
+        }
+        failures[next] = failure;
+        failedCalls += failure ? 1 : 0;
+        next = (next + 1) % failures.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trialInFlight = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        trialInFlight = false;
+        recordedCalls = 0;
+        failedCalls = 0;
+        next = 0;
+    }
+}
@@ -0,0 +1,119 @@
+package com.pet.flights.resilience;
+
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs an idempotent request and, if it has not answered within {@code delay}, sends the same
+ * request a second time and takes whichever answer arrives first. At most {@code budget} of
+ * all requests are hedged, so a slow upstream sees a bounded amount of extra load.
+ * <p>
+ * Both attempts run on {@code executor}; the caller only waits for them, so interrupting the
+ * caller (e.g. when a search runs out of time) frees it right away. A zero delay disables
+ * hedging and runs requests on the calling thread.
+ */
+public class HedgedRequests {
+
+    private static final long BUDGET_WINDOW = 1000;
+    private final Executor executor;
+    private final long delayNanos;
+    private final double budget;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong windowHedges = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+
+    public HedgedRequests(Executor executor, Duration delay, double budget) {
+        this.executor = executor;
+        this.delayNanos = delay.toNanos();
+        this.budget = budget;
+    }
+
+    public long getHedgeCount() {
+        return hedges.get();
+    }
+
+    public <T> T execute(Supplier<T> request) {
+        if (delayNanos <= 0) {
+            return request.get();
+        }
+        if (requests.incrementAndGet() % BUDGET_WINDOW == 0) {
+            windowHedges.set(0);
+        }
+        CompletableFuture<T> primary = CompletableFuture.supplyAsync(request, executor);
+        CompletableFuture<T> hedge = null;
+        try {
+            try {
+                return primary.get(delayNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (!mayHedge()) {
+                    return primary.get();
+                }
+            }
+            hedges.incrementAndGet();
+            hedge = CompletableFuture.supplyAsync(request, executor);
+            return firstSuccessful(primary, hedge).get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for upstream response");
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private boolean mayHedge() {
+        long windowRequests = (requests.get() - 1) % BUDGET_WINDOW + 1;
+        long hedged = windowHedges.incrementAndGet();
+        if (hedged > Math.max(1, budget * windowRequests)) {
+            windowHedges.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> primary, CompletableFuture<T> hedge) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        primary.whenComplete((value, failure) -> {
+            if (failure == null) {
+                result.complete(value);
+            } else {
+                hedge.whenComplete((hedgeValue, hedgeFailure) -> {
+                    if (hedgeFailure == null) {
+                        result.complete(hedgeValue);
+                    } else {
+                        result.completeExceptionally(failure);
+                    }
+                });
+            }
+        });
+        hedge.whenComplete((value, failure) -> {
+            if (failure == null) {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    private static RuntimeException unwrap(Throwable failure) {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new ResourceAccessException("Upstream request failed: " + failure);
+    }
+}
@@ -0,0 +1,37 @@
+package com.pet.flights.search;
+
+import com.pet.flights.model.Leg;
+import com.pet.flights.model.LegRange;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The legs a search may join, kept as the ranges they were fetched as. Engines read airports
+ * and times by index and only ask a range for the {@link Leg} itself once it is part of an
+ * itinerary they emit.
+ */
+public final class CandidateLegs {
+
+    private final List<LegRange> ranges = new ArrayList<>();
+    private int size;
+
+    public static CandidateLegs of(Collection<Leg> legs) {
+        return new CandidateLegs().add(LegRange.of(legs instanceof List<Leg> list ? list : new ArrayList<>(legs)));
+    }
+
+    public CandidateLegs add(LegRange range) {
+        ranges.add(range);
+        size += range.size();
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<LegRange> getRanges() {
+        return ranges;
+    }
+}
@@ -0,0 +1,110 @@
+package com.pet.flights.search;
+
+import com.pet.flights.model.FlightDetails;
+import com.pet.flights.model.Leg;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Joins first legs with second legs departing from the same airport at least the minimum
+ * layover (and never less than a minute) after the first leg arrives and strictly before the
+ * maximum layover ends, the same window the {@link ConnectionScanSearchEngine} uses. Second legs are grouped by
+ * departure airport and sorted by departure time, so each first leg only visits the second
+ * legs inside its layover window.
+ */
+public final class ConnectionJoiner {
+
+    private final Map<String, Departures> departuresByAirport;
+    private final long minimumLayoverMinutes;
+    private final long maximumLayoverMinutes;
+
+    private ConnectionJoiner(Map<String, Departures> departuresByAirport, long minimumLayoverMinutes,
+                             long maximumLayoverMinutes) {
+        this.departuresByAirport = departuresByAirport;
+        this.minimumLayoverMinutes = minimumLayoverMinutes;
+        this.maximumLayoverMinutes = maximumLayoverMinutes;
+    }
+
+    public static ConnectionJoiner of(Collection<Leg> secondLegs, Duration maximumLayover) {
+        return of(secondLegs, Duration.ZERO, maximumLayover);
+    }
+
+    public static ConnectionJoiner of(Collection<Leg> secondLegs, Duration minimumLayover, Duration maximumLayover) {
+        Map<String, List<Leg>> secondLegsByAirport = new HashMap<>();
+        secondLegs.forEach(secondLeg -> secondLegsByAirport
+                .computeIfAbsent(secondLeg.getDepartureAirport(), airport -> new ArrayList<>())
+                .add(secondLeg));
+
+        Map<String, Departures> departuresByAirport = new HashMap<>(secondLegsByAirport.size() * 2);
+        secondLegsByAirport.forEach((airport, legs) -> departuresByAirport.put(airport, Departures.of(legs)));
+        return new ConnectionJoiner(departuresByAirport, Math.max(1, minimumLayover.toMinutes()),
+                maximumLayover.toMinutes());
+    }
+
+    public List<FlightDetails> join(Collection<Leg> firstLegs) {
+        List<FlightDetails> connections = new ArrayList<>();
+        firstLegs.forEach(firstLeg -> join(firstLeg, connections::add));
+        return connections;
+    }
+
+    public void join(Leg firstLeg, Consumer<FlightDetails> connections) {
+        Departures departures = departuresByAirport.get(firstLeg.getArrivalAirport());
+        if (departures == null) {
+            return;
+        }
+        long arrival = firstLeg.getArrivalEpochMinute();
+        long maximumLayover = arrival + maximumLayoverMinutes;
+        for (int i = departures.firstDepartingAfter(arrival + minimumLayoverMinutes - 1);
+             i < departures.size() && departures.departureAt(i) < maximumLayover; i++) {
+            connections.accept(new FlightDetails(List.of(firstLeg, departures.legAt(i))));
+        }
+    }
+
+    private static final class Departures {
+        private final long[] departureMinutes;
+        private final Leg[] legs;
+
+        private Departures(long[] departureMinutes, Leg[] legs) {
+            this.departureMinutes = departureMinutes;
+            this.legs = legs;
+        }
+
+        private static Departures of(List<Leg> legs) {
+            Leg[] sortedLegs = legs.toArray(Leg[]::new);
+            Arrays.sort(sortedLegs, Comparator.comparingLong(Leg::getDepartureEpochMinute));
+            long[] departureMinutes = new long[sortedLegs.length];
+            for (int i = 0; i < sortedLegs.length; i++) {
+                departureMinutes[i] = sortedLegs[i].getDepartureEpochMinute();
+            }
+            return new Departures(departureMinutes, sortedLegs);
+        }
+
+        private int firstDepartingAfter(long minute) {
+            int low = 0;
+            int high = departureMinutes.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (departureMinutes[middle] <= minute) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private int size() {
+            return legs.length;
+        }
+
+        private long departureAt(int index) {
+            return departureMinutes[index];
+        }
+
+        private Leg legAt(int index) {
+            return legs[index];
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.pet.flights.search;
+
+import com.pet.flights.model.FlightDetails;
+import com.pet.flights.model.Leg;
+import com.pet.flights.model.LegRange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Round-based connection scan over the fetched legs. A forward pass computes, per leg, the
+ * fewest legs needed to board it from an origin (earliest arrival per airport and round);
+ * a backward pass computes the fewest legs needed to reach a destination from it (latest
+ * departure per airport and round). Only legs whose two counts fit into the stop budget are
+ * ever joined, so the enumeration never expands dead-end prefixes. Prefixes the sink reports
+ * it would not accept are cut off as well.
+ * <p>
+ * All origins and destinations of a query are scanned together. Itineraries end at the first
+ * destination they reach, except for "anywhere" queries, where every airport is a
+ * destination and itineraries may continue through them.
+ * <p>
+ * A connecting leg departs at least the minimum layover (and always strictly) after the
+ * previous leg arrives, and strictly before the maximum layover ends. Itineraries never visit
+ * an airport twice.
+ */
+@Component
+public class ConnectionScanSearchEngine implements ItinerarySearchEngine {
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE / 2;
+    private final long minimumLayoverMinutes;
+    private final long maximumLayoverMinutes;
+
+    @Autowired
+    public ConnectionScanSearchEngine(@Value("${flights.search.min-layover:PT0M}") Duration minimumLayover,
+                                      @Value("${flights.search.max-layover:PT2H}") Duration maximumLayover) {
+        this.minimumLayoverMinutes = Math.max(1, minimumLayover.toMinutes());
+        this.maximumLayoverMinutes = maximumLayover.toMinutes();
+    }
+
+    @Override
+    public void search(CandidateLegs legs, ItineraryQuery query, ItinerarySink itineraries) {
+        int maxLegs = query.getMaxStops() + 1;
+        if (maxLegs < 1) {
+            return;
+        }
+        Timetable timetable = Timetable.of(legs, query);
+        int[] legsFromOrigin = scanForward(timetable, maxLegs);
+        int[] legsToDestination = scanBackward(timetable, maxLegs);
+        boolean[] useful = new boolean[timetable.size()];
+        for (int leg = 0; leg < timetable.size(); leg++) {
+            useful[leg] = legsFromOrigin[leg] + legsToDestination[leg] - 1 <= maxLegs;
+        }
+
+        Enumeration enumeration = new Enumeration(timetable, useful, legsToDestination, maxLegs, itineraries);
+        for (int targetLegs = Math.max(1, query.getMinStops() + 1); targetLegs <= maxLegs; targetLegs++) {
+            for (int leg = 0; leg < timetable.size(); leg++) {
+                if (timetable.isOrigin(timetable.from[leg]) && useful[leg] && legsToDestination[leg] <= targetLegs) {
+                    enumeration.start(leg, targetLegs);
+                }
+            }
+        }
+    }
+
+    private int[] scanForward(Timetable timetable, int maxLegs) {
+        int[] legsFromOrigin = new int[timetable.size()];
+        Arrays.fill(legsFromOrigin, UNREACHABLE);
+        long[] earliestArrival = new long[timetable.airportCount()];
+        Arrays.fill(earliestArrival, Long.MAX_VALUE);
+        for (int leg = 0; leg < timetable.size(); leg++) {
+            if (timetable.isOrigin(timetable.from[leg])) {
+                legsFromOrigin[leg] = 1;
+            }
+        }
+        for (int round = 2; round <= maxLegs; round++) {
+            for (int leg = 0; leg < timetable.size(); leg++) {
+                if (legsFromOrigin[leg] == round - 1) {
+                    int airport = timetable.to[leg];
+                    earliestArrival[airport] = Math.min(earliestArrival[airport], timetable.arrivals[leg]);
+                }
+            }
+            for (int leg = 0; leg < timetable.size(); leg++) {
+                long arrival = earliestArrival[timetable.from[leg]];
+                if (legsFromOrigin[leg] == UNREACHABLE && arrival != Long.MAX_VALUE
+                        && timetable.departures[leg] >= arrival + minimumLayoverMinutes) {
+                    legsFromOrigin[leg] = round;
+                }
+            }
+        }
+        return legsFromOrigin;
+    }
+
+    private int[] scanBackward(Timetable timetable, int maxLegs) {
+        int[] legsToDestination = new int[timetable.size()];
+        Arrays.fill(legsToDestination, UNREACHABLE);
+        long[] latestDeparture = new long[timetable.airportCount()];
+        Arrays.fill(latestDeparture, Long.MIN_VALUE);
+        for (int leg = 0; leg < timetable.size(); leg++) {
+            if (timetable.isDestination(timetable.to[leg])) {
+                legsToDestination[leg] = 1;
+            }
+        }
+        for (int round = 2; round <= maxLegs; round++) {
+            for (int leg = 0; leg < timetable.size(); leg++) {
+                if (legsToDestination[leg] == round - 1) {
+                    int airport = timetable.from[leg];
+                    latestDeparture[airport] = Math.max(latestDeparture[airport], timetable.departures[leg]);
+                }
+            }
+            for (int leg = 0; leg < timetable.size(); leg++) {
+                long departure = latestDeparture[timetable.to[leg]];
+                if (legsToDestination[leg] == UNREACHABLE && departure != Long.MIN_VALUE
+                        && timetable.arrivals[leg] + minimumLayoverMinutes <= departure) {
+                    legsToDestination[leg] = round;
+                }
+            }
+        }
+        return legsToDestination;
+    }
+
+    private final class Enumeration {
+        private final Timetable timetable;
+        private final boolean[] useful;
+        private final int[] legsToDestination;
+        private final ItinerarySink itineraries;
+        private final int[] path;
+
+        private Enumeration(Timetable timetable, boolean[] useful, int[] legsToDestination, int maxLegs,
+                            ItinerarySink itineraries) {
+            this.timetable = timetable;
+            this.useful = useful;
+            this.legsToDestination = legsToDestination;
+            this.path = new int[maxLegs];
+            this.itineraries = itineraries;
+        }
+
+        private void start(int firstLeg, int targetLegs) {
+            if (!itineraries.mayAccept(timetable.departures[firstLeg], timetable.arrivals[firstLeg])) {
+                return;
+            }
+            path[0] = firstLeg;
+            extend(1, targetLegs);
+        }
+
+        private void extend(int depth, int targetLegs) {
+            int lastLeg = path[depth - 1];
+            int airport = timetable.to[lastLeg];
+            if (depth == targetLegs) {
+                if (timetable.isDestination(airport)) {
+                    emit(depth);
+                }
+                return;
+            }
+            if (timetable.isDestination(airport) && !timetable.anyDestination) {
+                return;
+            }
+            long arrival = timetable.arrivals[lastLeg];
+            long maximumLayover = arrival + maximumLayoverMinutes;
+            int end = timetable.departureOffsets[airport + 1];
+            for (int i = timetable.firstDepartingAtOrAfter(airport, arrival + minimumLayoverMinutes);
+                 i < end && timetable.sortedDepartures[i] < maximumLayover; i++) {
+                int leg = timetable.departureOrder[i];
+                if (useful[leg] && legsToDestination[leg] <= targetLegs - depth && !visited(timetable.to[leg], depth)
+                        && itineraries.mayAccept(timetable.departures[path[0]], timetable.arrivals[leg])) {
+                    path[depth] = leg;
+                    extend(depth + 1, targetLegs);
+                }
+            }
+        }
+
+        private boolean visited(int airport, int depth) {
+            for (int i = 0; i < depth; i++) {
+                if (timetable.to[path[i]] == airport) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void emit(int legCount) {
+            Leg[] legs = new Leg[legCount];
+            for (int i = 0; i < legCount; i++) {
+                legs[i] = timetable.leg(path[i]);
+            }
+            itineraries.accept(new FlightDetails(List.of(legs)));
+        }
+    }
+
+    /**
+     * The query's legs as parallel arrays, in input order, plus a per-airport index of
+     * departures sorted by time. Legs leaving a destination (unless any airport is one) or
+     * entering an origin can never be part of an itinerary and are dropped up front. Each leg remembers the range and index
+     * it came from, so its {@link Leg} is only materialized when an itinerary is emitted.
+     */
+    private static final class Timetable {
+        private final LegRange[] sources;
+        private final int[] sourceIndices;
+        private final int[] from;
+        private final int[] to;
+        private final long[] departures;
+        private final long[] arrivals;
+        private final int[] departureOffsets;
+        private final int[] departureOrder;
+        private final long[] sortedDepartures;
+        private final boolean[] origins;
+        private final boolean[] destinations;
+        private final boolean anyDestination;
+
+        private Timetable(LegRange[] sources, int[] sourceIndices, int[] from, int[] to, long[] departures,
+                          long[] arrivals, int[] departureOffsets, int[] departureOrder, long[] sortedDepartures,
+                          boolean[] origins, boolean[] destinations, boolean anyDestination) {
+            this.sources = sources;
+            this.sourceIndices = sourceIndices;
+            this.from = from;
+            this.to = to;
+            this.departures = departures;
+            this.arrivals = arrivals;
+            this.departureOffsets = departureOffsets;
+            this.departureOrder = departureOrder;
+            this.sortedDepartures = sortedDepartures;
+            this.origins = origins;
+            this.destinations = destinations;
+            this.anyDestination = anyDestination;
+        }
+
+        private static Timetable of(CandidateLegs candidateLegs, ItineraryQuery query) {
+            Set<String> origins = query.getDepartures();
+            Set<String> destinations = query.getArrivals();
+            boolean anyDestination = query.isAnyArrival();
+            Map<String, Integer> airportIds = new HashMap<>();
+            List<String> airportCodes = new ArrayList<>();
+            LegRange[] sources = new LegRange[candidateLegs.size()];
+            int[] sourceIndices = new int[candidateLegs.size()];
+            int[] from = new int[candidateLegs.size()];
+            int[] to = new int[candidateLegs.size()];
+            long[] departures = new long[candidateLegs.size()];
+            long[] arrivals = new long[candidateLegs.size()];
+            long earliestDeparture = Long.MAX_VALUE;
+            int size = 0;
+            for (LegRange range : candidateLegs.getRanges()) {
+                for (int index = 0; index < range.size(); index++) {
+                    String departureAirport = range.getDepartureAirport(index);
+                    String arrivalAirport = range.getArrivalAirport(index);
+                    if (origins.contains(arrivalAirport) || departureAirport.equals(arrivalAirport)
+                            || !anyDestination && destinations.contains(departureAirport)
+                            && !origins.contains(departureAirport)) {
+                        continue;
+                    }
+                    sources[size] = range;
+                    sourceIndices[size] = index;
+                    from[size] = airportId(departureAirport, airportIds, airportCodes);
+                    to[size] = airportId(arrivalAirport, airportIds, airportCodes);
+                    departures[size] = range.getDepartureEpochMinute(index);
+                    arrivals[size] = range.getArrivalEpochMinute(index);
+                    earliestDeparture = Math.min(earliestDeparture, departures[size]);
+                    size++;
+                }
+            }
+            if (size < sources.length) {
+                sources = Arrays.copyOf(sources, size);
+                sourceIndices = Arrays.copyOf(sourceIndices, size);
+                from = Arrays.copyOf(from, size);
+                to = Arrays.copyOf(to, size);
+                departures = Arrays.copyOf(departures, size);
+                arrivals = Arrays.copyOf(arrivals, size);
+            }
+
+            int airportCount = airportIds.size();
+            boolean[] isOrigin = new boolean[airportCount];
+            boolean[] isDestination = new boolean[airportCount];
+            for (int airport = 0; airport < airportCount; airport++) {
+                isOrigin[airport] = origins.contains(airportCodes.get(airport));
+                isDestination[airport] = !isOrigin[airport]
+                        && (anyDestination || destinations.contains(airportCodes.get(airport)));
+            }
+            int[] departureOffsets = new int[airportCount + 1];
+            for (int airport : from) {
+                departureOffsets[airport + 1]++;
+            }
+            for (int airport = 0; airport < airportCount; airport++) {
+                departureOffsets[airport + 1] += departureOffsets[airport];
+            }
+            // (departure - earliest departure) in the high bits, leg index in the low bits
+            long[] departureKeys = new long[size];
+            int[] cursor = Arrays.copyOf(departureOffsets, airportCount);
+            for (int i = 0; i < size; i++) {
+                departureKeys[cursor[from[i]]++] = (departures[i] - earliestDeparture) << 32 | i;
+            }
+            int[] departureOrder = new int[size];
+            long[] sortedDepartures = new long[size];
+            for (int airport = 0; airport < airportCount; airport++) {
+                Arrays.sort(departureKeys, departureOffsets[airport], departureOffsets[airport + 1]);
+            }
+            for (int i = 0; i < size; i++) {
+                departureOrder[i] = (int) departureKeys[i];
+                sortedDepartures[i] = departures[departureOrder[i]];
+            }
+            return new Timetable(sources, sourceIndices, from, to, departures, arrivals,
+                    departureOffsets, departureOrder, sortedDepartures, isOrigin, isDestination, anyDestination);
+        }
+
+        private static int airportId(String airportCode, Map<String, Integer> airportIds, List<String> airportCodes) {
+            return airportIds.computeIfAbsent(airportCode, code -> {
+                airportCodes.add(code);
+                return airportCodes.size() - 1;
+            });
+        }
+
+        private boolean isOrigin(int airport) {
+            return origins[airport];
+        }
+
+        private boolean isDestination(int airport) {
+            return destinations[airport];
+        }
+
+        private int size() {
+            return from.length;
+        }
+
+        private Leg leg(int leg) {
+            return sources[leg].get(sourceIndices[leg]);
+        }
+
+        private int airportCount() {
+            return departureOffsets.length - 1;
+        }
+
+        private int firstDepartingAtOrAfter(int airport, long minute) {
+            int low = departureOffsets[airport];
+            int high = departureOffsets[airport + 1];
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sortedDepartures[middle] < minute) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.pet.flights.search;
+
+import com.pet.flights.model.FlightDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last itinerary of a page in a given {@link ItinerarySort} order, encoded as
+ * an opaque URL-safe token.
+ */
+public final class ItineraryCursor {
+    private final ItinerarySort sort;
+    private final long key;
+    private final long departureEpochMinute;
+    private final long arrivalEpochMinute;
+    private final int stops;
+    private final String legs;
+
+    private ItineraryCursor(ItinerarySort sort, long key, long departureEpochMinute, long arrivalEpochMinute,
+                            int stops, String legs) {
+        this.sort = sort;
+        this.key = key;
+        this.departureEpochMinute = departureEpochMinute;
+        this.arrivalEpochMinute = arrivalEpochMinute;
+        this.stops = stops;
+        this.legs = legs;
+    }
+
+    public static ItineraryCursor after(ItinerarySort sort, FlightDetails flightDetails) {
+        return new ItineraryCursor(sort, sort.keyOf(flightDetails), flightDetails.getDepartureEpochMinute(),
+                flightDetails.getArrivalEpochMinute(), flightDetails.getStops(), flightDetails.toString());
+    }
+
+    public static ItineraryCursor decode(String token) {
+        try {
+            String[] fields = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 6);
+            return new ItineraryCursor(ItinerarySort.valueOf(fields[0]), Long.parseLong(fields[1]),
+                    Long.parseLong(fields[2]), Long.parseLong(fields[3]), Integer.parseInt(fields[4]), fields[5]);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor " + token, e);
+        }
+    }
+
+    public String encode() {
+        String fields = sort + "|" + key + "|" + departureEpochMinute + "|" + arrivalEpochMinute + "|" + stops + "|" + legs;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fields.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ItinerarySort getSort() {
+        return sort;
+    }
+
+    /**
+     * Whether {@code flightDetails} comes strictly after this cursor in the cursor's order.
+     */
+    public boolean precedes(FlightDetails flightDetails) {
+        int comparison = Long.compare(sort.keyOf(flightDetails), key);
+        if (comparison == 0) {
+            comparison = Long.compare(flightDetails.getDepartureEpochMinute(), departureEpochMinute);
+        }
+        if (comparison == 0) {
+            comparison = Long.compare(flightDetails.getArrivalEpochMinute(), arrivalEpochMinute);
+        }
+        if (comparison == 0) {
+            comparison = Integer.compare(flightDetails.getStops(), stops);
+        }
+        if (comparison == 0) {
+            comparison = flightDetails.toString().compareTo(legs);
+        }
+        return comparison > 0;
+    }
+}
@@ -0,0 +1,54 @@
+package com.pet.flights.search;
+
+import java.util.Set;
+
+/**
+ * Itineraries from any of {@code departures} to any of {@code arrivals}; no arrivals means
+ * anywhere except the departures. An airport in both sets only counts as a departure.
+ */
+public final class ItineraryQuery {
+    private final Set<String> departures;
+    private final Set<String> arrivals;
+    private final int minStops;
+    private final int maxStops;
+
+    public ItineraryQuery(String departure, String arrival, int maxStops) {
+        this(departure, arrival, 0, maxStops);
+    }
+
+    public ItineraryQuery(String departure, String arrival, int minStops, int maxStops) {
+        this(Set.of(departure), Set.of(arrival), minStops, maxStops);
+    }
+
+    public ItineraryQuery(Set<String> departures, Set<String> arrivals, int minStops, int maxStops) {
+        this.departures = Set.copyOf(departures);
+        this.arrivals = Set.copyOf(arrivals);
+        this.minStops = minStops;
+        this.maxStops = maxStops;
+    }
+
+    public Set<String> getDepartures() {
+        return departures;
+    }
+
+    public Set<String> getArrivals() {
+        return arrivals;
+    }
+
+    public boolean isAnyArrival() {
+        return arrivals.isEmpty();
+    }
+
+    public int getMinStops() {
+        return minStops;
+    }
+
+    public int getMaxStops() {
+        return maxStops;
+    }
+
+    @Override
+    public String toString() {
+        return departures + "-" + (isAnyArrival() ? "*" : arrivals) + " (" + minStops + "-" + maxStops + " stops)";
+    }
+}
@@ -0,0 +1,27 @@
+package com.pet.flights.search;
+
+import com.pet.flights.model.FlightDetails;
+import com.pet.flights.model.Leg;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Builds itineraries for a query out of the legs fetched for it. Itineraries are emitted
+ * ordered by number of stops; partial itineraries the sink would not accept are dropped.
+ */
+public interface ItinerarySearchEngine {
+
+    void search(CandidateLegs legs, ItineraryQuery query, ItinerarySink itineraries);
+
+    default void search(Collection<Leg> legs, ItineraryQuery query, ItinerarySink itineraries) {
+        search(CandidateLegs.of(legs), query, itineraries);
+    }
+
+    default List<FlightDetails> search(Collection<Leg> legs, ItineraryQuery query) {
+        List<FlightDetails> itineraries = new ArrayList<>();
+        search(legs, query, itineraries::add);
+        return itineraries;
+    }
+}
@@ -0,0 +1,21 @@
+package com.pet.flights.search;
+
+import com.pet.flights.model.FlightDetails;
+
+import java.util.function.Consumer;
+
+/**
+ * Receives itineraries from an {@link ItinerarySearchEngine}. A sink that only keeps some of
+ * them can tell the engine which partial itineraries are not worth extending.
+ */
+@FunctionalInterface
+public interface ItinerarySink extends Consumer<FlightDetails> {
+
+    /**
+     * Whether an itinerary departing at {@code departureEpochMinute} and arriving no earlier
+     * than {@code arrivalEpochMinute} could still be kept.
+     */
+    default boolean mayAccept(long departureEpochMinute, long arrivalEpochMinute) {
+        return true;
+    }
+}
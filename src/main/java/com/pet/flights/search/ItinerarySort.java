@@ -0,0 +1,35 @@
+package com.pet.flights.search;
+
+import com.pet.flights.model.FlightDetails;
+
+import java.util.Comparator;
+
+/**
+ * Result orders. Ties are broken by departure, arrival, number of stops and finally the legs
+ * themselves, so every order is total and can be paged with an {@link ItineraryCursor}.
+ */
+public enum ItinerarySort {
+    DEPARTURE,
+    ARRIVAL,
+    DURATION;
+
+    public long keyOf(long departureEpochMinute, long arrivalEpochMinute) {
+        return switch (this) {
+            case DEPARTURE -> departureEpochMinute;
+            case ARRIVAL -> arrivalEpochMinute;
+            case DURATION -> arrivalEpochMinute - departureEpochMinute;
+        };
+    }
+
+    public long keyOf(FlightDetails flightDetails) {
+        return keyOf(flightDetails.getDepartureEpochMinute(), flightDetails.getArrivalEpochMinute());
+    }
+
+    public Comparator<FlightDetails> comparator() {
+        return Comparator.<FlightDetails>comparingLong(this::keyOf)
+                .thenComparingLong(FlightDetails::getDepartureEpochMinute)
+                .thenComparingLong(FlightDetails::getArrivalEpochMinute)
+                .thenComparingInt(FlightDetails::getStops)
+                .thenComparing(FlightDetails::toString);
+    }
+}
@@ -0,0 +1,58 @@
+package com.pet.flights.search;
+
+import com.pet.flights.model.FlightDetails;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the first {@code limit} itineraries after an optional cursor in a bounded max-heap.
+ * Once the heap is full, partial itineraries whose sort key is already worse than the current
+ * K-th result are reported as not worth extending.
+ */
+public final class TopItineraries implements ItinerarySink {
+    private final ItinerarySort sort;
+    private final int limit;
+    private final ItineraryCursor after;
+    private final Comparator<FlightDetails> order;
+    private final PriorityQueue<FlightDetails> worstFirst;
+
+    public TopItineraries(ItinerarySort sort, int limit, ItineraryCursor after) {
+        this.sort = sort;
+        this.limit = limit;
+        this.after = after;
+        this.order = sort.comparator();
+        this.worstFirst = new PriorityQueue<>(Math.min(limit, 1024), order.reversed());
+    }
+
+    @Override
+    public void accept(FlightDetails flightDetails) {
+        if (after != null && !after.precedes(flightDetails)) {
+            return;
+        }
+        if (worstFirst.size() < limit) {
+            worstFirst.add(flightDetails);
+        } else if (order.compare(flightDetails, worstFirst.peek()) < 0) {
+            worstFirst.poll();
+            worstFirst.add(flightDetails);
+        }
+    }
+
+    @Override
+    public boolean mayAccept(long departureEpochMinute, long arrivalEpochMinute) {
+        return worstFirst.size() < limit
+                || sort.keyOf(departureEpochMinute, arrivalEpochMinute) <= sort.keyOf(worstFirst.peek());
+    }
+
+    public boolean isFull() {
+        return worstFirst.size() == limit;
+    }
+
+    public List<FlightDetails> getItineraries() {
+        List<FlightDetails> itineraries = new ArrayList<>(worstFirst);
+        itineraries.sort(order);
+        return itineraries;
+    }
+}
@@ -0,0 +1,12 @@
+package com.pet.flights.service;
+
+/**
+ * Receives the results of a batch search, one call per search, in the order the searches
+ * complete. {@code index} is the search's position in the batch.
+ */
+public interface BatchSearchSink {
+
+    void accept(int index, FlightDetailsPage page);
+
+    void fail(int index, RuntimeException error);
+}
@@ -0,0 +1,282 @@
+package com.pet.flights.service;
+
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.graph.AirportPair;
+import com.pet.flights.graph.RouteGraph;
+import com.pet.flights.model.EpochMinutes;
+import com.pet.flights.model.FlightDetails;
+import com.pet.flights.model.Leg;
+import com.pet.flights.model.Schedule;
+import com.pet.flights.search.CandidateLegs;
+import com.pet.flights.search.ItineraryQuery;
+import com.pet.flights.search.ItinerarySearchEngine;
+import com.pet.flights.search.ItinerarySink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One-stop itineraries of the most searched airport pairs, materialized in the background for
+ * the next few months, so searching such a pair is a lookup plus a day-window filter.
+ * <p>
+ * Every refresh re-ranks the pairs by their (decaying) search count. A table entry remembers
+ * the route graph and the schedule instances it was built from and is rebuilt only when one of
+ * them is no longer the one the route service or the schedule cache hands out. Searches check
+ * the same before using an entry, so they never see itineraries the live search would not find.
+ */
+@Service
+public class ConnectionTable {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionTable.class);
+    private final RouteService routeService;
+    private final ScheduleService scheduleService;
+    private final ExecutorService legFetchExecutor;
+    private final ItinerarySearchEngine itinerarySearchEngine;
+    private final int maxPairs;
+    private final int minSearches;
+    private final int months;
+    private final Duration fetchTimeout;
+    private final Map<AirportPair, LongAdder> searchCounts = new ConcurrentHashMap<>();
+    private final Map<AirportPair, Long> scores = new HashMap<>();
+    private volatile Map<AirportPair, Entry> entries = Map.of();
+
+    @Autowired
+    public ConnectionTable(RouteService routeService, ScheduleService scheduleService,
+                           @Qualifier("legFetchExecutor") ExecutorService legFetchExecutor,
+                           ItinerarySearchEngine itinerarySearchEngine,
+                           @Value("${flights.hot-pairs.max-pairs:200}") int maxPairs,
+                           @Value("${flights.hot-pairs.min-searches:10}") int minSearches,
+                           @Value("${flights.hot-pairs.months:2}") int months,
+                           @Value("${flights.search.deadline:PT10S}") Duration fetchTimeout) {
+        this.routeService = routeService;
+        this.scheduleService = scheduleService;
+        this.legFetchExecutor = legFetchExecutor;
+        this.itinerarySearchEngine = itinerarySearchEngine;
+        this.maxPairs = maxPairs;
+        this.minSearches = minSearches;
+        this.months = months;
+        this.fetchTimeout = fetchTimeout;
+    }
+
+    public void recordSearch(String departure, String arrival) {
+        if (maxPairs > 0) {
+            searchCounts.computeIfAbsent(new AirportPair(departure, arrival), pair -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Emits the search's one-stop itineraries from the table, ordered by departure, and returns
+     * the routes they were joined from. Returns an empty set without emitting anything when the
+     * pair or one of the search's months is not materialized, when the entry is out of date, or
+     * when the pair has no connections to take from the table.
+     */
+    public Set<AirportPair> emitOneStopItineraries(FlightSearch search, ItinerarySink flightDetails) {
+        Entry entry = entries.get(new AirportPair(search.getDeparture(), search.getArrival()));
+        if (entry == null || entry.routes.isEmpty()) {
+            return Set.of();
+        }
+        Set<YearMonth> searchMonths = new HashSet<>();
+        for (MonthSlice monthSlice : MonthSlice.between(search.getDepartureDateTime(), search.getArrivalDateTime())) {
+            searchMonths.add(YearMonth.of(monthSlice.getYear(), monthSlice.getMonth()));
+        }
+        if (!entry.isCurrentFor(searchMonths, routeService.getRouteGraph(), scheduleService)) {
+            return Set.of();
+        }
+        long firstDay = EpochMinutes.of(search.getDepartureDateTime().toLocalDate(), 0);
+        long endDay = EpochMinutes.of(search.getArrivalDateTime().toLocalDate(), 0);
+        for (int i = entry.firstDepartingAtOrAfter(firstDay); i < entry.size() && entry.departures[i] < endDay; i++) {
+            if (entry.lastLegDepartures[i] < endDay
+                    && flightDetails.mayAccept(entry.departures[i], entry.arrivals[i])) {
+                flightDetails.accept(entry.itineraries[i]);
+            }
+        }
+        return entry.routes;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${flights.hot-pairs.refresh-interval:PT1M}")
+    public synchronized void refresh() {
+        if (maxPairs <= 0) {
+            return;
+        }
+        List<AirportPair> hotPairs = rankHotPairs();
+        if (hotPairs.isEmpty()) {
+            entries = Map.of();
+            return;
+        }
+        RouteGraph routeGraph = routeService.getRouteGraph();
+        List<YearMonth> horizon = new ArrayList<>(months);
+        for (int i = 0; i < months; i++) {
+            horizon.add(YearMonth.now().plusMonths(i));
+        }
+
+        Map<AirportPair, Entry> currentEntries = entries;
+        Map<AirportPair, Entry> refreshedEntries = new HashMap<>();
+        int rebuilt = 0;
+        for (AirportPair pair : hotPairs) {
+            Entry entry = currentEntries.get(pair);
+            if (entry == null || !entry.isCurrentFor(Set.copyOf(horizon), routeGraph, scheduleService)) {
+                try {
+                    entry = materialize(pair, routeGraph, horizon);
+                    rebuilt++;
+                } catch (ExecutionException | RuntimeException e) {
+                    log.warn("Cannot materialize connections of {}", pair, e);
+                    continue;
+                } catch (TimeoutException e) {
+                    log.warn("Schedules of {} not fetched within {}, skipping the pair", pair, fetchTimeout);
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            refreshedEntries.put(pair, entry);
+        }
+        entries = Map.copyOf(refreshedEntries);
+        log.debug("Connection table holds {} pairs, {} rebuilt", refreshedEntries.size(), rebuilt);
+    }
+
+    private List<AirportPair> rankHotPairs() {
+        searchCounts.forEach((pair, count) -> scores.merge(pair, count.sumThenReset(), Long::sum));
+        searchCounts.values().removeIf(count -> count.sum() == 0);
+        List<AirportPair> hotPairs = scores.entrySet().stream()
+                .filter(score -> score.getValue() >= minSearches)
+                .sorted(Map.Entry.<AirportPair, Long>comparingByValue().reversed())
+                .limit(maxPairs)
+                .map(Map.Entry::getKey)
+                .toList();
+        scores.replaceAll((pair, score) -> score / 2);
+        scores.values().removeIf(score -> score == 0);
+        return hotPairs;
+    }
+
+    /**
+     * Fetches the pair's schedules within the search deadline, so one slow upstream cannot hold
+     * the scheduler thread.
+     */
+    private Entry materialize(AirportPair pair, RouteGraph routeGraph, List<YearMonth> horizon)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        String departure = pair.getDeparture();
+        String arrival = pair.getArrival();
+        Map<ScheduleKey, Future<Schedule>> fetches = new LinkedHashMap<>();
+        for (String hub : routeGraph.getConnectingAirports(departure, arrival)) {
+            for (YearMonth yearMonth : horizon) {
+                for (ScheduleKey scheduleKey : List.of(
+                        new ScheduleKey(departure, hub, yearMonth.getYear(), yearMonth.getMonthValue()),
+                        new ScheduleKey(hub, arrival, yearMonth.getYear(), yearMonth.getMonthValue()))) {
+                    fetches.put(scheduleKey, legFetchExecutor.submit(() -> scheduleService.getSchedule(scheduleKey)));
+                }
+            }
+        }
+
+        Map<ScheduleKey, Schedule> schedules = new HashMap<>();
+        CandidateLegs legs = new CandidateLegs();
+        long deadline = System.nanoTime() + fetchTimeout.toNanos();
+        try {
+            for (Map.Entry<ScheduleKey, Future<Schedule>> fetch : fetches.entrySet()) {
+                ScheduleKey scheduleKey = fetch.getKey();
+                Schedule schedule = fetch.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                schedules.put(scheduleKey, schedule);
+                YearMonth yearMonth = YearMonth.of(scheduleKey.getYear(), scheduleKey.getMonth());
+                legs.add(schedule.getLegs(scheduleKey.getDeparture(), scheduleKey.getArrival(), yearMonth)
+                        .between(1, yearMonth.lengthOfMonth() + 1));
+            }
+        } finally {
+            fetches.values().forEach(fetch -> fetch.cancel(true));
+        }
+
+        List<FlightDetails> itineraries = new ArrayList<>();
+        itinerarySearchEngine.search(legs, new ItineraryQuery(departure, arrival, 1, 1), itineraries::add);
+        itineraries.sort(Comparator.comparingLong(FlightDetails::getDepartureEpochMinute)
+                .thenComparingLong(FlightDetails::getArrivalEpochMinute));
+        return new Entry(routeGraph, horizon, schedules, itineraries);
+    }
+
+    /**
+     * The one-stop itineraries of one pair as parallel arrays sorted by departure.
+     */
+    private static final class Entry {
+        private final RouteGraph routeGraph;
+        private final Set<YearMonth> months;
+        private final Map<ScheduleKey, Schedule> schedules;
+        private final Set<AirportPair> routes;
+        private final FlightDetails[] itineraries;
+        private final long[] departures;
+        private final long[] arrivals;
+        private final long[] lastLegDepartures;
+
+        private Entry(RouteGraph routeGraph, List<YearMonth> months, Map<ScheduleKey, Schedule> schedules,
+                      List<FlightDetails> itineraries) {
+            this.routeGraph = routeGraph;
+            this.months = Set.copyOf(months);
+            this.schedules = schedules;
+            Set<AirportPair> routes = new HashSet<>();
+            for (ScheduleKey scheduleKey : schedules.keySet()) {
+                routes.add(new AirportPair(scheduleKey.getDeparture(), scheduleKey.getArrival()));
+            }
+            this.routes = Set.copyOf(routes);
+            this.itineraries = itineraries.toArray(FlightDetails[]::new);
+            this.departures = new long[this.itineraries.length];
+            this.arrivals = new long[this.itineraries.length];
+            this.lastLegDepartures = new long[this.itineraries.length];
+            for (int i = 0; i < this.itineraries.length; i++) {
+                List<Leg> legs = this.itineraries[i].getLegs();
+                departures[i] = this.itineraries[i].getDepartureEpochMinute();
+                arrivals[i] = this.itineraries[i].getArrivalEpochMinute();
+                lastLegDepartures[i] = legs.get(legs.size() - 1).getDepartureEpochMinute();
+            }
+        }
+
+        private int size() {
+            return itineraries.length;
+        }
+
+        /**
+         * Whether this entry covers {@code requiredMonths} and was built from the current route
+         * graph and the currently cached schedules of those months.
+         */
+        private boolean isCurrentFor(Set<YearMonth> requiredMonths, RouteGraph currentRouteGraph,
+                                     ScheduleService scheduleService) {
+            if (routeGraph != currentRouteGraph || !months.containsAll(requiredMonths)) {
+                return false;
+            }
+            for (Map.Entry<ScheduleKey, Schedule> schedule : schedules.entrySet()) {
+                ScheduleKey scheduleKey = schedule.getKey();
+                if (requiredMonths.contains(YearMonth.of(scheduleKey.getYear(), scheduleKey.getMonth()))
+                        && scheduleService.peekCachedSchedule(scheduleKey) != schedule.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int firstDepartingAtOrAfter(long minute) {
+            int index = Arrays.binarySearch(departures, minute);
+            if (index < 0) {
+                return -index - 1;
+            }
+            while (index > 0 && departures[index - 1] == minute) {
+                index--;
+            }
+            return index;
+        }
+    }
+}
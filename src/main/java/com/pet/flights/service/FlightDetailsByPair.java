@@ -0,0 +1,32 @@
+package com.pet.flights.service;
+
+import com.pet.flights.graph.AirportPair;
+import com.pet.flights.model.FlightDetails;
+
+import java.util.List;
+import java.util.Map;
+
+public final class FlightDetailsByPair {
+    private final Map<AirportPair, List<FlightDetails>> flightDetails;
+    private final SearchPhases phases;
+
+    public FlightDetailsByPair(Map<AirportPair, List<FlightDetails>> flightDetails, SearchPhases phases) {
+        this.flightDetails = flightDetails;
+        this.phases = phases;
+    }
+
+    /**
+     * The itineraries of every pair that has any, ordered by departure and then arrival airport.
+     */
+    public Map<AirportPair, List<FlightDetails>> getFlightDetails() {
+        return flightDetails;
+    }
+
+    public SearchPhases getPhases() {
+        return phases;
+    }
+
+    public boolean isPartial() {
+        return phases != null && phases.getSkippedRoutes() > 0;
+    }
+}
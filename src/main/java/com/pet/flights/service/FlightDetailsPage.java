@@ -0,0 +1,56 @@
+package com.pet.flights.service;
+
+import com.pet.flights.graph.AirportPair;
+import com.pet.flights.model.FlightDetails;
+
+import java.util.List;
+import java.util.Set;
+
+public final class FlightDetailsPage {
+    private final List<FlightDetails> flightDetails;
+    private final String nextCursor;
+    private final SearchPhases phases;
+
+    public FlightDetailsPage(List<FlightDetails> flightDetails, String nextCursor) {
+        this(flightDetails, nextCursor, null);
+    }
+
+    public FlightDetailsPage(List<FlightDetails> flightDetails, String nextCursor, SearchPhases phases) {
+        this.flightDetails = flightDetails;
+        this.nextCursor = nextCursor;
+        this.phases = phases;
+    }
+
+    public List<FlightDetails> getFlightDetails() {
+        return flightDetails;
+    }
+
+    /**
+     * {@code null} when this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * {@code null} when the search was not recorded.
+     */
+    public SearchPhases getPhases() {
+        return phases;
+    }
+
+    /**
+     * The routes whose schedules the page was read from, or {@code null} when the search was not
+     * recorded.
+     */
+    public Set<AirportPair> getRoutes() {
+        return phases == null ? null : phases.getRoutes();
+    }
+
+    /**
+     * Whether some routes were left out, so the page may be missing itineraries.
+     */
+    public boolean isPartial() {
+        return phases != null && phases.isPartial();
+    }
+}
@@ -1,20 +1,44 @@
 package com.pet.flights.service;
 
+import com.pet.flights.Exception.SearchParameterException;
+import com.pet.flights.Exception.SearchTimeoutException;
 import com.pet.flights.Exception.TravelDateException;
-import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.graph.AirportPair;
+import com.pet.flights.graph.RouteGraph;
 import com.pet.flights.model.FlightDetails;
 import com.pet.flights.model.Leg;
-import com.pet.flights.model.Route;
+import com.pet.flights.model.LegRange;
+import com.pet.flights.model.Schedule;
+import com.pet.flights.search.CandidateLegs;
+import com.pet.flights.search.ItineraryCursor;
+import com.pet.flights.search.ItineraryQuery;
+import com.pet.flights.search.ItinerarySearchEngine;
+import com.pet.flights.search.ItinerarySink;
+import com.pet.flights.search.ItinerarySort;
+import com.pet.flights.search.TopItineraries;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class FlightDetailsService {
@@ -23,16 +47,82 @@ public class FlightDetailsService {
             DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm", Locale.ENGLISH);
     private final RouteService routeService;
     private final ScheduleService scheduleService;
+    private final ExecutorService legFetchExecutor;
+    private final ExecutorService batchSearchExecutor;
+    private final ItinerarySearchEngine itinerarySearchEngine;
+    private final ConnectionTable connectionTable;
+    private final Duration searchDeadline;
+    private final int maxStopsLimit;
+    private final int anywhereMaxStopsLimit;
+    private final boolean partialResults;
+    private final Timer[] phaseTimers = new Timer[SearchPhase.values().length];
+    private final DistributionSummary scheduleFetches;
+    private final DistributionSummary candidateLegs;
+    private final DistributionSummary itineraries;
 
     @Autowired
-    public FlightDetailsService(RouteService routeService, ScheduleService scheduleService) {
+    public FlightDetailsService(RouteService routeService, ScheduleService scheduleService,
+                                @Qualifier("legFetchExecutor") ExecutorService legFetchExecutor,
+                                @Qualifier("batchSearchExecutor") ExecutorService batchSearchExecutor,
+                                ItinerarySearchEngine itinerarySearchEngine, ConnectionTable connectionTable,
+                                @Value("${flights.search.deadline:PT10S}") Duration searchDeadline,
+                                @Value("${flights.search.max-stops:3}") int maxStopsLimit,
+                                @Value("${flights.search.anywhere-max-stops:1}") int anywhereMaxStopsLimit,
+                                @Value("${flights.search.partial-results:true}") boolean partialResults,
+                                MeterRegistry meterRegistry) {
         this.routeService = routeService;
         this.scheduleService = scheduleService;
+        this.legFetchExecutor = legFetchExecutor;
+        this.batchSearchExecutor = batchSearchExecutor;
+        this.itinerarySearchEngine = itinerarySearchEngine;
+        this.connectionTable = connectionTable;
+        this.searchDeadline = searchDeadline;
+        this.maxStopsLimit = maxStopsLimit;
+        this.anywhereMaxStopsLimit = anywhereMaxStopsLimit;
+        this.partialResults = partialResults;
+        for (SearchPhase phase : SearchPhase.values()) {
+            phaseTimers[phase.ordinal()] = Timer.builder("flights.search.phase")
+                    .tag("phase", phase.getTag())
+                    .description("Time a search spends in each phase")
+                    .register(meterRegistry);
+        }
+        this.scheduleFetches = DistributionSummary.builder("flights.search.schedule.fetches")
+                .description("Schedule months a search had to fetch because they were not cached")
+                .register(meterRegistry);
+        this.candidateLegs = DistributionSummary.builder("flights.search.candidate.legs")
+                .description("Legs a search considered")
+                .register(meterRegistry);
+        this.itineraries = DistributionSummary.builder("flights.search.itineraries")
+                .description("Itineraries a search produced")
+                .register(meterRegistry);
     }
 
     public List<FlightDetails> getFlightDetails(String departure, String arrival,
                                                 String departureDateAndTime, String arrivalDateAndTime)
             throws TravelDateException {
+        return getFlightDetails(departure, arrival, departureDateAndTime, arrivalDateAndTime, 1);
+    }
+
+    public List<FlightDetails> getFlightDetails(String departure, String arrival,
+                                                String departureDateAndTime, String arrivalDateAndTime,
+                                                int maxStops)
+            throws TravelDateException {
+        List<FlightDetails> flightDetails = new ArrayList<>();
+        getFlightDetails(prepareSearch(departure, arrival, departureDateAndTime, arrivalDateAndTime, maxStops),
+                flightDetails::add);
+        return flightDetails;
+    }
+
+    public FlightSearch prepareSearch(String departure, String arrival,
+                                      String departureDateAndTime, String arrivalDateAndTime, int maxStops)
+            throws TravelDateException {
+        return prepareSearch(departure, arrival, departureDateAndTime, arrivalDateAndTime, maxStops, null, null, null);
+    }
+
+    public FlightSearch prepareSearch(String departure, String arrival,
+                                      String departureDateAndTime, String arrivalDateAndTime, int maxStops,
+                                      String sort, Integer limit, String cursor)
+            throws TravelDateException {
 
         LocalDateTime departureDateTime = LocalDateTime.parse(departureDateAndTime, dateTimeFormatter);
         LocalDateTime arrivalDateTime = LocalDateTime.parse(arrivalDateAndTime, dateTimeFormatter);
@@ -41,129 +131,330 @@ public class FlightDetailsService {
             throw new TravelDateException("Departure date is after arrival dates");
         }
 
-        List<Route> allRoutes = routeService.getAllRoutes();
-
-        List<FlightDetails> flightDetails =
-                getDetailsOfDirectFlights(departure, arrival, departureDateTime, arrivalDateTime, allRoutes);
-
-        List<FlightDetails> interConnectionFlightDetails =
-                getDetailsOfInterConnectedFlights(departure, arrival, departureDateTime, arrivalDateTime, allRoutes);
-
-        return Stream.of(flightDetails, interConnectionFlightDetails)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList());
-    }
-
-    private List<FlightDetails> getDetailsOfInterConnectedFlights(String departure, String arrival, LocalDateTime departureDateTime, LocalDateTime arrivalDateTime, List<Route> allRoutes) {
-        List<Route> allRoutesFromDeparture = getAllRoutes(allRoutes,
-                route -> isHavingRoutes(route.getAirportFrom(), departure));
-        List<Route> allRoutesToArrival = getAllRoutes(allRoutes,
-                route -> isHavingRoutes(route.getAirportTo(), arrival));
-
-        List<String> departureLocationsOfAllRoutesToArrival =
-                getFlightDetails(allRoutesToArrival, Route::getAirportFrom);
-
-        List<Route> routesOfFirstLeg = allRoutesFromDeparture.stream()
-                .filter(route -> departureLocationsOfAllRoutesToArrival.contains(route.getAirportTo()))
-                .toList();
-
-        List<Leg> possibleFirstLegs = routesOfFirstLeg.stream()
-                .map(route -> getDirectLegsBetweenAirports(route, departureDateTime, arrivalDateTime))
-                .flatMap(List::stream).toList();
+        if (maxStops < 0 || maxStops > maxStopsLimit) {
+            throw new SearchParameterException("Number of stops must be between 0 and " + maxStopsLimit);
+        }
 
-        List<String> arrivalAirportsOfFirstLeg = getFlightDetails(routesOfFirstLeg, Route::getAirportTo);
+        if (limit != null && limit < 1) {
+            throw new SearchParameterException("Limit must be at least 1");
+        }
 
-        List<Route> routesOfSecondLeg = allRoutesToArrival.stream()
-                .filter(route -> arrivalAirportsOfFirstLeg.contains(route.getAirportFrom()))
-                .toList();
+        ItinerarySort itinerarySort = null;
+        if (sort != null) {
+            try {
+                itinerarySort = ItinerarySort.valueOf(sort.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new SearchParameterException("Sort must be one of " + Arrays.toString(ItinerarySort.values()));
+            }
+        }
 
-        List<Leg> possibleSecondLegs = routesOfSecondLeg.stream()
-                .map(route -> getDirectLegsBetweenAirports(route, departureDateTime, arrivalDateTime))
-                .flatMap(List::stream).toList();
+        ItineraryCursor itineraryCursor = null;
+        if (cursor != null) {
+            try {
+                itineraryCursor = ItineraryCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new SearchParameterException(e.getMessage());
+            }
+            if (itinerarySort != null && itinerarySort != itineraryCursor.getSort()) {
+                throw new SearchParameterException("Cursor was issued for sort " + itineraryCursor.getSort());
+            }
+            itinerarySort = itineraryCursor.getSort();
+        }
 
-        List<FlightDetails> interConnectionFlightDetails = new ArrayList<>(Collections.emptyList());
+        if (itinerarySort == null && limit != null) {
+            itinerarySort = ItinerarySort.DEPARTURE;
+        }
 
-        possibleFirstLegs.forEach(firstLeg ->
-                createFlightDetailsWithProperSecondLegs
-                        (possibleSecondLegs, interConnectionFlightDetails, firstLeg));
+        return new FlightSearch(departure, arrival, departureDateTime, arrivalDateTime, maxStops,
+                itinerarySort, limit == null ? Integer.MAX_VALUE : limit, itineraryCursor);
+    }
 
-        return interConnectionFlightDetails;
+    /**
+     * Returns the search's page in its sort order. Sorted searches keep only the page in a
+     * bounded heap, which also stops the engine from extending itineraries that cannot make it.
+     */
+    public FlightDetailsPage getFlightDetailsPage(FlightSearch search) {
+        return getFlightDetailsPage(search, null);
     }
 
-    private void createFlightDetailsWithProperSecondLegs(List<Leg> possibleSecondLegs, List<FlightDetails> interConnectionFlightDetails, Leg firstLeg) {
-        LocalDateTime arrivalDateTimeOfFirstLeg =
-                LocalDateTime.parse(firstLeg.getArrivalDateTime(), dateTimeFormatter);
-        LocalDateTime maximumLayoverDateTime = arrivalDateTimeOfFirstLeg.plusHours(2);
-        String connectingAirport = firstLeg.getArrivalAirport();
-        possibleSecondLegs.stream()
-                .filter(secondLeg -> secondLeg.getDepartureAirport().equals(connectingAirport))
-                .forEach(secondLeg ->
-                        createFlightDetailsIfFirstLegsArrivalTimeIsBeforeSecondLegsDepartureTimeAndWithinMaximumLayoverTime
-                                (interConnectionFlightDetails, firstLeg, arrivalDateTimeOfFirstLeg, maximumLayoverDateTime, secondLeg));
+    /**
+     * Runs {@code searches} in parallel on the batch search executor over one shared fetch
+     * plan: a (route, month) schedule several searches need is fetched once for all of them.
+     * Each search's page goes to {@code results} on the calling thread as soon as the search
+     * completes. Fetches still outstanding once every search has completed are cancelled.
+     */
+    public void getFlightDetailsPages(List<FlightSearch> searches, BatchSearchSink results) {
+        ConcurrentMap<ScheduleKey, Future<Schedule>> sharedFetches = new ConcurrentHashMap<>();
+        CompletionService<FlightDetailsPage> completion = new ExecutorCompletionService<>(batchSearchExecutor);
+        Map<Future<FlightDetailsPage>, Integer> indexes = new HashMap<>(searches.size() * 2);
+        try {
+            for (int i = 0; i < searches.size(); i++) {
+                FlightSearch search = searches.get(i);
+                indexes.put(completion.submit(() -> getFlightDetailsPage(search, sharedFetches)), i);
+            }
+            for (int completed = 0; completed < searches.size(); completed++) {
+                Future<FlightDetailsPage> page = completion.take();
+                int index = indexes.get(page);
+                try {
+                    results.accept(index, page.get());
+                } catch (ExecutionException e) {
+                    results.fail(index, e.getCause() instanceof RuntimeException cause
+                            ? cause : new IllegalStateException(e.getCause()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchTimeoutException("Batch search was interrupted");
+        } finally {
+            indexes.keySet().forEach(page -> page.cancel(true));
+            sharedFetches.values().forEach(fetch -> fetch.cancel(true));
+        }
     }
 
-    private void createFlightDetailsIfFirstLegsArrivalTimeIsBeforeSecondLegsDepartureTimeAndWithinMaximumLayoverTime(List<FlightDetails> interConnectionFlightDetails, Leg firstLeg, LocalDateTime arrivalDateTimeOfFirstLeg, LocalDateTime maximumLayoverDateTime, Leg secondLeg) {
-        LocalDateTime departureDateTimeOfSecondLeg =
-                LocalDateTime.parse(secondLeg.getDepartureDateTime(), dateTimeFormatter);
-        if (arrivalDateTimeOfFirstLeg.isBefore(departureDateTimeOfSecondLeg)
-                && departureDateTimeOfSecondLeg.isBefore(maximumLayoverDateTime)) {
-            interConnectionFlightDetails.add(new FlightDetails(List.of(firstLeg, secondLeg)));
+    private FlightDetailsPage getFlightDetailsPage(FlightSearch search,
+                                                   ConcurrentMap<ScheduleKey, Future<Schedule>> sharedFetches) {
+        SearchPhases phases = new SearchPhases();
+        if (search.getSort() == null) {
+            List<FlightDetails> flightDetails = new ArrayList<>();
+            getFlightDetails(search, flightDetails::add, phases, sharedFetches);
+            return new FlightDetailsPage(flightDetails, null, phases);
+        }
+        // One itinerary beyond the page tells whether there is a next page at all.
+        int limit = search.getLimit();
+        TopItineraries topItineraries = new TopItineraries(search.getSort(),
+                limit == Integer.MAX_VALUE ? limit : limit + 1, search.getCursor());
+        getFlightDetails(search, topItineraries, phases, sharedFetches);
+        List<FlightDetails> flightDetails = topItineraries.getItineraries();
+        String nextCursor = null;
+        if (flightDetails.size() > limit) {
+            flightDetails = flightDetails.subList(0, limit);
+            nextCursor = ItineraryCursor.after(search.getSort(), flightDetails.get(limit - 1)).encode();
         }
+        return new FlightDetailsPage(flightDetails, nextCursor, phases);
     }
 
-    private List<FlightDetails> getDetailsOfDirectFlights(String departure, String arrival, LocalDateTime departureDateTime, LocalDateTime arrivalDateTime, List<Route> allRoutes) {
-        Optional<Route> directRoutes = allRoutes.stream()
-                .filter(route ->
-                        route.getAirportFrom().equals(departure)
-                                && route.getAirportTo().equals(arrival))
-                .findFirst();
+    public void getFlightDetails(FlightSearch search, ItinerarySink flightDetails) {
+        getFlightDetails(search, flightDetails, new SearchPhases());
+    }
 
-        List<FlightDetails> flightDetails = new ArrayList<>(Collections.emptyList());
-        directRoutes.ifPresent(route ->
-                flightDetails.addAll(getDirectFlights(departure, arrival, departureDateTime, arrivalDateTime, route)));
-        return flightDetails;
+    /**
+     * Emits direct flights as soon as their schedules are in, then the itineraries with stops
+     * once every other leg has been fetched. Pairs the route graph cannot connect within the
+     * search's stops are answered empty before anything is fetched. One-stop searches of hot pairs take their
+     * connections from the {@link ConnectionTable} and only fetch the direct route.
+     * <p>
+     * Where the time went is recorded into {@code phases} and the search metrics.
+     */
+    public void getFlightDetails(FlightSearch search, ItinerarySink flightDetails, SearchPhases phases) {
+        getFlightDetails(search, flightDetails, phases, null);
+    }
+
+    private void getFlightDetails(FlightSearch search, ItinerarySink flightDetails, SearchPhases phases,
+                                  ConcurrentMap<ScheduleKey, Future<Schedule>> sharedFetches) {
+        try {
+            search(search, new ItinerarySink() {
+                @Override
+                public void accept(FlightDetails itinerary) {
+                    phases.addItinerary();
+                    flightDetails.accept(itinerary);
+                }
+
+                @Override
+                public boolean mayAccept(long departureEpochMinute, long arrivalEpochMinute) {
+                    return flightDetails.mayAccept(departureEpochMinute, arrivalEpochMinute);
+                }
+            }, phases, sharedFetches);
+        } finally {
+            record(phases);
+        }
     }
 
-    private List<FlightDetails> getDirectFlights(String departure, String arrival, LocalDateTime departureDateTime, LocalDateTime arrivalDateTime, Route route1) {
-        List<FlightSchedule> allSchedules = scheduleService.getAllSchedules(route1.getAirportFrom(),
-                route1.getAirportTo(), departureDateTime, arrivalDateTime);
+    /**
+     * Itineraries from any of {@code departures} to any of {@code arrivals}, or to anywhere
+     * when there are no arrivals, grouped by airport pair. All pairs share one expansion of
+     * the route network, one fetch plan and one connection scan.
+     */
+    public FlightDetailsByPair getFlightDetailsByPair(Collection<String> departures, Collection<String> arrivals,
+                                                      String departureDateAndTime, String arrivalDateAndTime,
+                                                      int maxStops)
+            throws TravelDateException {
+        LocalDateTime departureDateTime = LocalDateTime.parse(departureDateAndTime, dateTimeFormatter);
+        LocalDateTime arrivalDateTime = LocalDateTime.parse(arrivalDateAndTime, dateTimeFormatter);
 
-        List<Leg> directLegs = allSchedules.stream()
-                .map(flightSchedule -> createLeg(flightSchedule, departure, arrival)).toList();
+        if (departureDateTime.isAfter(arrivalDateTime)) {
+            throw new TravelDateException("Departure date is after arrival dates");
+        }
 
-        return directLegs.stream()
-                .map(leg -> new FlightDetails(List.of(leg))).collect(Collectors.toList());
-    }
+        if (departures.isEmpty()) {
+            throw new SearchParameterException("At least one departure airport is required");
+        }
 
-    private List<Leg> getDirectLegsBetweenAirports(Route route, LocalDateTime departureDateTime, LocalDateTime arrivalDateTime) {
-        String airportFrom = route.getAirportFrom();
-        String airportTo = route.getAirportTo();
+        int stopsLimit = arrivals.isEmpty() ? anywhereMaxStopsLimit : maxStopsLimit;
+        if (maxStops < 0 || maxStops > stopsLimit) {
+            throw new SearchParameterException("Number of stops must be between 0 and " + stopsLimit);
+        }
 
-        List<FlightSchedule> allSchedules = scheduleService
-                .getAllSchedules(airportFrom, airportTo, departureDateTime, arrivalDateTime);
+        SearchPhases phases = new SearchPhases();
+        Map<AirportPair, List<FlightDetails>> flightDetails = new HashMap<>();
+        try {
+            RouteGraph routeGraph = routeService.getRouteGraph();
+            phases.lap(SearchPhase.ROUTES);
+
+            List<AirportPair> routes = routeGraph.getRoutesOnPaths(departures, arrivals, maxStops + 1);
+            ScheduleBatch scheduleBatch = ScheduleBatch.submit(scheduleService, routes,
+                    departureDateTime, arrivalDateTime, legFetchExecutor);
+            phases.addScheduleFetches(scheduleBatch.getFetchCount());
+            phases.lap(SearchPhase.CANDIDATES);
+
+            CandidateLegs legs = new LegFetches(scheduleBatch, phases).await(routes);
+            phases.addCandidateLegs(legs.size());
+            phases.lap(SearchPhase.FETCH);
+
+            itinerarySearchEngine.search(legs,
+                    new ItineraryQuery(Set.copyOf(departures), Set.copyOf(arrivals), 0, maxStops), itinerary -> {
+                        List<Leg> itineraryLegs = itinerary.getLegs();
+                        AirportPair pair = new AirportPair(itineraryLegs.get(0).getDepartureAirport(),
+                                itineraryLegs.get(itineraryLegs.size() - 1).getArrivalAirport());
+                        flightDetails.computeIfAbsent(pair, route -> new ArrayList<>()).add(itinerary);
+                        phases.addItinerary();
+                    });
+            phases.lap(SearchPhase.JOIN);
+        } finally {
+            record(phases);
+        }
 
-        return allSchedules.stream()
-                .map(flightSchedule -> createLeg(flightSchedule, airportFrom, airportTo)).toList();
+        Map<AirportPair, List<FlightDetails>> byPair = new LinkedHashMap<>();
+        flightDetails.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(AirportPair::getDeparture)
+                        .thenComparing(AirportPair::getArrival)))
+                .forEach(pair -> byPair.put(pair.getKey(), pair.getValue()));
+        return new FlightDetailsByPair(byPair, phases);
     }
 
-    private Leg createLeg(FlightSchedule flightSchedule, String departureAirport, String arrivalAirport) {
-        return new Leg(departureAirport, arrivalAirport, flightSchedule.getDepartureTime(), flightSchedule.getArrivalTime());
+    private void record(SearchPhases phases) {
+        phases.finish();
+        for (SearchPhase phase : SearchPhase.values()) {
+            if (phases.getNanos(phase) >= 0) {
+                phaseTimers[phase.ordinal()].record(phases.getNanos(phase), TimeUnit.NANOSECONDS);
+            }
+        }
+        scheduleFetches.record(phases.getScheduleFetches());
+        candidateLegs.record(phases.getCandidateLegs());
+        itineraries.record(phases.getItineraries());
     }
 
-    private List<String> getFlightDetails(List<Route> routes, Function<Route, String> mappingFunction) {
-        return routes.stream()
-                .map(mappingFunction)
-                .collect(Collectors.toList());
-    }
+    private void search(FlightSearch search, ItinerarySink flightDetails, SearchPhases phases,
+                        ConcurrentMap<ScheduleKey, Future<Schedule>> sharedFetches) {
+        String departure = search.getDeparture();
+        String arrival = search.getArrival();
+        RouteGraph routeGraph = routeService.getRouteGraph();
+        phases.lap(SearchPhase.ROUTES);
+        if (!routeGraph.isReachable(departure, arrival, search.getMaxStops() + 1)) {
+            phases.setRoutes(Set.of());
+            return;
+        }
+        connectionTable.recordSearch(departure, arrival);
+
+        List<FlightDetails> tabledConnections = new ArrayList<>();
+        Set<AirportPair> tabledRoutes = search.getMaxStops() == 1
+                ? connectionTable.emitOneStopItineraries(search, tabledConnections::add)
+                : Set.of();
+        boolean tabled = !tabledRoutes.isEmpty();
+        AirportPair directRoute = new AirportPair(departure, arrival);
+        List<AirportPair> routes;
+        if (tabled) {
+            routes = routeGraph.hasRoute(departure, arrival) ? List.of(directRoute) : List.of();
+            Set<AirportPair> readRoutes = new HashSet<>(tabledRoutes);
+            readRoutes.addAll(routes);
+            phases.setRoutes(readRoutes);
+        } else {
+            routes = routeGraph.getRoutesOnPaths(departure, arrival, search.getMaxStops() + 1);
+            phases.setRoutes(Set.copyOf(routes));
+        }
+        ScheduleBatch scheduleBatch = ScheduleBatch.submit(scheduleService, routes,
+                search.getDepartureDateTime(), search.getArrivalDateTime(), legFetchExecutor, sharedFetches);
+        LegFetches legFetches = new LegFetches(scheduleBatch, phases);
+        phases.addScheduleFetches(scheduleBatch.getFetchCount());
 
-    private static boolean isHavingRoutes(String route, String departure) {
-        return route.equals(departure);
+        List<AirportPair> connectingRoutes = routes.stream()
+                .filter(route -> !route.equals(directRoute))
+                .toList();
+        phases.lap(SearchPhase.CANDIDATES);
+
+        if (connectingRoutes.size() < routes.size()) {
+            CandidateLegs directLegs = legFetches.await(List.of(directRoute));
+            phases.addCandidateLegs(directLegs.size());
+            for (LegRange legs : directLegs.getRanges()) {
+                for (int i = 0; i < legs.size(); i++) {
+                    if (flightDetails.mayAccept(legs.getDepartureEpochMinute(i), legs.getArrivalEpochMinute(i))) {
+                        flightDetails.accept(new FlightDetails(List.of(legs.get(i))));
+                    }
+                }
+            }
+            phases.lap(SearchPhase.DIRECT);
+        }
+        if (tabled) {
+            for (FlightDetails connection : tabledConnections) {
+                if (flightDetails.mayAccept(connection.getDepartureEpochMinute(), connection.getArrivalEpochMinute())) {
+                    flightDetails.accept(connection);
+                }
+            }
+            phases.lap(SearchPhase.JOIN);
+        }
+        if (!connectingRoutes.isEmpty()) {
+            CandidateLegs connectingLegs = legFetches.await(connectingRoutes);
+            phases.addCandidateLegs(connectingLegs.size());
+            phases.lap(SearchPhase.FETCH);
+            itinerarySearchEngine.search(connectingLegs,
+                    new ItineraryQuery(departure, arrival, 1, search.getMaxStops()), flightDetails);
+            phases.lap(SearchPhase.JOIN);
+        }
     }
 
-    private List<Route> getAllRoutes(List<Route> allRoutes, Predicate<Route> routeSelector) {
-        return allRoutes.stream()
-                .filter(routeSelector)
-                .collect(Collectors.toList());
+    /**
+     * Waits for the batch's routes until the search deadline. With partial results enabled, a
+     * route that failed or is still outstanding at the deadline is left out and the search is
+     * flagged as partial; otherwise the whole search fails. Either way, reaching the deadline
+     * cancels every outstanding fetch.
+     */
+    private final class LegFetches {
+        private final ScheduleBatch schedules;
+        private final SearchPhases phases;
+        private final long deadline = System.nanoTime() + searchDeadline.toNanos();
+
+        private LegFetches(ScheduleBatch schedules, SearchPhases phases) {
+            this.schedules = schedules;
+            this.phases = phases;
+        }
+
+        private CandidateLegs await(List<AirportPair> routes) {
+            CandidateLegs legs = new CandidateLegs();
+            for (AirportPair route : routes) {
+                try {
+                    schedules.getLegs(route, deadline).forEach(legs::add);
+                } catch (TimeoutException | CancellationException e) {
+                    schedules.cancel();
+                    if (!partialResults) {
+                        throw new SearchTimeoutException("Search did not complete within " + searchDeadline);
+                    }
+                    phases.addSkippedRoute();
+                } catch (InterruptedException e) {
+                    schedules.cancel();
+                    Thread.currentThread().interrupt();
+                    throw new SearchTimeoutException("Search was interrupted");
+                } catch (ExecutionException e) {
+                    if (!partialResults) {
+                        schedules.cancel();
+                        if (e.getCause() instanceof RuntimeException cause) {
+                            throw cause;
+                        }
+                        throw new IllegalStateException(e.getCause());
+                    }
+                    phases.addSkippedRoute();
+                }
+            }
+            return legs;
+        }
     }
 
 }
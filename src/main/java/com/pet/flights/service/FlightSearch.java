@@ -0,0 +1,69 @@
+package com.pet.flights.service;
+
+import com.pet.flights.search.ItineraryCursor;
+import com.pet.flights.search.ItinerarySort;
+
+import java.time.LocalDateTime;
+
+/**
+ * A validated search, created by {@link FlightDetailsService#prepareSearch} before any
+ * upstream call is made.
+ */
+public final class FlightSearch {
+    private final String departure;
+    private final String arrival;
+    private final LocalDateTime departureDateTime;
+    private final LocalDateTime arrivalDateTime;
+    private final int maxStops;
+    private final ItinerarySort sort;
+    private final int limit;
+    private final ItineraryCursor cursor;
+
+    FlightSearch(String departure, String arrival,
+                 LocalDateTime departureDateTime, LocalDateTime arrivalDateTime, int maxStops,
+                 ItinerarySort sort, int limit, ItineraryCursor cursor) {
+        this.departure = departure;
+        this.arrival = arrival;
+        this.departureDateTime = departureDateTime;
+        this.arrivalDateTime = arrivalDateTime;
+        this.maxStops = maxStops;
+        this.sort = sort;
+        this.limit = limit;
+        this.cursor = cursor;
+    }
+
+    public String getDeparture() {
+        return departure;
+    }
+
+    public String getArrival() {
+        return arrival;
+    }
+
+    public LocalDateTime getDepartureDateTime() {
+        return departureDateTime;
+    }
+
+    public LocalDateTime getArrivalDateTime() {
+        return arrivalDateTime;
+    }
+
+    public int getMaxStops() {
+        return maxStops;
+    }
+
+    /**
+     * {@code null} keeps the engine's order: direct flights first, then by number of stops.
+     */
+    public ItinerarySort getSort() {
+        return sort;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public ItineraryCursor getCursor() {
+        return cursor;
+    }
+}
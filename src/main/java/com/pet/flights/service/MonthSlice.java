@@ -0,0 +1,98 @@
+package com.pet.flights.service;
+
+import com.pet.flights.model.DaySchedule;
+import com.pet.flights.model.EpochMinutes;
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Schedule;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The days {@code [fromDay, toDay)} of one month of a search window.
+ */
+public final class MonthSlice {
+    private final int year;
+    private final Month month;
+    private final int fromDay;
+    private final int toDay;
+
+    public MonthSlice(int year, Month month, int fromDay, int toDay) {
+        this.year = year;
+        this.month = month;
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+    }
+
+    /**
+     * Splits the days from the departure date up to, but excluding, the arrival date into one
+     * slice per calendar month. Months without any of those days are left out.
+     */
+    public static List<MonthSlice> between(LocalDateTime departureDate, LocalDateTime arrivalDate) {
+        LocalDate firstDay = departureDate.toLocalDate();
+        LocalDate endDay = arrivalDate.toLocalDate();
+        YearMonth firstMonth = YearMonth.from(firstDay);
+        YearMonth lastMonth = YearMonth.from(endDay);
+
+        List<MonthSlice> monthSlices = new ArrayList<>();
+        for (YearMonth yearMonth = firstMonth; !yearMonth.isAfter(lastMonth); yearMonth = yearMonth.plusMonths(1)) {
+            int fromDay = yearMonth.equals(firstMonth) ? firstDay.getDayOfMonth() : 1;
+            int toDay = yearMonth.equals(lastMonth) ? endDay.getDayOfMonth() : yearMonth.lengthOfMonth() + 1;
+            if (fromDay < toDay) {
+                monthSlices.add(new MonthSlice(yearMonth.getYear(), yearMonth.getMonth(), fromDay, toDay));
+            }
+        }
+        return monthSlices;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public Month getMonth() {
+        return month;
+    }
+
+    public YearMonth getYearMonth() {
+        return YearMonth.of(year, month);
+    }
+
+    public int getFromDay() {
+        return fromDay;
+    }
+
+    public int getToDay() {
+        return toDay;
+    }
+
+    public boolean contains(int day) {
+        return day >= fromDay && day < toDay;
+    }
+
+    /**
+     * The flights of {@code schedulesForMonth} on this slice's days, with absolute times.
+     */
+    public List<FlightSchedule> select(Schedule schedulesForMonth) {
+        List<FlightSchedule> flightSchedules = new ArrayList<>();
+        for (DaySchedule daySchedule : schedulesForMonth.getDays()) {
+            if (contains(daySchedule.getDay())) {
+                long startOfDay = EpochMinutes.of(LocalDate.of(year, month, daySchedule.getDay()), 0);
+                for (FlightSchedule flight : daySchedule.getFlights()) {
+                    flightSchedules.add(new FlightSchedule(flight.getNumber(),
+                            startOfDay + EpochMinutes.parseMinuteOfDay(flight.getDepartureTime()),
+                            startOfDay + EpochMinutes.parseMinuteOfDay(flight.getArrivalTime())));
+                }
+            }
+        }
+        return flightSchedules;
+    }
+
+    @Override
+    public String toString() {
+        return year + "-" + month.getValue() + "[" + fromDay + "," + toDay + ")";
+    }
+}
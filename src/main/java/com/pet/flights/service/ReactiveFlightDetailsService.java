@@ -0,0 +1,88 @@
+package com.pet.flights.service;
+
+import com.pet.flights.Exception.TravelDateException;
+import com.pet.flights.graph.RouteGraph;
+import com.pet.flights.model.FlightDetails;
+import com.pet.flights.model.Leg;
+import com.pet.flights.search.ConnectionJoiner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+public class ReactiveFlightDetailsService {
+
+    private static final DateTimeFormatter dateTimeFormatter =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm", Locale.ENGLISH);
+    private final ReactiveRouteService routeService;
+    private final ReactiveScheduleService scheduleService;
+    private final int fetchConcurrency;
+    private final Duration minimumLayover;
+    private final Duration maximumLayover;
+
+    @Autowired
+    public ReactiveFlightDetailsService(ReactiveRouteService routeService, ReactiveScheduleService scheduleService,
+                                        @Value("${schedules.api.max-concurrent-requests:64}") int fetchConcurrency,
+                                        @Value("${flights.search.min-layover:PT0M}") Duration minimumLayover,
+                                        @Value("${flights.search.max-layover:PT2H}") Duration maximumLayover) {
+        this.routeService = routeService;
+        this.scheduleService = scheduleService;
+        this.fetchConcurrency = fetchConcurrency;
+        this.minimumLayover = minimumLayover;
+        this.maximumLayover = maximumLayover;
+    }
+
+    public Flux<FlightDetails> getFlightDetails(String departure, String arrival,
+                                                String departureDateAndTime, String arrivalDateAndTime)
+            throws TravelDateException {
+
+        LocalDateTime departureDateTime = LocalDateTime.parse(departureDateAndTime, dateTimeFormatter);
+        LocalDateTime arrivalDateTime = LocalDateTime.parse(arrivalDateAndTime, dateTimeFormatter);
+
+        if (departureDateTime.isAfter(arrivalDateTime)) {
+            throw new TravelDateException("Departure date is after arrival dates");
+        }
+
+        return routeService.getRouteGraph().flatMapMany(routeGraph -> Flux.concat(
+                getDetailsOfDirectFlights(departure, arrival, departureDateTime, arrivalDateTime, routeGraph),
+                getDetailsOfInterConnectedFlights(departure, arrival, departureDateTime, arrivalDateTime, routeGraph)));
+    }
+
+    private Flux<FlightDetails> getDetailsOfDirectFlights(String departure, String arrival, LocalDateTime departureDateTime, LocalDateTime arrivalDateTime, RouteGraph routeGraph) {
+        if (!routeGraph.hasRoute(departure, arrival)) {
+            return Flux.empty();
+        }
+        return getDirectLegsBetweenAirports(departure, arrival, departureDateTime, arrivalDateTime)
+                .map(leg -> new FlightDetails(List.of(leg)));
+    }
+
+    private Flux<FlightDetails> getDetailsOfInterConnectedFlights(String departure, String arrival, LocalDateTime departureDateTime, LocalDateTime arrivalDateTime, RouteGraph routeGraph) {
+        List<String> connectingAirports = routeGraph.getConnectingAirports(departure, arrival);
+
+        Mono<List<Leg>> possibleFirstLegs = Flux.fromIterable(connectingAirports)
+                .flatMap(connectingAirport ->
+                        getDirectLegsBetweenAirports(departure, connectingAirport, departureDateTime, arrivalDateTime), fetchConcurrency)
+                .collectList();
+        Mono<List<Leg>> possibleSecondLegs = Flux.fromIterable(connectingAirports)
+                .flatMap(connectingAirport ->
+                        getDirectLegsBetweenAirports(connectingAirport, arrival, departureDateTime, arrivalDateTime), fetchConcurrency)
+                .collectList();
+
+        return Mono.zip(possibleFirstLegs, possibleSecondLegs)
+                .flatMapIterable(legs -> ConnectionJoiner.of(legs.getT2(), minimumLayover, maximumLayover).join(legs.getT1()));
+    }
+
+    private Flux<Leg> getDirectLegsBetweenAirports(String airportFrom, String airportTo, LocalDateTime departureDateTime, LocalDateTime arrivalDateTime) {
+        return scheduleService.getAllSchedules(airportFrom, airportTo, departureDateTime, arrivalDateTime)
+                .map(flightSchedule -> new Leg(airportFrom, airportTo,
+                        flightSchedule.getDepartureEpochMinute(), flightSchedule.getArrivalEpochMinute()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.pet.flights.service;
+
+import com.pet.flights.graph.RouteGraph;
+import com.pet.flights.model.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+public class ReactiveRouteService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveRouteService.class);
+    private static final String RYANAIR = "RYANAIR";
+    private final Mono<RouteGraph> routeGraph;
+    private final AtomicReference<RouteGraph> lastLoadedGraph = new AtomicReference<>();
+
+    @Autowired
+    public ReactiveRouteService(WebClient webClient, @Value("${routes.api}") String routesApi,
+                                @Value("${routes.refresh-interval:PT1H}") Duration refreshInterval) {
+        this.routeGraph = webClient.get()
+                .uri(routesApi)
+                .retrieve()
+                .bodyToFlux(Route.class)
+                .filter(route -> null == route.getConnectingAirport())
+                .filter(route -> RYANAIR.equals(route.getOperator()))
+                .collectList()
+                .map(RouteGraph::of)
+                .doOnNext(lastLoadedGraph::set)
+                .cache(loadedGraph -> refreshInterval, failure -> Duration.ZERO, () -> Duration.ZERO)
+                .onErrorResume(error -> {
+                    RouteGraph lastGraph = lastLoadedGraph.get();
+                    if (lastGraph == null) {
+                        return Mono.error(error);
+                    }
+                    log.warn("Reloading routes from {} failed, serving the last loaded routes", routesApi, error);
+                    return Mono.just(lastGraph);
+                });
+    }
+
+    public Mono<RouteGraph> getRouteGraph() {
+        return routeGraph;
+    }
+}
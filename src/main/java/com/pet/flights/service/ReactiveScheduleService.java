@@ -0,0 +1,124 @@
+package com.pet.flights.service;
+
+import com.pet.flights.cache.ScheduleCache;
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Schedule;
+import com.pet.flights.resilience.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reactive view of the schedules. Months that are not cached are fetched with the
+ * {@link WebClient} without holding a thread, behind the same circuit breaker and with the same
+ * {@code upstream.schedules.requests} timer as the blocking {@link ScheduleService}; the
+ * upstream connection pool is the bulkhead. Concurrent searches needing the same month share
+ * one request, and its schedule goes into the {@link ScheduleCache} either way.
+ */
+@Service
+public class ReactiveScheduleService {
+
+    private final WebClient webClient;
+    private final String schedulesApiBaseUrl;
+    private final ScheduleService scheduleService;
+    private final ScheduleCache scheduleCache;
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrentMap<ScheduleKey, Mono<Schedule>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReactiveScheduleService(WebClient webClient, @Value("${schedules.api}") String schedulesApiBaseUrl,
+                                   ScheduleService scheduleService, ScheduleCache scheduleCache,
+                                   @Qualifier("schedulesCircuitBreaker") CircuitBreaker circuitBreaker) {
+        this.webClient = webClient;
+        this.schedulesApiBaseUrl = schedulesApiBaseUrl;
+        this.scheduleService = scheduleService;
+        this.scheduleCache = scheduleCache;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public Flux<FlightSchedule> getAllSchedules(String departure, String arrival,
+                                                LocalDateTime departureDate, LocalDateTime arrivalDate) {
+        return Flux.fromIterable(scheduleService.getMonthSlices(departureDate, arrivalDate))
+                .concatMap(monthSlice -> getSchedules(departure, arrival, monthSlice)
+                        .flatMapIterable(schedule ->
+                                scheduleService.getValidFlightSchedulesForDatesWithinMonth(schedule, monthSlice)));
+    }
+
+    private Mono<Schedule> getSchedules(String departure, String arrival, MonthSlice monthSlice) {
+        ScheduleKey scheduleKey = new ScheduleKey(departure, arrival, monthSlice.getYear(), monthSlice.getMonth().getValue());
+        return Mono.defer(() -> {
+            Schedule cachedSchedule = scheduleService.getCachedSchedule(scheduleKey);
+            if (cachedSchedule != null) {
+                return Mono.just(cachedSchedule);
+            }
+            return inFlight.computeIfAbsent(scheduleKey, this::fetchSchedule);
+        });
+    }
+
+    /**
+     * One shared request for {@code scheduleKey}; it leaves the in-flight map once it ends.
+     */
+    private Mono<Schedule> fetchSchedule(ScheduleKey scheduleKey) {
+        String url = schedulesApiBaseUrl + scheduleKey.getDeparture() + "/" + scheduleKey.getArrival()
+                + "/years/" + scheduleKey.getYear() + "/months/" + scheduleKey.getMonth();
+        return Mono.defer(() -> requestSchedule(scheduleKey, url))
+                .doOnNext(schedule -> scheduleCache.put(scheduleKey, schedule))
+                .doFinally(signal -> inFlight.remove(scheduleKey))
+                .cache();
+    }
+
+    /**
+     * Only server errors and I/O failures count against the circuit breaker.
+     */
+    private Mono<Schedule> requestSchedule(ScheduleKey scheduleKey, String url) {
+        long startedAt = System.nanoTime();
+        if (!circuitBreaker.tryAcquire()) {
+            scheduleService.recordUpstreamRequest("short_circuited", startedAt);
+            return Mono.error(new ResourceAccessException("Schedules API circuit is open, not requesting " + url));
+        }
+        return webClient.get()
+                .uri(url)
+                .retrieve()
+                .bodyToMono(Schedule.class)
+                .defaultIfEmpty(emptySchedule(scheduleKey))
+                .doOnSuccess(schedule -> onResponse("success", startedAt))
+                .onErrorResume(error -> {
+                    if (error instanceof WebClientResponseException.NotFound) {
+                        onResponse("not_found", startedAt);
+                        return Mono.just(emptySchedule(scheduleKey));
+                    }
+                    if (error instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+                        onResponse("client_error", startedAt);
+                    } else {
+                        circuitBreaker.onFailure();
+                        scheduleService.recordUpstreamRequest("error", startedAt);
+                    }
+                    return Mono.error(error);
+                })
+                .doOnCancel(() -> {
+                    circuitBreaker.onIgnored();
+                    scheduleService.recordUpstreamRequest("cancelled", startedAt);
+                });
+    }
+
+    private void onResponse(String outcome, long startedAt) {
+        circuitBreaker.onSuccess();
+        scheduleService.recordUpstreamRequest(outcome, startedAt);
+    }
+
+    private static Schedule emptySchedule(ScheduleKey scheduleKey) {
+        return new Schedule(scheduleKey.getMonth(), List.of());
+    }
+}
@@ -1,35 +1,177 @@
 package com.pet.flights.service;
 
+import com.pet.flights.graph.RouteGraph;
 import com.pet.flights.model.Route;
+import com.pet.flights.resilience.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 @Service
 public class RouteService {
 
+    private static final Logger log = LoggerFactory.getLogger(RouteService.class);
     private static final String RYANAIR = "RYANAIR";
     private final RestTemplate restTemplate;
     private final String routesApi;
+    private final Duration refreshInterval;
+    private final Duration maxStaleness;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final Executor refreshExecutor;
+    private final AtomicReference<RouteSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean();
 
     @Autowired
-    public RouteService(RestTemplate restTemplate, @Value("${routes.api}") String routesApi) {
+    public RouteService(RestTemplate restTemplate, @Value("${routes.api}") String routesApi,
+                        @Value("${routes.refresh-interval:PT1H}") Duration refreshInterval,
+                        @Value("${routes.max-staleness:PT6H}") Duration maxStaleness,
+                        @Qualifier("routesCircuitBreaker") CircuitBreaker circuitBreaker,
+                        MeterRegistry meterRegistry,
+                        @Qualifier("routeRefreshExecutor") Executor refreshExecutor) {
         this.restTemplate = restTemplate;
         this.routesApi = routesApi;
+        this.refreshInterval = refreshInterval;
+        this.maxStaleness = maxStaleness;
+        this.circuitBreaker = circuitBreaker;
+        this.meterRegistry = meterRegistry;
+        this.refreshExecutor = refreshExecutor;
     }
 
     public List<Route> getAllRoutes() {
-        return Stream.of(
-                        Objects.requireNonNull(
-                                restTemplate.getForObject(routesApi, Route[].class)))
-                .filter(route -> null == route.getConnectingAirport())
-                .filter(route -> route.getOperator().equals(RYANAIR))
-                .toList();
+        return getCurrentSnapshot().getRoutes();
+    }
+
+    public RouteGraph getRouteGraph() {
+        return getCurrentSnapshot().getRouteGraph();
+    }
+
+    @Scheduled(fixedDelayString = "${routes.refresh-interval:PT1H}")
+    public void refreshRoutes() {
+        try {
+            loadSnapshot();
+        } catch (RuntimeException e) {
+            log.warn("Refreshing routes from {} failed, keeping the last loaded routes", routesApi, e);
+        }
+    }
+
+    private RouteSnapshot getCurrentSnapshot() {
+        RouteSnapshot currentSnapshot = snapshot.get();
+        if (currentSnapshot == null) {
+            return loadSnapshotIfOlderThan(Duration.ZERO);
+        }
+        Duration age = currentSnapshot.getAge();
+        if (age.compareTo(maxStaleness) > 0) {
+            try {
+                return loadSnapshotIfOlderThan(maxStaleness);
+            } catch (RuntimeException e) {
+                log.warn("Routes are {} old and could not be reloaded, serving the last loaded routes", age, e);
+                return currentSnapshot;
+            }
+        }
+        if (age.compareTo(refreshInterval) > 0) {
+            refreshInBackground();
+        }
+        return currentSnapshot;
+    }
+
+    /**
+     * Reloads on the refresh executor, so the blocking upstream call never occupies the common
+     * fork-join pool.
+     */
+    private void refreshInBackground() {
+        if (refreshInProgress.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(this::refreshRoutes, refreshExecutor)
+                    .whenComplete((result, throwable) -> refreshInProgress.set(false));
+        }
+    }
+
+    private synchronized RouteSnapshot loadSnapshotIfOlderThan(Duration age) {
+        RouteSnapshot currentSnapshot = snapshot.get();
+        if (currentSnapshot != null && currentSnapshot.getAge().compareTo(age) <= 0) {
+            return currentSnapshot;
+        }
+        return loadSnapshot();
+    }
+
+    private synchronized RouteSnapshot loadSnapshot() {
+        long startedAt = System.nanoTime();
+        String outcome = "error";
+        if (!circuitBreaker.tryAcquire()) {
+            recordRouteLoad("short_circuited", startedAt);
+            throw new ResourceAccessException("Routes API circuit is open, not requesting " + routesApi);
+        }
+        try {
+            Route[] loadedRoutes;
+            try {
+                loadedRoutes = restTemplate.getForObject(routesApi, Route[].class);
+                circuitBreaker.onSuccess();
+            } catch (RuntimeException e) {
+                circuitBreaker.onFailure();
+                throw e;
+            }
+            List<Route> routes = Stream.of(Objects.requireNonNull(loadedRoutes))
+                    .filter(route -> null == route.getConnectingAirport())
+                    .filter(route -> RYANAIR.equals(route.getOperator()))
+                    .toList();
+            RouteSnapshot loadedSnapshot = new RouteSnapshot(routes, RouteGraph.of(routes), Instant.now());
+            snapshot.set(loadedSnapshot);
+            outcome = "success";
+            return loadedSnapshot;
+        } finally {
+            recordRouteLoad(outcome, startedAt);
+        }
+    }
+
+    private void recordRouteLoad(String outcome, long startedAt) {
+        Timer.builder("upstream.routes.loads")
+                .tag("outcome", outcome)
+                .description("Route loads from the upstream API, including building the route graph")
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private static final class RouteSnapshot {
+        private final List<Route> routes;
+        private final RouteGraph routeGraph;
+        private final Instant loadedAt;
+
+        private RouteSnapshot(List<Route> routes, RouteGraph routeGraph, Instant loadedAt) {
+            this.routes = routes;
+            this.routeGraph = routeGraph;
+            this.loadedAt = loadedAt;
+        }
+
+        private List<Route> getRoutes() {
+            return routes;
+        }
+
+        private RouteGraph getRouteGraph() {
+            return routeGraph;
+        }
+
+        private Duration getAge() {
+            return Duration.between(loadedAt, Instant.now());
+        }
     }
 
 }
@@ -0,0 +1,118 @@
+package com.pet.flights.service;
+
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.graph.AirportPair;
+import com.pet.flights.model.LegRange;
+import com.pet.flights.model.Schedule;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fetch plan of one search: every distinct (route, year, month) schedule the search needs is
+ * submitted exactly once, all at the same time, and the results are shared by every phase
+ * that reads the route. Cached months are resolved up front without a task.
+ * <p>
+ * Batches of a batch search share their fetches, so a month several searches need is fetched
+ * once for all of them.
+ */
+public final class ScheduleBatch {
+
+    private final List<MonthSlice> monthSlices;
+    private final Map<ScheduleKey, Future<Schedule>> schedules;
+    private final int fetchCount;
+    private final boolean sharedFetches;
+
+    private ScheduleBatch(List<MonthSlice> monthSlices, Map<ScheduleKey, Future<Schedule>> schedules,
+                          int fetchCount, boolean sharedFetches) {
+        this.monthSlices = monthSlices;
+        this.schedules = schedules;
+        this.fetchCount = fetchCount;
+        this.sharedFetches = sharedFetches;
+    }
+
+    public static ScheduleBatch submit(ScheduleService scheduleService, Collection<AirportPair> routes,
+                                       LocalDateTime departureDate, LocalDateTime arrivalDate,
+                                       ExecutorService executor) {
+        return submit(scheduleService, routes, departureDate, arrivalDate, executor, null);
+    }
+
+    /**
+     * Same as {@link #submit(ScheduleService, Collection, LocalDateTime, LocalDateTime, ExecutorService)},
+     * but months another batch already put into {@code sharedFetches} are reused instead of
+     * submitted again. {@link #cancel()} leaves shared fetches alone; whoever owns
+     * {@code sharedFetches} cancels them.
+     */
+    public static ScheduleBatch submit(ScheduleService scheduleService, Collection<AirportPair> routes,
+                                       LocalDateTime departureDate, LocalDateTime arrivalDate,
+                                       ExecutorService executor, ConcurrentMap<ScheduleKey, Future<Schedule>> sharedFetches) {
+        List<MonthSlice> monthSlices = MonthSlice.between(departureDate, arrivalDate);
+        Map<ScheduleKey, Future<Schedule>> schedules = new HashMap<>(routes.size() * monthSlices.size() * 2);
+        Map<ScheduleKey, Future<Schedule>> fetches = sharedFetches != null ? sharedFetches : schedules;
+        int[] fetchCount = {0};
+        for (AirportPair route : routes) {
+            for (MonthSlice monthSlice : monthSlices) {
+                ScheduleKey key = keyOf(route, monthSlice);
+                schedules.put(key, fetches.computeIfAbsent(key, scheduleKey -> {
+                    Schedule cachedSchedule = scheduleService.getCachedSchedule(scheduleKey);
+                    if (cachedSchedule != null) {
+                        return CompletableFuture.completedFuture(cachedSchedule);
+                    }
+                    fetchCount[0]++;
+                    return executor.submit(() -> scheduleService.getSchedule(scheduleKey));
+                }));
+            }
+        }
+        return new ScheduleBatch(monthSlices, schedules, fetchCount[0], sharedFetches != null);
+    }
+
+    public int size() {
+        return schedules.size();
+    }
+
+    /**
+     * Months this batch submitted because they were neither cached nor already being fetched.
+     */
+    public int getFetchCount() {
+        return fetchCount;
+    }
+
+    /**
+     * The legs of {@code route} within the search window, one range per month, waiting until
+     * {@code deadline} ({@link System#nanoTime()}) at the latest. The ranges read the fetched
+     * schedules' shared {@link Schedule#getLegs month legs}.
+     */
+    public List<LegRange> getLegs(AirportPair route, long deadline)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        List<LegRange> legs = new ArrayList<>(monthSlices.size());
+        for (MonthSlice monthSlice : monthSlices) {
+            Future<Schedule> schedule = schedules.get(keyOf(route, monthSlice));
+            if (schedule == null) {
+                throw new IllegalArgumentException("Route " + route + " is not part of this batch");
+            }
+            legs.add(schedule.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+                    .getLegs(route.getDeparture(), route.getArrival(), monthSlice.getYearMonth())
+                    .between(monthSlice.getFromDay(), monthSlice.getToDay()));
+        }
+        return legs;
+    }
+
+    public void cancel() {
+        if (sharedFetches) {
+            return;
+        }
+        schedules.values().forEach(schedule -> schedule.cancel(true));
+    }
+
+    private static ScheduleKey keyOf(AirportPair route, MonthSlice monthSlice) {
+        return new ScheduleKey(route.getDeparture(), route.getArrival(),
+                monthSlice.getYear(), monthSlice.getMonth().getValue());
+    }
+}
@@ -0,0 +1,31 @@
+package com.pet.flights.service;
+
+import com.pet.flights.cache.ScheduleKey;
+
+import java.util.SortedSet;
+
+/**
+ * Published after schedule ingestion replaced a cached month whose flights changed upstream.
+ */
+public class ScheduleChangedEvent {
+    private final ScheduleKey scheduleKey;
+    private final SortedSet<Integer> changedDays;
+
+    public ScheduleChangedEvent(ScheduleKey scheduleKey, SortedSet<Integer> changedDays) {
+        this.scheduleKey = scheduleKey;
+        this.changedDays = changedDays;
+    }
+
+    public ScheduleKey getScheduleKey() {
+        return scheduleKey;
+    }
+
+    public SortedSet<Integer> getChangedDays() {
+        return changedDays;
+    }
+
+    @Override
+    public String toString() {
+        return scheduleKey + " changed on days " + changedDays;
+    }
+}
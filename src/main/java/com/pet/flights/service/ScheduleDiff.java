@@ -0,0 +1,95 @@
+package com.pet.flights.service;
+
+import com.pet.flights.model.DaySchedule;
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Schedule;
+
+import java.util.*;
+
+/**
+ * The days on which a re-fetched month schedule differs from the held one. Flights are compared
+ * in order by number, departure and arrival time; a day missing on one side counts as a day
+ * without flights.
+ */
+public final class ScheduleDiff {
+
+    private final Schedule held;
+    private final Schedule fetched;
+    private final SortedSet<Integer> changedDays;
+
+    private ScheduleDiff(Schedule held, Schedule fetched, SortedSet<Integer> changedDays) {
+        this.held = held;
+        this.fetched = fetched;
+        this.changedDays = changedDays;
+    }
+
+    public static ScheduleDiff between(Schedule held, Schedule fetched) {
+        Map<Integer, DaySchedule> heldDays = daysOf(held);
+        Map<Integer, DaySchedule> fetchedDays = daysOf(fetched);
+        SortedSet<Integer> changedDays = new TreeSet<>();
+        Set<Integer> days = new HashSet<>(heldDays.keySet());
+        days.addAll(fetchedDays.keySet());
+        for (Integer day : days) {
+            if (!sameFlights(flightsOf(heldDays.get(day)), flightsOf(fetchedDays.get(day)))) {
+                changedDays.add(day);
+            }
+        }
+        return new ScheduleDiff(held, fetched, Collections.unmodifiableSortedSet(changedDays));
+    }
+
+    public boolean isEmpty() {
+        return changedDays.isEmpty();
+    }
+
+    public SortedSet<Integer> getChangedDays() {
+        return changedDays;
+    }
+
+    /**
+     * The fetched schedule with the held {@link DaySchedule} instances of every unchanged day,
+     * or the held schedule itself when nothing changed.
+     */
+    public Schedule patch() {
+        if (isEmpty()) {
+            return held;
+        }
+        Map<Integer, DaySchedule> heldDays = daysOf(held);
+        List<DaySchedule> fetchedDays = fetched.getDays() == null ? List.of() : fetched.getDays();
+        List<DaySchedule> days = new ArrayList<>(fetchedDays.size());
+        for (DaySchedule day : fetchedDays) {
+            DaySchedule heldDay = heldDays.get(day.getDay());
+            days.add(heldDay != null && !changedDays.contains(day.getDay()) ? heldDay : day);
+        }
+        return new Schedule(fetched.getMonth(), days);
+    }
+
+    private static Map<Integer, DaySchedule> daysOf(Schedule schedule) {
+        Map<Integer, DaySchedule> days = new HashMap<>();
+        if (schedule.getDays() != null) {
+            for (DaySchedule day : schedule.getDays()) {
+                days.put(day.getDay(), day);
+            }
+        }
+        return days;
+    }
+
+    private static List<FlightSchedule> flightsOf(DaySchedule day) {
+        return day == null || day.getFlights() == null ? List.of() : day.getFlights();
+    }
+
+    private static boolean sameFlights(List<FlightSchedule> held, List<FlightSchedule> fetched) {
+        if (held.size() != fetched.size()) {
+            return false;
+        }
+        for (int i = 0; i < held.size(); i++) {
+            FlightSchedule heldFlight = held.get(i);
+            FlightSchedule fetchedFlight = fetched.get(i);
+            if (heldFlight.getNumber() != fetchedFlight.getNumber()
+                    || !heldFlight.getDepartureTime().equals(fetchedFlight.getDepartureTime())
+                    || !heldFlight.getArrivalTime().equals(fetchedFlight.getArrivalTime())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
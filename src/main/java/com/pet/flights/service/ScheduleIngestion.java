@@ -0,0 +1,132 @@
+package com.pet.flights.service;
+
+import com.pet.flights.cache.ScheduleCache;
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.model.Schedule;
+import com.pet.flights.store.ScheduleStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Re-polls cached month schedules in the background, so popular months stay fresh without
+ * waiting for their TTL to run out.
+ * <p>
+ * Every poll ranks the cached months that were hit recently by their (decaying) hit count divided
+ * by how many months ahead they are, skips past months and re-fetches the top {@code monthsPerPoll}.
+ * An unchanged month keeps its cached instance, so the legs and connection table entries derived
+ * from it stay valid, and its TTL, so a month nobody asks for any more still expires. A changed month is replaced by the fetched schedule patched with
+ * the held days that did not change, which invalidates everything derived from the old instance
+ * by identity, and a {@link ScheduleChangedEvent} names the changed days.
+ */
+@Service
+public class ScheduleIngestion {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduleIngestion.class);
+    private final ScheduleService scheduleService;
+    private final ScheduleCache scheduleCache;
+    private final ScheduleStore scheduleStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int monthsPerPoll;
+    private final MeterRegistry meterRegistry;
+    private final Map<ScheduleKey, Long> scores = new HashMap<>();
+
+    @Autowired
+    public ScheduleIngestion(ScheduleService scheduleService, ScheduleCache scheduleCache, ScheduleStore scheduleStore,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${schedules.ingestion.months-per-poll:50}") int monthsPerPoll,
+                             MeterRegistry meterRegistry) {
+        this.scheduleService = scheduleService;
+        this.scheduleCache = scheduleCache;
+        this.scheduleStore = scheduleStore;
+        this.eventPublisher = eventPublisher;
+        this.monthsPerPoll = monthsPerPoll;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Scheduled(fixedDelayString = "${schedules.ingestion.interval:PT1M}",
+            initialDelayString = "${schedules.ingestion.interval:PT1M}")
+    public synchronized void poll() {
+        if (monthsPerPoll <= 0) {
+            return;
+        }
+        int changed = 0;
+        for (ScheduleKey scheduleKey : rankMonths(YearMonth.now())) {
+            if (ingest(scheduleKey)) {
+                changed++;
+            }
+        }
+        log.debug("Schedule ingestion found {} changed months", changed);
+    }
+
+    private List<ScheduleKey> rankMonths(YearMonth currentMonth) {
+        Map<ScheduleKey, Long> hits = scheduleCache.drainHits();
+        scores.keySet().retainAll(hits.keySet());
+        hits.forEach((scheduleKey, count) -> scores.merge(scheduleKey, count, Long::sum));
+        Map<ScheduleKey, Double> priorities = new HashMap<>();
+        scores.forEach((scheduleKey, score) -> {
+            long monthsAhead = currentMonth.until(YearMonth.of(scheduleKey.getYear(), scheduleKey.getMonth()), ChronoUnit.MONTHS);
+            if (score > 0 && monthsAhead >= 0) {
+                priorities.put(scheduleKey, (double) score / (monthsAhead + 1));
+            }
+        });
+        scores.replaceAll((scheduleKey, score) -> score / 2);
+        scores.values().removeIf(score -> score == 0);
+        return priorities.entrySet().stream()
+                .sorted(Map.Entry.<ScheduleKey, Double>comparingByValue().reversed())
+                .limit(monthsPerPoll)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Re-fetches one cached month and applies the difference; {@code true} if its flights changed.
+     */
+    private boolean ingest(ScheduleKey scheduleKey) {
+        Schedule held = scheduleCache.peek(scheduleKey);
+        if (held == null) {
+            record("expired");
+            return false;
+        }
+        Schedule fetched;
+        try {
+            fetched = scheduleService.refetchSchedule(scheduleKey);
+        } catch (RuntimeException e) {
+            log.warn("Cannot re-poll schedule {}", scheduleKey, e);
+            record("failed");
+            return false;
+        }
+        ScheduleDiff diff = ScheduleDiff.between(held, fetched);
+        if (diff.isEmpty()) {
+            record("unchanged");
+            return false;
+        }
+        Schedule patched = diff.patch();
+        if (!scheduleCache.replace(scheduleKey, held, patched)) {
+            record("superseded");
+            return false;
+        }
+        scheduleStore.put(scheduleKey, patched);
+        record("changed");
+        eventPublisher.publishEvent(new ScheduleChangedEvent(scheduleKey, diff.getChangedDays()));
+        return true;
+    }
+
+    private void record(String outcome) {
+        Counter.builder("schedules.ingestion.months")
+                .tag("outcome", outcome)
+                .description("Cached months re-polled by schedule ingestion")
+                .register(meterRegistry)
+                .increment();
+    }
+}
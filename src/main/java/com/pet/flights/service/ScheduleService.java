@@ -1,150 +1,199 @@
 package com.pet.flights.service;
 
-import com.pet.flights.model.DaySchedule;
+import com.pet.flights.cache.ScheduleCache;
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.cache.SingleFlight;
 import com.pet.flights.model.FlightSchedule;
 import com.pet.flights.model.Schedule;
+import com.pet.flights.resilience.CircuitBreaker;
+import com.pet.flights.resilience.HedgedRequests;
+import com.pet.flights.store.ScheduleStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.Month;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 @Service
 public class ScheduleService {
-    private static final int MIN_POSSIBLE_DAY = 1;
-    private static final int MAX_POSSIBLE_DAY = 31;
     private final RestTemplate restTemplate;
 
-    private static final DateTimeFormatter dateTimeFormatter =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm", Locale.ENGLISH);
-
     private final String schedulesApiBaseUrl;
+    private final ScheduleCache scheduleCache;
+    private final ScheduleStore scheduleStore;
+    private final SingleFlight<ScheduleKey, Schedule> scheduleFetches;
+    private final Semaphore upstreamPermits;
+    private final Duration upstreamPermitTimeout;
+    private final CircuitBreaker circuitBreaker;
+    private final HedgedRequests hedgedRequests;
+    private final MeterRegistry meterRegistry;
 
     @Autowired
-    public ScheduleService(RestTemplate restTemplate,@Value("${schedules.api}") String schedulesApiBaseUrl) {
+    public ScheduleService(RestTemplate restTemplate,@Value("${schedules.api}") String schedulesApiBaseUrl,
+                           ScheduleCache scheduleCache, ScheduleStore scheduleStore,
+                           @Value("${schedules.coalescing.timeout:PT10S}") Duration coalescingTimeout,
+                           @Qualifier("scheduleLoadExecutor") Executor scheduleLoadExecutor,
+                           @Value("${schedules.api.max-concurrent-requests:64}") int maxConcurrentRequests,
+                           @Value("${schedules.api.permit-timeout:PT5S}") Duration upstreamPermitTimeout,
+                           @Qualifier("schedulesCircuitBreaker") CircuitBreaker circuitBreaker,
+                           @Qualifier("scheduleRequests") HedgedRequests hedgedRequests,
+                           MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
         this.schedulesApiBaseUrl = schedulesApiBaseUrl;
+        this.scheduleCache = scheduleCache;
+        this.scheduleStore = scheduleStore;
+        this.scheduleFetches = new SingleFlight<>(scheduleLoadExecutor, coalescingTimeout);
+        this.upstreamPermits = new Semaphore(maxConcurrentRequests);
+        this.upstreamPermitTimeout = upstreamPermitTimeout;
+        this.circuitBreaker = circuitBreaker;
+        this.hedgedRequests = hedgedRequests;
+        this.meterRegistry = meterRegistry;
     }
 
     public List<FlightSchedule> getAllSchedules(String departure, String arrival,
                                                 LocalDateTime departureDate, LocalDateTime arrivalDate) {
+        return getMonthSlices(departureDate, arrivalDate).stream()
+                .map(monthSlice -> getValidFlightSchedulesForDatesWithinMonth(departure, arrival, monthSlice))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
 
-        int departingYear = departureDate.getYear();
-        int arrivingYear = arrivalDate.getYear();
+    public List<MonthSlice> getMonthSlices(LocalDateTime departureDate, LocalDateTime arrivalDate) {
+        return MonthSlice.between(departureDate, arrivalDate);
+    }
 
-        if (departingYear == arrivingYear) {
-            return getFlightSchedulesWithinTheSameYear(departure, arrival, departureDate, arrivalDate, departingYear);
-        } else {
-            return getFlightsFromDepartingYearArrivingYearAndYearsInBetween(departure, arrival, departureDate, arrivalDate, departingYear, arrivingYear);
-        }
+    public List<FlightSchedule> getValidFlightSchedulesForDatesWithinMonth(Schedule schedulesForMonth, MonthSlice monthSlice) {
+        return monthSlice.select(schedulesForMonth);
     }
 
-    private List<FlightSchedule> getFlightsFromDepartingYearArrivingYearAndYearsInBetween(String departure, String arrival, LocalDateTime departureDate, LocalDateTime arrivalDate, int departingYear, int arrivingYear) {
-        List<FlightSchedule> validFlightsInDepartingYear = getFlightSchedulesWithinTheSameYear(departure, arrival,
-                departureDate, departureDate.with(TemporalAdjusters.lastDayOfYear()), departingYear);
-        List<FlightSchedule> validFlightsInArrivingYear = getFlightSchedulesWithinTheSameYear(departure, arrival,
-                arrivalDate.with(TemporalAdjusters.firstDayOfYear()), arrivalDate, arrivingYear);
-
-        List<Integer> years = IntStream.range(departingYear + 1, arrivingYear - 1)
-                .boxed().toList();
-        List<FlightSchedule> validFlightSchedulesBetweenYears = new ArrayList<>(Collections.emptyList());
-        if(years.size() > 0) {
-            validFlightSchedulesBetweenYears.addAll(years.stream()
-                    .map(year -> LocalDateTime.of(year, 1, 1, 0, 0))
-                    .map(firstDayOfYear ->
-                            getFlightSchedulesWithinTheSameYear(departure, arrival, firstDayOfYear,
-                                    firstDayOfYear.with(TemporalAdjusters.lastDayOfYear()), firstDayOfYear.getYear()))
-                    .flatMap(List::stream).toList());
+    private List<FlightSchedule> getValidFlightSchedulesForDatesWithinMonth(String departure, String arrival, MonthSlice monthSlice) {
+        Schedule schedulesForMonth = getSchedules(departure, arrival, monthSlice.getYear(), monthSlice.getMonth());
+        return getValidFlightSchedulesForDatesWithinMonth(schedulesForMonth, monthSlice);
+    }
 
-        }
-        return Stream.of(validFlightsInDepartingYear, validFlightsInArrivingYear, validFlightSchedulesBetweenYears)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList());
+    /**
+     * The cached schedule for {@code scheduleKey}, or {@code null} without going upstream. A hit
+     * counts as a use of the month; a miss is left to the {@link #getSchedule} that follows it.
+     */
+    public Schedule getCachedSchedule(ScheduleKey scheduleKey) {
+        return scheduleCache.getIfPresent(scheduleKey);
     }
 
-    private List<FlightSchedule> getFlightSchedulesWithinTheSameYear(String departure, String arrival, LocalDateTime departureDate, LocalDateTime arrivalDate, int year) {
-
-        Month departingMonth = departureDate.getMonth();
-        Month arrivingMonth = arrivalDate.getMonth();
-
-        int departingDay = departureDate.getDayOfMonth();
-        int arrivingDay = arrivalDate.getDayOfMonth();
-
-        if (departingMonth == arrivingMonth) {
-            return getValidFlightSchedulesForDatesWithinMonth(departure, arrival, year, departingMonth, departingDay, arrivingDay);
-        } else {
-            List<FlightSchedule> validFlightSchedulesForDepartingMonth =
-                    getValidFlightSchedulesForDatesWithinMonth(departure, arrival,
-                            year, departingMonth, departingDay, departureDate.with(TemporalAdjusters.lastDayOfMonth()).getDayOfMonth());
-            List<FlightSchedule> validFlightSchedulesForArrivalMonth =
-                    getValidFlightSchedulesForDatesWithinMonth(departure, arrival,
-                            year, arrivingMonth, arrivalDate.with(TemporalAdjusters.firstDayOfMonth()).getDayOfMonth(), arrivingDay);
-
-            List<Integer> months = IntStream.range(departingMonth.getValue() + 1, arrivingMonth.getValue() - 1)
-                    .boxed().toList();
-            List<FlightSchedule> validFlightSchedulesBetweenMonths = new ArrayList<>(Collections.emptyList());
-            if(months.size() > 0) {
-                validFlightSchedulesBetweenMonths.addAll(months.stream()
-                        .map(month ->
-                                getValidFlightSchedulesForDatesWithinMonth(departure, arrival, year,
-                                        Month.of(month), MIN_POSSIBLE_DAY, MAX_POSSIBLE_DAY))
-                        .flatMap(List::stream).toList());
-            }
+    /**
+     * The cached schedule for {@code scheduleKey}, or {@code null}, without counting a use of the
+     * month: for checks whether something derived from a schedule is still current.
+     */
+    public Schedule peekCachedSchedule(ScheduleKey scheduleKey) {
+        return scheduleCache.peek(scheduleKey);
+    }
 
-            return Stream.of(validFlightSchedulesForDepartingMonth, validFlightSchedulesForArrivalMonth, validFlightSchedulesBetweenMonths)
-                    .flatMap(Collection::stream)
-                    .collect(Collectors.toList());
+    public Schedule getSchedule(ScheduleKey scheduleKey) {
+        Schedule cachedSchedule = scheduleCache.get(scheduleKey);
+        if (cachedSchedule != null) {
+            return cachedSchedule;
         }
+        return scheduleFetches.execute(scheduleKey, () -> {
+            Schedule schedule = scheduleStore.get(scheduleKey);
+            if (schedule == null) {
+                schedule = fetchSchedule(scheduleKey);
+                scheduleStore.put(scheduleKey, schedule);
+            }
+            scheduleCache.put(scheduleKey, schedule);
+            return schedule;
+        });
     }
 
-    private List<FlightSchedule> getValidFlightSchedulesForDatesWithinMonth(String departure, String arrival, int year, Month month, int fromDay, int toDay) {
-        Schedule schedulesForMonth = getSchedules(departure, arrival, year, month);
-        List<Integer> days = IntStream.range(fromDay, toDay)
-                .boxed().toList();
-        return schedulesForMonth.getDays()
-                .stream()
-                .filter(daySchedule -> days.contains(daySchedule.getDay()))
-                .map(daySchedule -> buildFlightDtoList(daySchedule, month, year))
-                .flatMap(List::stream).toList();
+    /**
+     * Requests {@code scheduleKey} upstream even if it is cached, leaving the cache and the store
+     * alone.
+     */
+    public Schedule refetchSchedule(ScheduleKey scheduleKey) {
+        return fetchSchedule(scheduleKey);
     }
 
-    private List<FlightSchedule> buildFlightDtoList(DaySchedule daySchedule, Month month, int year) {
-        return daySchedule.getFlights().stream()
-                .map(schedule -> buildFlightDto(schedule, month, year, daySchedule.getDay()))
-                .collect(Collectors.toList());
+    private Schedule getSchedules(String departure, String arrival, int departingYear, Month departingMonth) {
+        return getSchedule(new ScheduleKey(departure, arrival, departingYear, departingMonth.getValue()));
     }
 
-    private FlightSchedule buildFlightDto(FlightSchedule schedule, Month month, int year, int day) {
-        String[] departureTime = schedule.getDepartureTime().split(":");
-        int departingHour = Integer.parseInt(departureTime[0]);
-        int departingMinute = Integer.parseInt(departureTime[1]);
-
-        String[] arrivalTime = schedule.getArrivalTime().split(":");
-        int arrivingHour = Integer.parseInt(arrivalTime[0]);
-        int arrivingMinute = Integer.parseInt(arrivalTime[1]);
-
-
-        LocalDateTime departureDateTime = LocalDateTime.of(year, month, day, departingHour, departingMinute);
-        LocalDateTime arrivalDateTime = LocalDateTime.of(year, month, day, arrivingHour, arrivingMinute);
+    private Schedule fetchSchedule(ScheduleKey scheduleKey) {
+        String url = schedulesApiBaseUrl + scheduleKey.getDeparture() + "/" + scheduleKey.getArrival()
+                + "/years/" + scheduleKey.getYear() + "/months/" + scheduleKey.getMonth();
+        return hedgedRequests.execute(() -> requestSchedule(scheduleKey, url));
+    }
 
+    /**
+     * One upstream request, behind the circuit breaker and the concurrency bulkhead. Only
+     * server errors and I/O failures count against the circuit breaker.
+     */
+    private Schedule requestSchedule(ScheduleKey scheduleKey, String url) {
+        long startedAt = System.nanoTime();
+        if (!circuitBreaker.tryAcquire()) {
+            recordUpstreamRequest("short_circuited", startedAt);
+            throw new ResourceAccessException("Schedules API circuit is open, not requesting " + url);
+        }
+        try {
+            acquireUpstreamPermit(url);
+        } catch (ResourceAccessException e) {
+            circuitBreaker.onIgnored();
+            recordUpstreamRequest("rejected", startedAt);
+            throw e;
+        }
+        String outcome = "error";
+        try {
+            Schedule schedule = restTemplate.getForObject(url, Schedule.class);
+            outcome = "success";
+            return schedule != null ? schedule : emptySchedule(scheduleKey);
+        } catch (HttpClientErrorException.NotFound e) {
+            outcome = "not_found";
+            return emptySchedule(scheduleKey);
+        } catch (HttpClientErrorException e) {
+            outcome = "client_error";
+            throw e;
+        } finally {
+            upstreamPermits.release();
+            if (outcome.equals("error")) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            recordUpstreamRequest(outcome, startedAt);
+        }
+    }
 
-        return new FlightSchedule(schedule.getNumber(), departureDateTime.format(dateTimeFormatter),
-                arrivalDateTime.format(dateTimeFormatter));
+    void recordUpstreamRequest(String outcome, long startedAt) {
+        Timer.builder("upstream.schedules.requests")
+                .tag("outcome", outcome)
+                .description("Schedule requests to the upstream API, including the wait for a permit")
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
     }
 
-    private Schedule getSchedules(String departure, String arrival, int departingYear, Month departingMonth) {
-        String url = schedulesApiBaseUrl + departure + "/" + arrival
-                + "/years/" + departingYear + "/months/" + departingMonth.getValue();
+    private void acquireUpstreamPermit(String url) {
+        try {
+            if (!upstreamPermits.tryAcquire(upstreamPermitTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new ResourceAccessException("Too many concurrent schedule requests, gave up on " + url);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting to request " + url);
+        }
+    }
 
-        return restTemplate.getForObject(url, Schedule.class);
+    private Schedule emptySchedule(ScheduleKey scheduleKey) {
+        return new Schedule(scheduleKey.getMonth(), List.of());
     }
 
 }
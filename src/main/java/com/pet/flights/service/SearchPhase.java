@@ -0,0 +1,20 @@
+package com.pet.flights.service;
+
+import java.util.Locale;
+
+/**
+ * The steps of a search, in the order they run. Searches served from the
+ * {@link ConnectionTable} skip {@link #FETCH}; searches without a direct route skip
+ * {@link #DIRECT}.
+ */
+public enum SearchPhase {
+    ROUTES,
+    CANDIDATES,
+    DIRECT,
+    FETCH,
+    JOIN;
+
+    public String getTag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,133 @@
+package com.pet.flights.service;
+
+import com.pet.flights.graph.AirportPair;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Per-search breakdown of where the time went, plus the amount of work done. Filled in by the
+ * thread running the search, one phase after the other.
+ */
+public final class SearchPhases {
+    private final long startedAt = System.nanoTime();
+    private final long[] phaseNanos = new long[SearchPhase.values().length];
+    private long lapStartedAt = startedAt;
+    private long totalNanos = -1;
+    private int scheduleFetches;
+    private int candidateLegs;
+    private int itineraries;
+    private int skippedRoutes;
+    private Set<AirportPair> routes;
+
+    public SearchPhases() {
+        Arrays.fill(phaseNanos, -1);
+    }
+
+    /**
+     * Attributes the time since the previous lap to {@code phase}.
+     */
+    public void lap(SearchPhase phase) {
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] = Math.max(0, phaseNanos[phase.ordinal()]) + now - lapStartedAt;
+        lapStartedAt = now;
+    }
+
+    public void finish() {
+        totalNanos = System.nanoTime() - startedAt;
+    }
+
+    public void addScheduleFetches(int count) {
+        scheduleFetches += count;
+    }
+
+    public void addCandidateLegs(int count) {
+        candidateLegs += count;
+    }
+
+    public void addItinerary() {
+        itineraries++;
+    }
+
+    public void addSkippedRoute() {
+        skippedRoutes++;
+    }
+
+    public void setRoutes(Set<AirportPair> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * The routes whose schedules the search read, or {@code null} before it has picked them.
+     */
+    public Set<AirportPair> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Nanoseconds spent in {@code phase}, or {@code -1} if the search did not run it.
+     */
+    public long getNanos(SearchPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Months the search had to fetch because they were not cached when it started.
+     */
+    public int getScheduleFetches() {
+        return scheduleFetches;
+    }
+
+    public int getCandidateLegs() {
+        return candidateLegs;
+    }
+
+    public int getItineraries() {
+        return itineraries;
+    }
+
+    /**
+     * Routes left out because their schedules failed or did not arrive before the deadline.
+     */
+    public int getSkippedRoutes() {
+        return skippedRoutes;
+    }
+
+    public boolean isPartial() {
+        return skippedRoutes > 0;
+    }
+
+    /**
+     * The breakdown as a {@code Server-Timing} header value, durations in milliseconds.
+     */
+    public String toServerTiming() {
+        StringBuilder serverTiming = new StringBuilder();
+        for (SearchPhase phase : SearchPhase.values()) {
+            if (getNanos(phase) >= 0) {
+                appendDuration(serverTiming, phase.getTag(), getNanos(phase));
+            }
+        }
+        if (totalNanos >= 0) {
+            appendDuration(serverTiming, "total", totalNanos);
+        }
+        serverTiming.append(", fetches;desc=").append(scheduleFetches)
+                .append(", legs;desc=").append(candidateLegs)
+                .append(", itineraries;desc=").append(itineraries);
+        if (skippedRoutes > 0) {
+            serverTiming.append(", skipped;desc=").append(skippedRoutes);
+        }
+        return serverTiming.toString();
+    }
+
+    private static void appendDuration(StringBuilder serverTiming, String name, long nanos) {
+        if (serverTiming.length() > 0) {
+            serverTiming.append(", ");
+        }
+        serverTiming.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1e6));
+    }
+}
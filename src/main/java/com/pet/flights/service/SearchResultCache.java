@@ -0,0 +1,221 @@
+package com.pet.flights.service;
+
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.graph.AirportPair;
+import com.pet.flights.graph.RouteGraph;
+import com.pet.flights.search.ItinerarySort;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized pages of recent searches, so repeating a search skips both the search and the
+ * serialization of its itineraries.
+ * <p>
+ * A search reads whole days of schedules, so the key holds the dates of its window rather than
+ * the times: searches of a pair on the same days share one entry. An entry is dropped once the
+ * route graph it was computed from is replaced, once a {@link ScheduleChangedEvent} changes a
+ * day it read, or after {@code ttl}. Partial pages are never cached. Least recently used pages
+ * are evicted once the cached pages add up to more than {@code maxBytes}.
+ */
+@Service
+public class SearchResultCache {
+
+    private final RouteService routeService;
+    private final ConnectionTable connectionTable;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    @Autowired
+    public SearchResultCache(RouteService routeService, ConnectionTable connectionTable,
+                             @Value("${flights.result-cache.max-bytes:67108864}") long maxBytes,
+                             @Value("${flights.result-cache.ttl:PT5M}") Duration ttl) {
+        this.routeService = routeService;
+        this.connectionTable = connectionTable;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * The cached page of {@code search}, or {@code null}. A hit still counts as a search of the
+     * pair for the {@link ConnectionTable}.
+     */
+    public SerializedPage get(FlightSearch search) {
+        if (maxBytes <= 0) {
+            return null;
+        }
+        Key key = new Key(search);
+        RouteGraph routeGraph = routeService.getRouteGraph();
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.routeGraph == routeGraph && now - entry.expiresAt < 0) {
+                hitCount.incrementAndGet();
+                connectionTable.recordSearch(search.getDeparture(), search.getArrival());
+                return entry.page;
+            }
+            if (entry != null) {
+                remove(key);
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches the page of {@code search}, read from the schedules of {@code routes}.
+     */
+    public void put(FlightSearch search, SerializedPage page, Set<AirportPair> routes) {
+        if (page.getBody().length > maxBytes) {
+            return;
+        }
+        Key key = new Key(search);
+        Entry entry = new Entry(page, routeService.getRouteGraph(), routes, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            remove(key);
+            entries.put(key, entry);
+            bytes += page.getBody().length;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().page.getBody().length;
+                eldest.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Drops the pages that read one of the changed days of the changed route.
+     */
+    @EventListener
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        ScheduleKey scheduleKey = event.getScheduleKey();
+        AirportPair route = new AirportPair(scheduleKey.getDeparture(), scheduleKey.getArrival());
+        YearMonth yearMonth = YearMonth.of(scheduleKey.getYear(), scheduleKey.getMonth());
+        synchronized (entries) {
+            Iterator<Map.Entry<Key, Entry>> cached = entries.entrySet().iterator();
+            while (cached.hasNext()) {
+                Map.Entry<Key, Entry> entry = cached.next();
+                if (entry.getValue().routes.contains(route)
+                        && entry.getKey().readsAnyOf(yearMonth, event.getChangedDays())) {
+                    bytes -= entry.getValue().page.getBody().length;
+                    cached.remove();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.page.getBody().length;
+        }
+    }
+
+    /**
+     * A search as far as its result goes: the window is reduced to the days it reads.
+     */
+    private static final class Key {
+        private final String departure;
+        private final String arrival;
+        private final LocalDate firstDay;
+        private final LocalDate endDay;
+        private final int maxStops;
+        private final ItinerarySort sort;
+        private final int limit;
+        private final String cursor;
+
+        private Key(FlightSearch search) {
+            this.departure = search.getDeparture();
+            this.arrival = search.getArrival();
+            this.firstDay = search.getDepartureDateTime().toLocalDate();
+            this.endDay = search.getArrivalDateTime().toLocalDate();
+            this.maxStops = search.getMaxStops();
+            this.sort = search.getSort();
+            this.limit = search.getLimit();
+            this.cursor = search.getCursor() == null ? null : search.getCursor().encode();
+        }
+
+        private boolean readsAnyOf(YearMonth yearMonth, Collection<Integer> days) {
+            for (int day : days) {
+                if (day < 1 || day > yearMonth.lengthOfMonth()) {
+                    continue;
+                }
+                LocalDate date = yearMonth.atDay(day);
+                if (!date.isBefore(firstDay) && date.isBefore(endDay)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key that)) {
+                return false;
+            }
+            return maxStops == that.maxStops && limit == that.limit && sort == that.sort
+                    && departure.equals(that.departure) && arrival.equals(that.arrival)
+                    && firstDay.equals(that.firstDay) && endDay.equals(that.endDay)
+                    && Objects.equals(cursor, that.cursor);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(departure, arrival, firstDay, endDay, maxStops, sort, limit, cursor);
+        }
+    }
+
+    private static final class Entry {
+        private final SerializedPage page;
+        private final RouteGraph routeGraph;
+        private final Set<AirportPair> routes;
+        private final long expiresAt;
+
+        private Entry(SerializedPage page, RouteGraph routeGraph, Set<AirportPair> routes, long expiresAt) {
+            this.page = page;
+            this.routeGraph = routeGraph;
+            this.routes = routes;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
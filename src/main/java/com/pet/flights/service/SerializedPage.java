@@ -0,0 +1,25 @@
+package com.pet.flights.service;
+
+/**
+ * A complete search page as the JSON array it is answered with.
+ */
+public final class SerializedPage {
+    private final byte[] body;
+    private final String nextCursor;
+
+    public SerializedPage(byte[] body, String nextCursor) {
+        this.body = body;
+        this.nextCursor = nextCursor;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * {@code null} when this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
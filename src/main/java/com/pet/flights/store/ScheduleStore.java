@@ -0,0 +1,400 @@
+package com.pet.flights.store;
+
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.model.DaySchedule;
+import com.pet.flights.model.EpochMinutes;
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Schedule;
+import com.pet.flights.model.Symbols;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of fetched month schedules, so a restarted instance can serve the months
+ * the previous run fetched without going upstream.
+ * <p>
+ * Each record is {@code [int length][int crc32][payload]}; the payload is the store time, the
+ * key and then the days, with every flight as a fixed-width (number, departure minute, arrival
+ * minute) triple. On startup the log is memory-mapped, in overlapping chunks so it may grow
+ * past 2 GiB, and scanned once into a key-to-offset index (later records win); a torn tail is
+ * truncated. Records from the previous run are decoded straight from the mapping, at most once
+ * per key and only while younger than {@code maxAge} — after that the cache TTL decides when to
+ * go upstream again. Records written by this run are only appended, and not at all for a month
+ * stored unchanged within the last half of {@code maxAge}. The log is compacted on startup and
+ * while running once most of it is dead.
+ * <p>
+ * Without a configured directory the store does nothing.
+ */
+@Component
+public class ScheduleStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduleStore.class);
+    private static final String LOG_FILE = "schedules.log";
+    private static final int HEADER_BYTES = 8;
+    private static final int FLIGHT_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final long CHUNK_BYTES = 1L << 30;
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    private final long maxAgeMillis;
+    private final long chunkBytes;
+    private final long minCompactionBytes;
+    private final Map<ScheduleKey, IndexEntry> index = new HashMap<>();
+    private Path logFile;
+    private FileChannel channel;
+    private List<MappedByteBuffer> chunks = List.of();
+    private long size;
+    private long indexedBytes;
+
+    @Autowired
+    public ScheduleStore(@Value("${schedules.store.directory:}") String directory,
+                         @Value("${schedules.store.max-age:PT24H}") Duration maxAge) {
+        this(directory, maxAge, CHUNK_BYTES, MIN_COMPACTION_BYTES);
+    }
+
+    ScheduleStore(String directory, Duration maxAge, long chunkBytes, long minCompactionBytes) {
+        this.maxAgeMillis = maxAge.toMillis();
+        this.chunkBytes = chunkBytes;
+        this.minCompactionBytes = minCompactionBytes;
+        if (directory == null || directory.isBlank()) {
+            return;
+        }
+        try {
+            open(Path.of(directory));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot open schedule store in {}, running without it", directory, e);
+            closeQuietly();
+        }
+    }
+
+    public boolean isEnabled() {
+        return channel != null;
+    }
+
+    /**
+     * The schedule a previous run stored for {@code scheduleKey}, if it is younger than the
+     * maximum age. Each stored schedule is handed out once.
+     */
+    public synchronized Schedule get(ScheduleKey scheduleKey) {
+        if (channel == null) {
+            return null;
+        }
+        IndexEntry entry = index.get(scheduleKey);
+        if (entry == null || !entry.fromPreviousRun) {
+            return null;
+        }
+        entry.fromPreviousRun = false;
+        if (System.currentTimeMillis() - entry.storedAt > maxAgeMillis) {
+            return null;
+        }
+        return decodeSchedule(slice(entry.offset + HEADER_BYTES, entry.length - HEADER_BYTES));
+    }
+
+    /**
+     * Appends {@code schedule} unless the same month was stored unchanged recently, and compacts
+     * the log once most of it is dead.
+     */
+    public synchronized void put(ScheduleKey scheduleKey, Schedule schedule) {
+        if (channel == null) {
+            return;
+        }
+        long storedAt = System.currentTimeMillis();
+        ByteBuffer record;
+        try {
+            record = encode(scheduleKey, schedule, storedAt);
+        } catch (RuntimeException e) {
+            log.warn("Cannot store schedule {}", scheduleKey, e);
+            return;
+        }
+        int length = record.remaining();
+        int contentCrc = contentCrcOf(record);
+        IndexEntry stored = index.get(scheduleKey);
+        if (stored != null && stored.length == length && stored.contentCrc == contentCrc
+                && storedAt - stored.storedAt <= maxAgeMillis / 2) {
+            return;
+        }
+        if (length > MAX_RECORD_BYTES) {
+            log.warn("Not storing schedule {} of {} bytes", scheduleKey, length);
+            return;
+        }
+        try {
+            long position = size;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+        } catch (IOException e) {
+            log.warn("Cannot store schedule {}", scheduleKey, e);
+            return;
+        }
+        IndexEntry replaced = index.put(scheduleKey, new IndexEntry(size, length, storedAt, contentCrc, false));
+        indexedBytes += length - (replaced == null ? 0 : replaced.length);
+        size += length;
+        if (size >= minCompactionBytes && indexedBytes * 2 < size) {
+            try {
+                compact();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Cannot compact schedule store {}, running without it", logFile, e);
+                closeQuietly();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        closeQuietly();
+    }
+
+    private void open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        logFile = directory.resolve(LOG_FILE);
+        channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        size = channel.size();
+        map();
+
+        long validEnd = scan();
+        if (validEnd < size) {
+            log.warn("Truncating {} torn bytes at the end of {}", size - validEnd, logFile);
+            channel.truncate(validEnd);
+            size = validEnd;
+        }
+        long liveBytes = liveBytes();
+        if (size >= minCompactionBytes && liveBytes * 2 < size) {
+            compact();
+        }
+        log.info("Opened schedule store {} with {} months", logFile, index.size());
+    }
+
+    /**
+     * Maps the log in chunks of {@code chunkBytes}, each overlapping the next by the largest
+     * record, so every record lies within the chunk it starts in.
+     */
+    private void map() throws IOException {
+        List<MappedByteBuffer> mappedChunks = new ArrayList<>();
+        for (long start = 0; start < size; start += chunkBytes) {
+            mappedChunks.add(channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    Math.min(size - start, chunkBytes + MAX_RECORD_BYTES)));
+        }
+        chunks = mappedChunks;
+    }
+
+    private long scan() {
+        long position = 0;
+        CRC32 crc = new CRC32();
+        while (position + HEADER_BYTES <= size) {
+            ByteBuffer header = slice(position, HEADER_BYTES);
+            int payloadLength = header.getInt();
+            int checksum = header.getInt();
+            if (payloadLength <= 0 || payloadLength > MAX_RECORD_BYTES - HEADER_BYTES
+                    || position + HEADER_BYTES + payloadLength > size) {
+                break;
+            }
+            ByteBuffer payload = slice(position + HEADER_BYTES, payloadLength);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            long storedAt = payload.getLong();
+            crc.reset();
+            crc.update(payload.duplicate());
+            ScheduleKey scheduleKey = decodeKey(payload);
+            index.put(scheduleKey, new IndexEntry(position, HEADER_BYTES + payloadLength, storedAt,
+                    (int) crc.getValue(), true));
+            position += HEADER_BYTES + payloadLength;
+        }
+        indexedBytes = index.values().stream().mapToLong(entry -> entry.length).sum();
+        return position;
+    }
+
+    private long liveBytes() {
+        long now = System.currentTimeMillis();
+        return index.values().stream()
+                .filter(entry -> now - entry.storedAt <= maxAgeMillis)
+                .mapToLong(entry -> entry.length)
+                .sum();
+    }
+
+    private void compact() throws IOException {
+        Path compactedFile = logFile.resolveSibling(LOG_FILE + ".compacting");
+        long now = System.currentTimeMillis();
+        Map<ScheduleKey, IndexEntry> compactedIndex = new HashMap<>();
+        try (FileChannel compacted = FileChannel.open(compactedFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (Map.Entry<ScheduleKey, IndexEntry> live : index.entrySet()) {
+                IndexEntry entry = live.getValue();
+                if (now - entry.storedAt > maxAgeMillis) {
+                    continue;
+                }
+                ByteBuffer record = read(entry.offset, entry.length);
+                long start = position;
+                while (record.hasRemaining()) {
+                    position += compacted.write(record, position);
+                }
+                compactedIndex.put(live.getKey(), new IndexEntry(start, entry.length, entry.storedAt,
+                        entry.contentCrc, entry.fromPreviousRun));
+            }
+            compacted.force(true);
+        }
+        channel.close();
+        Files.move(compactedFile, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Compacted {} from {} to {} months", logFile, index.size(), compactedIndex.size());
+
+        channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        size = channel.size();
+        map();
+        index.clear();
+        index.putAll(compactedIndex);
+        indexedBytes = size;
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(length);
+        long position = offset;
+        while (record.hasRemaining()) {
+            int read = channel.read(record, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of " + logFile + " at " + position);
+            }
+            position += read;
+        }
+        return record.flip();
+    }
+
+    private void closeQuietly() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Cannot close schedule store {}", logFile, e);
+            }
+        }
+        channel = null;
+        chunks = List.of();
+        index.clear();
+    }
+
+    private static ByteBuffer encode(ScheduleKey scheduleKey, Schedule schedule, long storedAt) {
+        List<DaySchedule> days = schedule.getDays() == null ? List.of() : schedule.getDays();
+        byte[] departure = scheduleKey.getDeparture().getBytes(StandardCharsets.US_ASCII);
+        byte[] arrival = scheduleKey.getArrival().getBytes(StandardCharsets.US_ASCII);
+        int payloadLength = Long.BYTES + Short.BYTES + 1 + 1 + departure.length + 1 + arrival.length + Short.BYTES;
+        for (DaySchedule day : days) {
+            payloadLength += 1 + Short.BYTES + flightsOf(day).size() * FLIGHT_BYTES;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payloadLength);
+        record.position(HEADER_BYTES);
+        record.putLong(storedAt);
+        record.putShort((short) scheduleKey.getYear());
+        record.put((byte) scheduleKey.getMonth());
+        record.put((byte) departure.length).put(departure);
+        record.put((byte) arrival.length).put(arrival);
+        record.putShort((short) days.size());
+        for (DaySchedule day : days) {
+            List<FlightSchedule> flights = flightsOf(day);
+            record.put((byte) day.getDay());
+            record.putShort((short) flights.size());
+            for (FlightSchedule flight : flights) {
+                record.putInt(flight.getNumber());
+                record.putShort((short) EpochMinutes.parseMinuteOfDay(flight.getDepartureTime()));
+                record.putShort((short) EpochMinutes.parseMinuteOfDay(flight.getArrivalTime()));
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, payloadLength);
+        record.putInt(0, payloadLength);
+        record.putInt(4, (int) crc.getValue());
+        record.rewind();
+        return record;
+    }
+
+    private static ScheduleKey decodeKey(ByteBuffer payload) {
+        int year = payload.getShort();
+        int month = payload.get();
+        String departure = readCode(payload);
+        String arrival = readCode(payload);
+        return new ScheduleKey(departure, arrival, year, month);
+    }
+
+    private static Schedule decodeSchedule(ByteBuffer payload) {
+        payload.getLong();
+        ScheduleKey scheduleKey = decodeKey(payload);
+        int dayCount = payload.getShort();
+        List<DaySchedule> days = new ArrayList<>(dayCount);
+        for (int d = 0; d < dayCount; d++) {
+            int day = payload.get();
+            int flightCount = payload.getShort();
+            List<FlightSchedule> flights = new ArrayList<>(flightCount);
+            for (int f = 0; f < flightCount; f++) {
+                int number = payload.getInt();
+                String departureTime = EpochMinutes.formatMinuteOfDay(payload.getShort());
+                String arrivalTime = EpochMinutes.formatMinuteOfDay(payload.getShort());
+                flights.add(new FlightSchedule(number, departureTime, arrivalTime));
+            }
+            days.add(new DaySchedule(day, flights));
+        }
+        return new Schedule(scheduleKey.getMonth(), days);
+    }
+
+    private static String readCode(ByteBuffer payload) {
+        byte[] code = new byte[payload.get()];
+        payload.get(code);
+        return Symbols.intern(new String(code, StandardCharsets.US_ASCII));
+    }
+
+    private static List<FlightSchedule> flightsOf(DaySchedule day) {
+        return day.getFlights() == null ? List.of() : day.getFlights();
+    }
+
+    /**
+     * CRC32 of the record's payload after the store time, which tells whether a month changed.
+     */
+    private static int contentCrcOf(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES + Long.BYTES, record.remaining() - HEADER_BYTES - Long.BYTES);
+        return (int) crc.getValue();
+    }
+
+    private ByteBuffer slice(long offset, int length) {
+        int chunk = (int) (offset / chunkBytes);
+        return chunks.get(chunk).slice((int) (offset - chunk * chunkBytes), length);
+    }
+
+    private static final class IndexEntry {
+        private final long offset;
+        private final int length;
+        private final long storedAt;
+        private final int contentCrc;
+        private boolean fromPreviousRun;
+
+        private IndexEntry(long offset, int length, long storedAt, int contentCrc, boolean fromPreviousRun) {
+            this.offset = offset;
+            this.length = length;
+            this.storedAt = storedAt;
+            this.contentCrc = contentCrc;
+            this.fromPreviousRun = fromPreviousRun;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.pet.flights.cache;
+
+import com.pet.flights.config.CacheMetricsConfiguration;
+import com.pet.flights.model.DaySchedule;
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Schedule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+class ScheduleCacheTest {
+
+    private final ScheduleKey dubToStn = new ScheduleKey("DUB", "STN", 2023, 3);
+    private final ScheduleKey bcnToBgy = new ScheduleKey("BCN", "BGY", 2023, 3);
+    private final ScheduleKey dubToWro = new ScheduleKey("DUB", "WRO", 2023, 3);
+
+    @Test
+    void shouldReturnCachedScheduleAndCountHitsAndMisses() {
+        ScheduleCache testee = new ScheduleCache(Duration.ofMinutes(15), Duration.ofMinutes(5), 10);
+        Schedule schedule = getDummySchedule();
+
+        BDDAssertions.then(testee.get(dubToStn)).isNull();
+        testee.put(dubToStn, schedule);
+
+        BDDAssertions.then(testee.get(new ScheduleKey("DUB", "STN", 2023, 3))).isSameAs(schedule);
+        BDDAssertions.then(testee.getHitCount()).isEqualTo(1);
+        BDDAssertions.then(testee.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCountProbeHitsButNeitherProbeMissesNorPeeks() {
+        ScheduleCache testee = new ScheduleCache(Duration.ofMinutes(15), Duration.ofMinutes(5), 10);
+        Schedule schedule = getDummySchedule();
+
+        BDDAssertions.then(testee.getIfPresent(dubToStn)).isNull();
+        testee.put(dubToStn, schedule);
+        BDDAssertions.then(testee.peek(dubToStn)).isSameAs(schedule);
+        BDDAssertions.then(testee.getIfPresent(dubToStn)).isSameAs(schedule);
+
+        BDDAssertions.then(testee.getHitCount()).isEqualTo(1);
+        BDDAssertions.then(testee.getMissCount()).isZero();
+        BDDAssertions.then(testee.drainHits()).containsEntry(dubToStn, 1L);
+    }
+
+    @Test
+    void shouldExposeHitsAndMissesAsMeters() {
+        ScheduleCache testee = new ScheduleCache(Duration.ofMinutes(15), Duration.ofMinutes(5), 10);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        new CacheMetricsConfiguration().scheduleCacheMetrics(testee).bindTo(registry);
+        testee.get(dubToStn);
+        testee.put(dubToStn, getDummySchedule());
+        testee.get(dubToStn);
+        testee.get(dubToStn);
+
+        BDDAssertions.then(registry.get("schedules.cache.requests").tag("result", "hit").functionCounter().count())
+                .isEqualTo(2);
+        BDDAssertions.then(registry.get("schedules.cache.requests").tag("result", "miss").functionCounter().count())
+                .isEqualTo(1);
+        BDDAssertions.then(registry.get("schedules.cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedMonth() {
+        ScheduleCache testee = new ScheduleCache(Duration.ofMinutes(15), Duration.ofMinutes(5), 2);
+        testee.put(dubToStn, getDummySchedule());
+        testee.put(bcnToBgy, getDummySchedule());
+        testee.get(dubToStn);
+        testee.put(dubToWro, getDummySchedule());
+
+        BDDAssertions.then(testee.size()).isEqualTo(2);
+        BDDAssertions.then(testee.getEvictionCount()).isEqualTo(1);
+        BDDAssertions.then(testee.get(bcnToBgy)).isNull();
+        BDDAssertions.then(testee.get(dubToStn)).isNotNull();
+    }
+
+    @Test
+    void shouldNotProtectPeekedMonthFromEviction() {
+        ScheduleCache testee = new ScheduleCache(Duration.ofMinutes(15), Duration.ofMinutes(5), 2);
+        testee.put(dubToStn, getDummySchedule());
+        testee.put(bcnToBgy, getDummySchedule());
+        BDDAssertions.then(testee.peek(dubToStn)).isNotNull();
+        testee.put(dubToWro, getDummySchedule());
+
+        BDDAssertions.then(testee.peek(dubToStn)).isNull();
+        BDDAssertions.then(testee.peek(bcnToBgy)).isNotNull();
+        BDDAssertions.then(testee.peek(dubToWro)).isNotNull();
+    }
+
+    @Test
+    void shouldExpireEmptyMonthsAfterNegativeTtl() {
+        ScheduleCache testee = new ScheduleCache(Duration.ofMinutes(15), Duration.ZERO, 10);
+        testee.put(dubToStn, new Schedule(3, List.of()));
+        testee.put(bcnToBgy, getDummySchedule());
+
+        BDDAssertions.then(testee.get(dubToStn)).isNull();
+        BDDAssertions.then(testee.get(bcnToBgy)).isNotNull();
+        BDDAssertions.then(testee.size()).isEqualTo(1);
+    }
+
+    private Schedule getDummySchedule() {
+        return new Schedule(3, List.of(new DaySchedule(2, List.of(new FlightSchedule(1, "16:00", "18:00")))));
+    }
+}
@@ -0,0 +1,161 @@
+package com.pet.flights.cache;
+
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ExecutorService loadExecutor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+        loadExecutor.shutdownNow();
+    }
+
+    @Test
+    void shouldShareOneLoadBetweenConcurrentCallers() throws Exception {
+        SingleFlight<String, String> testee = new SingleFlight<>(loadExecutor, Duration.ofSeconds(5));
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> testee.execute("DUB-STN", () -> {
+            loads.incrementAndGet();
+            loaderStarted.countDown();
+            await(releaseLoader);
+            return "schedule";
+        }));
+        loaderStarted.await();
+        Future<String> follower = submitAndAwaitBlocked(() -> testee.execute("DUB-STN", () -> {
+            loads.incrementAndGet();
+            return "other schedule";
+        }));
+        releaseLoader.countDown();
+
+        BDDAssertions.then(leader.get()).isEqualTo("schedule");
+        BDDAssertions.then(follower.get()).isEqualTo("schedule");
+        BDDAssertions.then(loads.get()).isEqualTo(1);
+        BDDAssertions.then(testee.getInFlightCount()).isZero();
+    }
+
+    @Test
+    void shouldPropagateFailureToWaitingCallers() throws Exception {
+        SingleFlight<String, String> testee = new SingleFlight<>(loadExecutor, Duration.ofSeconds(5));
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> testee.execute("DUB-STN", () -> {
+            loaderStarted.countDown();
+            await(releaseLoader);
+            throw new ResourceAccessException("upstream down");
+        }));
+        loaderStarted.await();
+        Future<String> follower = submitAndAwaitBlocked(() -> testee.execute("DUB-STN", () -> "other schedule"));
+        releaseLoader.countDown();
+
+        ExecutionException leaderFailure = Assertions.assertThrows(ExecutionException.class, leader::get);
+        ExecutionException followerFailure = Assertions.assertThrows(ExecutionException.class, follower::get);
+        BDDAssertions.then(leaderFailure.getCause()).hasMessage("upstream down");
+        BDDAssertions.then(followerFailure.getCause()).isSameAs(leaderFailure.getCause());
+    }
+
+    @Test
+    void shouldReleaseWaitingCallersWhenLoaderThrowsAnError() throws Exception {
+        SingleFlight<String, String> testee = new SingleFlight<>(loadExecutor, Duration.ofSeconds(30));
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> testee.execute("DUB-STN", () -> {
+            loaderStarted.countDown();
+            await(releaseLoader);
+            throw new StackOverflowError("dummy error");
+        }));
+        loaderStarted.await();
+        Future<String> follower = submitAndAwaitBlocked(() -> testee.execute("DUB-STN", () -> "other schedule"));
+        releaseLoader.countDown();
+
+        BDDAssertions.then(Assertions.assertThrows(ExecutionException.class, leader::get).getCause())
+                .isInstanceOf(ResourceAccessException.class)
+                .hasMessageContaining("StackOverflowError");
+        BDDAssertions.then(Assertions.assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS))
+                .getCause()).isInstanceOf(ResourceAccessException.class);
+        BDDAssertions.then(testee.getInFlightCount()).isZero();
+        BDDAssertions.then(testee.execute("DUB-STN", () -> "schedule")).isEqualTo("schedule");
+    }
+
+    @Test
+    void shouldKeepLoadingForOtherCallersWhenTheFirstIsInterrupted() throws Exception {
+        SingleFlight<String, String> testee = new SingleFlight<>(loadExecutor, Duration.ofSeconds(5));
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        BlockingQueue<Thread> leaderThread = new ArrayBlockingQueue<>(1);
+
+        Future<String> leader = executor.submit(() -> {
+            leaderThread.add(Thread.currentThread());
+            return testee.execute("DUB-STN", () -> {
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return "schedule";
+            });
+        });
+        loaderStarted.await();
+        Future<String> follower = submitAndAwaitBlocked(() -> testee.execute("DUB-STN", () -> "other schedule"));
+        leaderThread.take().interrupt();
+
+        BDDAssertions.then(Assertions.assertThrows(ExecutionException.class, leader::get).getCause())
+                .isInstanceOf(ResourceAccessException.class)
+                .hasMessageContaining("Interrupted");
+        releaseLoader.countDown();
+        BDDAssertions.then(follower.get(5, TimeUnit.SECONDS)).isEqualTo("schedule");
+    }
+
+    @Test
+    void shouldTimeOutWaitingCallers() throws Exception {
+        SingleFlight<String, String> testee = new SingleFlight<>(loadExecutor, Duration.ofMillis(50));
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        executor.submit(() -> testee.execute("DUB-STN", () -> {
+            loaderStarted.countDown();
+            await(releaseLoader);
+            return "schedule";
+        }));
+        loaderStarted.await();
+
+        ResourceAccessException exception = Assertions.assertThrows(ResourceAccessException.class,
+                () -> testee.execute("DUB-STN", () -> "other schedule"));
+        releaseLoader.countDown();
+
+        BDDAssertions.then(exception.getMessage()).contains("Timed out");
+    }
+
+    private Future<String> submitAndAwaitBlocked(Callable<String> task) throws InterruptedException {
+        BlockingQueue<Thread> runner = new ArrayBlockingQueue<>(1);
+        Future<String> future = executor.submit(() -> {
+            runner.add(Thread.currentThread());
+            return task.call();
+        });
+        Thread thread = runner.take();
+        while (thread.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+        return future;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
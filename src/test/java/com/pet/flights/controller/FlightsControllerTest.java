@@ -0,0 +1,316 @@
+package com.pet.flights.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pet.flights.Exception.ControllerExceptionHandler;
+import com.pet.flights.Exception.TravelDateException;
+import com.pet.flights.graph.AirportPair;
+import com.pet.flights.model.FlightDetails;
+import com.pet.flights.model.Leg;
+import com.pet.flights.service.BatchSearchSink;
+import com.pet.flights.service.FlightDetailsByPair;
+import com.pet.flights.service.FlightDetailsPage;
+import com.pet.flights.service.FlightDetailsService;
+import com.pet.flights.service.ReactiveFlightDetailsService;
+import com.pet.flights.service.SearchPhases;
+import com.pet.flights.service.SearchResultCache;
+import com.pet.flights.service.SerializedPage;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class FlightsControllerTest {
+
+    @Mock
+    private FlightDetailsService flightDetailsService;
+
+    @Mock
+    private ReactiveFlightDetailsService reactiveFlightDetailsService;
+
+    @Mock
+    private SearchResultCache searchResultCache;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        FlightsController testee =
+                new FlightsController(flightDetailsService, reactiveFlightDetailsService, searchResultCache,
+                        new ObjectMapper(), true, 10);
+        mockMvc = MockMvcBuilders.standaloneSetup(testee)
+                .setControllerAdvice(new ControllerExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void shouldGroupItinerariesByPairAndTreatStarAsAnywhere() throws Exception {
+        Leg direct = new Leg("DUB", "WRO", "2023-03-02T16:00", "2023-03-02T18:00");
+        BDDMockito.given(flightDetailsService.getFlightDetailsByPair(List.of("DUB", "STN"), List.of(),
+                        "2023-03-01T07:00", "2023-03-03T07:00", 1))
+                .willReturn(new FlightDetailsByPair(
+                        Map.of(new AirportPair("DUB", "WRO"), List.of(new FlightDetails(List.of(direct)))),
+                        new SearchPhases()));
+
+        mockMvc.perform(get("/flights/interconnections/pairs")
+                        .param("departure", "DUB,STN")
+                        .param("arrival", "*")
+                        .param("departureDateTime", "2023-03-01T07:00")
+                        .param("arrivalDateTime", "2023-03-03T07:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].departure").value("DUB"))
+                .andExpect(jsonPath("$[0].arrival").value("WRO"))
+                .andExpect(jsonPath("$[0].flightDetails[0].legs[0].departureDateTime").value("2023-03-02T16:00"));
+    }
+
+    @Test
+    void shouldStreamOneResultLinePerBatchQuery() throws Exception {
+        Leg direct = new Leg("DUB", "WRO", "2023-03-02T16:00", "2023-03-02T18:00");
+        BDDMockito.lenient().when(flightDetailsService.prepareSearch("STN", "DUB", "2023-03-03T07:00", "2023-03-01T07:00",
+                1, null, null, null)).thenThrow(new TravelDateException("Departure date is after arrival dates"));
+        BDDMockito.willAnswer(invocation -> {
+            BatchSearchSink results = invocation.getArgument(1);
+            results.accept(0, new FlightDetailsPage(List.of(new FlightDetails(List.of(direct))), null));
+            return null;
+        }).given(flightDetailsService).getFlightDetailsPages(any(), any());
+
+        MvcResult result = mockMvc.perform(post("/flights/interconnections/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .content("[{\"departure\":\"DUB\",\"arrival\":\"WRO\","
+                                + "\"departureDateTime\":\"2023-03-01T07:00\",\"arrivalDateTime\":\"2023-03-03T07:00\"},"
+                                + "{\"departure\":\"STN\",\"arrival\":\"DUB\","
+                                + "\"departureDateTime\":\"2023-03-03T07:00\",\"arrivalDateTime\":\"2023-03-01T07:00\"},"
+                                + "{\"departure\":\"STN\"}]"))
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        BDDAssertions.then(body.split("\n")).containsExactly(
+                "{\"index\":1,\"error\":\"Departure date is after arrival dates\"}",
+                "{\"index\":2,\"error\":\"departure, arrival, departureDateTime and arrivalDateTime are required\"}",
+                "{\"index\":0,\"flightDetails\":[{\"stops\":0,\"legs\":[{\"departureAirport\":\"DUB\","
+                        + "\"arrivalAirport\":\"WRO\",\"departureDateTime\":\"2023-03-02T16:00\","
+                        + "\"arrivalDateTime\":\"2023-03-02T18:00\"}]}]}");
+    }
+
+    @Test
+    void shouldRejectBatchesAboveTheConfiguredSize() throws Exception {
+        String query = "{\"departure\":\"DUB\",\"arrival\":\"WRO\","
+                + "\"departureDateTime\":\"2023-03-01T07:00\",\"arrivalDateTime\":\"2023-03-03T07:00\"}";
+
+        mockMvc.perform(post("/flights/interconnections/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + String.join(",", Collections.nCopies(11, query)) + "]"))
+                .andExpect(status().isBadRequest());
+        BDDMockito.then(flightDetailsService).should(Mockito.never()).getFlightDetailsPages(any(), any());
+    }
+
+    @Test
+    void shouldStreamOneItineraryPerLineWhenNdjsonIsAccepted() throws Exception {
+        Leg direct = new Leg("DUB", "WRO", "2023-03-02T16:00", "2023-03-02T18:00");
+        Leg firstLeg = new Leg("DUB", "STN", "2023-03-02T08:00", "2023-03-02T09:00");
+        Leg secondLeg = new Leg("STN", "WRO", "2023-03-02T10:00", "2023-03-02T12:00");
+        BDDMockito.willAnswer(invocation -> {
+            Consumer<FlightDetails> flightDetails = invocation.getArgument(1);
+            flightDetails.accept(new FlightDetails(List.of(direct)));
+            flightDetails.accept(new FlightDetails(List.of(firstLeg, secondLeg)));
+            return null;
+        }).given(flightDetailsService).getFlightDetails(any(), any(), any());
+
+        MvcResult result = mockMvc.perform(get("/flights/interconnections")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("departure", "DUB")
+                        .param("arrival", "WRO")
+                        .param("departureDateTime", "2023-03-01T07:00")
+                        .param("arrivalDateTime", "2023-03-03T07:00"))
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        BDDAssertions.then(body.split("\n")).containsExactly(
+                "{\"stops\":0,\"legs\":[{\"departureAirport\":\"DUB\",\"arrivalAirport\":\"WRO\","
+                        + "\"departureDateTime\":\"2023-03-02T16:00\",\"arrivalDateTime\":\"2023-03-02T18:00\"}]}",
+                "{\"stops\":1,\"legs\":[{\"departureAirport\":\"DUB\",\"arrivalAirport\":\"STN\","
+                        + "\"departureDateTime\":\"2023-03-02T08:00\",\"arrivalDateTime\":\"2023-03-02T09:00\"},"
+                        + "{\"departureAirport\":\"STN\",\"arrivalAirport\":\"WRO\","
+                        + "\"departureDateTime\":\"2023-03-02T10:00\",\"arrivalDateTime\":\"2023-03-02T12:00\"}]}");
+        BDDAssertions.then(body).endsWith("\n");
+    }
+
+    @Test
+    void shouldEndTheStreamWithAPartialLineWhenRoutesWereSkipped() throws Exception {
+        BDDMockito.willAnswer(invocation -> {
+            SearchPhases phases = invocation.getArgument(2);
+            phases.addSkippedRoute();
+            return null;
+        }).given(flightDetailsService).getFlightDetails(any(), any(), any());
+
+        MvcResult result = mockMvc.perform(get("/flights/interconnections")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("departure", "DUB")
+                        .param("arrival", "WRO")
+                        .param("departureDateTime", "2023-03-01T07:00")
+                        .param("arrivalDateTime", "2023-03-03T07:00"))
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        BDDAssertions.then(body).isEqualTo("{\"partial\":true}\n");
+    }
+
+    @Test
+    void shouldRejectPagingParametersWhenNdjsonIsAccepted() throws Exception {
+        MvcResult result = mockMvc.perform(get("/flights/interconnections")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("departure", "DUB")
+                        .param("arrival", "WRO")
+                        .param("departureDateTime", "2023-03-01T07:00")
+                        .param("arrivalDateTime", "2023-03-03T07:00")
+                        .param("sort", "arrival")
+                        .param("limit", "1"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"message\":\"sort, limit and cursor are not supported for application/x-ndjson\"}\n"));
+        BDDMockito.then(flightDetailsService).should(Mockito.never()).getFlightDetails(any(), any(), any());
+    }
+
+    @Test
+    void shouldAnswerAnyAcceptedTypeWithTheJsonPage() throws Exception {
+        BDDMockito.given(flightDetailsService.getFlightDetailsPage(any()))
+                .willReturn(new FlightDetailsPage(List.of(), null, new SearchPhases()));
+
+        mockMvc.perform(get("/flights/interconnections")
+                        .accept(MediaType.ALL)
+                        .param("departure", "DUB")
+                        .param("arrival", "WRO")
+                        .param("departureDateTime", "2023-03-01T07:00")
+                        .param("arrivalDateTime", "2023-03-03T07:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string("[]"));
+        BDDMockito.then(flightDetailsService).should(Mockito.never()).getFlightDetails(any(), any(), any());
+    }
+
+    @Test
+    void shouldReturnNextCursorInHeader() throws Exception {
+        Leg direct = new Leg("DUB", "WRO", "2023-03-02T16:00", "2023-03-02T18:00");
+        BDDMockito.given(flightDetailsService.getFlightDetailsPage(any()))
+                .willReturn(new FlightDetailsPage(List.of(new FlightDetails(List.of(direct))), "next"));
+
+        mockMvc.perform(get("/flights/interconnections")
+                        .param("departure", "DUB")
+                        .param("arrival", "WRO")
+                        .param("departureDateTime", "2023-03-01T07:00")
+                        .param("arrivalDateTime", "2023-03-03T07:00")
+                        .param("sort", "arrival")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(FlightsController.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].legs[0].departureDateTime").value("2023-03-02T16:00"));
+    }
+
+    @Test
+    void shouldReturnSearchPhasesInServerTimingHeader() throws Exception {
+        SearchPhases phases = new SearchPhases();
+        BDDMockito.given(flightDetailsService.getFlightDetailsPage(any()))
+                .willReturn(new FlightDetailsPage(List.of(), null, phases));
+
+        mockMvc.perform(get("/flights/interconnections")
+                        .param("departure", "DUB")
+                        .param("arrival", "WRO")
+                        .param("departureDateTime", "2023-03-01T07:00")
+                        .param("arrivalDateTime", "2023-03-03T07:00"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(FlightsController.SERVER_TIMING_HEADER, phases.toServerTiming()))
+                .andExpect(header().doesNotExist(FlightsController.PARTIAL_RESULTS_HEADER));
+    }
+
+    @Test
+    void shouldFlagPartialResultsInHeader() throws Exception {
+        SearchPhases phases = new SearchPhases();
+        phases.addSkippedRoute();
+        BDDMockito.given(flightDetailsService.getFlightDetailsPage(any()))
+                .willReturn(new FlightDetailsPage(List.of(), null, phases));
+
+        mockMvc.perform(get("/flights/interconnections")
+                        .param("departure", "DUB")
+                        .param("arrival", "WRO")
+                        .param("departureDateTime", "2023-03-01T07:00")
+                        .param("arrivalDateTime", "2023-03-03T07:00"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(FlightsController.PARTIAL_RESULTS_HEADER, "true"));
+    }
+
+    @Test
+    void shouldAnswerCachedSearchWithoutSearching() throws Exception {
+        BDDMockito.given(searchResultCache.get(any()))
+                .willReturn(new SerializedPage("[{\"stops\":0}]".getBytes(), "next"));
+
+        mockMvc.perform(get("/flights/interconnections")
+                        .param("departure", "DUB")
+                        .param("arrival", "WRO")
+                        .param("departureDateTime", "2023-03-01T07:00")
+                        .param("arrivalDateTime", "2023-03-03T07:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string("[{\"stops\":0}]"))
+                .andExpect(header().string(FlightsController.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(header().string(FlightsController.SERVER_TIMING_HEADER, FlightsController.CACHED_SERVER_TIMING));
+        BDDMockito.then(flightDetailsService).should(Mockito.never()).getFlightDetailsPage(any());
+    }
+
+    @Test
+    void shouldCacheCompletePagesOnly() throws Exception {
+        Set<AirportPair> routes = Set.of(new AirportPair("DUB", "WRO"));
+        SearchPhases complete = new SearchPhases();
+        complete.setRoutes(routes);
+        SearchPhases partial = new SearchPhases();
+        partial.setRoutes(routes);
+        partial.addSkippedRoute();
+        BDDMockito.given(flightDetailsService.getFlightDetailsPage(any()))
+                .willReturn(new FlightDetailsPage(List.of(), null, complete))
+                .willReturn(new FlightDetailsPage(List.of(), null, partial));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/flights/interconnections")
+                            .param("departure", "DUB")
+                            .param("arrival", "WRO")
+                            .param("departureDateTime", "2023-03-01T07:00")
+                            .param("arrivalDateTime", "2023-03-03T07:00"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("[]"));
+        }
+        BDDMockito.then(searchResultCache).should(Mockito.times(1)).put(any(), any(), Mockito.eq(routes));
+    }
+}
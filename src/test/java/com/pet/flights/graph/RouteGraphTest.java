@@ -0,0 +1,120 @@
+package com.pet.flights.graph;
+
+import com.pet.flights.model.Route;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class RouteGraphTest {
+
+    private final RouteGraph testee = RouteGraph.of(getDummyRoutes());
+
+    @Test
+    void shouldInternEveryAirportOnce() {
+        BDDAssertions.then(testee.getAirportCount()).isEqualTo(6);
+        BDDAssertions.then(testee.getRouteCount()).isEqualTo(6);
+        BDDAssertions.then(testee.getAirportCode(testee.getAirportId("STN"))).isEqualTo("STN");
+        BDDAssertions.then(testee.getAirportId("XXX")).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldFindDirectRoutes() {
+        BDDAssertions.then(testee.hasRoute("DUB", "WRO")).isTrue();
+        BDDAssertions.then(testee.hasRoute("WRO", "DUB")).isFalse();
+        BDDAssertions.then(testee.hasRoute("DUB", "XXX")).isFalse();
+    }
+
+    @Test
+    void shouldListOutboundAndInboundAirports() {
+        BDDAssertions.then(testee.getDestinations("DUB")).containsExactlyInAnyOrder("WRO", "STN", "BGY");
+        BDDAssertions.then(testee.getOrigins("WRO")).containsExactlyInAnyOrder("DUB", "STN", "BGY");
+        BDDAssertions.then(testee.getDestinations("XXX")).isEmpty();
+    }
+
+    @Test
+    void shouldFindConnectingAirports() {
+        BDDAssertions.then(testee.getConnectingAirports("DUB", "WRO")).containsExactlyInAnyOrder("STN", "BGY");
+        BDDAssertions.then(testee.getConnectingAirports("BER", "WRO")).isEmpty();
+        BDDAssertions.then(testee.getConnectingAirports("DUB", "XXX")).isEmpty();
+    }
+
+    @Test
+    void shouldListRoutesOnPathsWithinLegLimit() {
+        BDDAssertions.then(testee.getRoutesOnPaths("DUB", "WRO", 1))
+                .containsExactly(new AirportPair("DUB", "WRO"));
+        BDDAssertions.then(testee.getRoutesOnPaths("DUB", "WRO", 2)).containsExactlyInAnyOrder(
+                new AirportPair("DUB", "WRO"),
+                new AirportPair("DUB", "STN"), new AirportPair("STN", "WRO"),
+                new AirportPair("DUB", "BGY"), new AirportPair("BGY", "WRO"));
+        BDDAssertions.then(testee.getRoutesOnPaths("BER", "WRO", 3)).isEmpty();
+        BDDAssertions.then(testee.getRoutesOnPaths("DUB", "XXX", 3)).isEmpty();
+    }
+
+    @Test
+    void shouldListRoutesOnPathsBetweenAirportSets() {
+        BDDAssertions.then(testee.getRoutesOnPaths(List.of("DUB", "STN"), List.of("WRO", "PRG"), 1))
+                .containsExactlyInAnyOrder(new AirportPair("DUB", "WRO"), new AirportPair("STN", "WRO"));
+        BDDAssertions.then(testee.getRoutesOnPaths(List.of("DUB", "STN", "XXX"), List.of("WRO"), 2))
+                .containsExactlyInAnyOrder(
+                        new AirportPair("DUB", "WRO"), new AirportPair("STN", "WRO"),
+                        new AirportPair("DUB", "BGY"), new AirportPair("BGY", "WRO"));
+        BDDAssertions.then(testee.getRoutesOnPaths(List.of("DUB"), List.of("DUB"), 2)).isEmpty();
+    }
+
+    @Test
+    void shouldListRoutesToAnywhereWithinLegLimit() {
+        BDDAssertions.then(testee.getRoutesOnPaths(List.of("DUB"), List.of(), 1)).containsExactlyInAnyOrder(
+                new AirportPair("DUB", "WRO"), new AirportPair("DUB", "STN"), new AirportPair("DUB", "BGY"));
+        BDDAssertions.then(testee.getRoutesOnPaths(List.of("DUB"), List.of(), 2)).containsExactlyInAnyOrder(
+                new AirportPair("DUB", "WRO"), new AirportPair("DUB", "STN"), new AirportPair("DUB", "BGY"),
+                new AirportPair("STN", "WRO"), new AirportPair("BGY", "WRO"));
+        BDDAssertions.then(testee.getRoutesOnPaths(List.of("XXX"), List.of(), 2)).isEmpty();
+    }
+
+    @Test
+    void shouldTellWhichAirportsAreReachableWithinLegLimit() {
+        RouteGraph chain = RouteGraph.of(List.of(getDummyRoute("DUB", "STN"), getDummyRoute("STN", "BGY"),
+                getDummyRoute("BGY", "WRO"), getDummyRoute("WRO", "PRG")));
+
+        BDDAssertions.then(testee.isReachable("DUB", "WRO", 1)).isTrue();
+        BDDAssertions.then(testee.isReachable("BER", "WRO", 3)).isFalse();
+        BDDAssertions.then(testee.isReachable("DUB", "XXX", 3)).isFalse();
+        BDDAssertions.then(chain.isReachable("DUB", "WRO", 2)).isFalse();
+        BDDAssertions.then(chain.isReachable("DUB", "WRO", 3)).isTrue();
+        BDDAssertions.then(chain.isReachable("DUB", "PRG", 3)).isFalse();
+        BDDAssertions.then(chain.isReachable("DUB", "PRG", 4)).isTrue();
+        BDDAssertions.then(chain.isReachable("PRG", "DUB", 4)).isFalse();
+    }
+
+    @Test
+    void shouldTellReachabilityAcrossBitmapWords() {
+        List<Route> routes = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            routes.add(getDummyRoute("DUB", "X" + i));
+        }
+        routes.add(getDummyRoute("X69", "WRO"));
+        RouteGraph fanOut = RouteGraph.of(routes);
+
+        BDDAssertions.then(fanOut.isReachable("DUB", "X69", 1)).isTrue();
+        BDDAssertions.then(fanOut.isReachable("DUB", "WRO", 1)).isFalse();
+        BDDAssertions.then(fanOut.isReachable("DUB", "WRO", 2)).isTrue();
+        BDDAssertions.then(fanOut.isReachable("X5", "WRO", 3)).isFalse();
+    }
+
+    private List<Route> getDummyRoutes() {
+        return List.of(
+                getDummyRoute("DUB", "WRO"),
+                getDummyRoute("STN", "WRO"),
+                getDummyRoute("DUB", "STN"),
+                getDummyRoute("DUB", "STN"),
+                getDummyRoute("DUB", "BGY"),
+                getDummyRoute("BGY", "WRO"),
+                getDummyRoute("BER", "PRG"));
+    }
+
+    private Route getDummyRoute(String airportFrom, String airportTo) {
+        return new Route(airportFrom, airportTo, null, true, true, "RYANAIR", "dummyGroup");
+    }
+}
@@ -0,0 +1,85 @@
+package com.pet.flights.resilience;
+
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+class CircuitBreakerTest {
+
+    @Test
+    void shouldOpenOnceFailureRateIsReached() {
+        CircuitBreaker testee = new CircuitBreaker("schedules", 4, 4, 0.5, Duration.ofMinutes(1));
+
+        for (boolean failure : new boolean[]{false, true, false}) {
+            BDDAssertions.then(testee.tryAcquire()).isTrue();
+            if (failure) {
+                testee.onFailure();
+            } else {
+                testee.onSuccess();
+            }
+        }
+        BDDAssertions.then(testee.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        testee.tryAcquire();
+        testee.onFailure();
+
+        BDDAssertions.then(testee.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        BDDAssertions.then(testee.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void shouldForgetCallsOutsideWindow() {
+        CircuitBreaker testee = new CircuitBreaker("schedules", 2, 2, 1.0, Duration.ofMinutes(1));
+
+        testee.tryAcquire();
+        testee.onFailure();
+        testee.tryAcquire();
+        testee.onSuccess();
+        testee.tryAcquire();
+        testee.onFailure();
+
+        BDDAssertions.then(testee.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldLetSingleTrialThroughAfterOpenDuration() {
+        CircuitBreaker testee = openCircuitBreaker();
+
+        BDDAssertions.then(testee.tryAcquire()).isTrue();
+        BDDAssertions.then(testee.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        BDDAssertions.then(testee.tryAcquire()).isFalse();
+
+        testee.onSuccess();
+
+        BDDAssertions.then(testee.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        BDDAssertions.then(testee.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldReopenWhenTrialFails() {
+        CircuitBreaker testee = openCircuitBreaker();
+
+        testee.tryAcquire();
+        testee.onFailure();
+
+        BDDAssertions.then(testee.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void shouldLetNextTrialThroughWhenTrialIsIgnored() {
+        CircuitBreaker testee = openCircuitBreaker();
+
+        testee.tryAcquire();
+        testee.onIgnored();
+
+        BDDAssertions.then(testee.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        BDDAssertions.then(testee.tryAcquire()).isTrue();
+    }
+
+    private CircuitBreaker openCircuitBreaker() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("schedules", 1, 1, 1.0, Duration.ZERO);
+        circuitBreaker.tryAcquire();
+        circuitBreaker.onFailure();
+        return circuitBreaker;
+    }
+}
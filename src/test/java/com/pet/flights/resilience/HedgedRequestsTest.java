@@ -0,0 +1,113 @@
+package com.pet.flights.resilience;
+
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class HedgedRequestsTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldTakeHedgeWhenFirstAttemptIsSlow() {
+        HedgedRequests testee = new HedgedRequests(executor, Duration.ofMillis(20), 1.0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String response = testee.execute(() -> attempts.incrementAndGet() == 1 ? awaitRelease("slow") : "fast");
+
+        BDDAssertions.then(response).isEqualTo("fast");
+        BDDAssertions.then(testee.getHedgeCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotHedgeFastRequest() {
+        HedgedRequests testee = new HedgedRequests(executor, Duration.ofSeconds(5), 1.0);
+
+        BDDAssertions.then(testee.execute(() -> "fast")).isEqualTo("fast");
+        BDDAssertions.then(testee.getHedgeCount()).isZero();
+    }
+
+    @Test
+    void shouldWaitForFirstAttemptWhenHedgeFails() {
+        HedgedRequests testee = new HedgedRequests(executor, Duration.ofMillis(20), 1.0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String response = testee.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(200);
+                return "slow";
+            }
+            throw new ResourceAccessException("hedge failed");
+        });
+
+        BDDAssertions.then(response).isEqualTo("slow");
+    }
+
+    @Test
+    void shouldFailWhenBothAttemptsFail() {
+        HedgedRequests testee = new HedgedRequests(executor, Duration.ofMillis(20), 1.0);
+
+        ResourceAccessException exception = Assertions.assertThrows(ResourceAccessException.class,
+                () -> testee.execute(() -> {
+                    sleep(50);
+                    throw new ResourceAccessException("upstream down");
+                }));
+
+        BDDAssertions.then(exception.getMessage()).isEqualTo("upstream down");
+    }
+
+    @Test
+    void shouldNotHedgeBeyondBudget() {
+        HedgedRequests testee = new HedgedRequests(executor, Duration.ofMillis(10), 0.0);
+
+        for (int i = 0; i < 3; i++) {
+            testee.execute(() -> {
+                sleep(30);
+                return "slow";
+            });
+        }
+
+        BDDAssertions.then(testee.getHedgeCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRunOnCallingThreadWhenDisabled() {
+        HedgedRequests testee = new HedgedRequests(executor, Duration.ZERO, 1.0);
+        Thread caller = Thread.currentThread();
+
+        BDDAssertions.then(testee.execute(() -> Thread.currentThread() == caller)).isTrue();
+    }
+
+    private String awaitRelease(String response) {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return response;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
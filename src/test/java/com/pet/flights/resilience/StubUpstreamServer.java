@@ -0,0 +1,113 @@
+package com.pet.flights.resilience;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP server standing in for an upstream API. Each path answers with a sequence of
+ * stubbed responses, the last of which repeats; a response can be delayed to simulate latency.
+ * Unstubbed paths answer 404.
+ */
+public final class StubUpstreamServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Map<String, Deque<Response>> responses = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+
+    private StubUpstreamServer(HttpServer server) {
+        this.server = server;
+    }
+
+    public static StubUpstreamServer start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        StubUpstreamServer stubServer = new StubUpstreamServer(server);
+        server.createContext("/", stubServer::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return stubServer;
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public StubUpstreamServer stub(String path, Response... sequence) {
+        responses.put(path, new ArrayDeque<>(List.of(sequence)));
+        return this;
+    }
+
+    public int getRequestCount(String path) {
+        AtomicInteger count = requestCounts.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        requestCounts.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+        Response response = nextResponse(path);
+        try {
+            Thread.sleep(response.delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status, body.length == 0 ? -1 : body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private Response nextResponse(String path) {
+        Deque<Response> sequence = responses.get(path);
+        if (sequence == null) {
+            return Response.status(404);
+        }
+        synchronized (sequence) {
+            return sequence.size() > 1 ? sequence.poll() : sequence.peek();
+        }
+    }
+
+    public static final class Response {
+        private final int status;
+        private final String body;
+        private final Duration delay;
+
+        private Response(int status, String body, Duration delay) {
+            this.status = status;
+            this.body = body;
+            this.delay = delay;
+        }
+
+        public static Response json(String body) {
+            return new Response(200, body, Duration.ZERO);
+        }
+
+        public static Response status(int status) {
+            return new Response(status, "", Duration.ZERO);
+        }
+
+        public Response after(Duration delay) {
+            return new Response(status, body, delay);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.pet.flights.search;
+
+import com.pet.flights.model.FlightDetails;
+import com.pet.flights.model.Leg;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+class ConnectionJoinerTest {
+
+    @Test
+    void shouldJoinOnlySecondLegsWithinLayoverWindowFromSameAirport() {
+        Leg firstLeg = new Leg("DUB", "STN", "2023-03-02T16:00", "2023-03-02T18:00");
+        Leg departingAtArrival = new Leg("STN", "WRO", "2023-03-02T18:00", "2023-03-02T20:00");
+        Leg departingWithinLayover1 = new Leg("STN", "WRO", "2023-03-02T19:59", "2023-03-02T21:59");
+        Leg departingWithinLayover2 = new Leg("STN", "WRO", "2023-03-02T18:30", "2023-03-02T20:30");
+        Leg departingAtEndOfLayover = new Leg("STN", "WRO", "2023-03-02T20:00", "2023-03-02T22:00");
+        Leg departingFromOtherAirport = new Leg("BGY", "WRO", "2023-03-02T19:00", "2023-03-02T21:00");
+
+        ConnectionJoiner testee = ConnectionJoiner.of(List.of(departingAtArrival, departingWithinLayover1,
+                departingAtEndOfLayover, departingFromOtherAirport, departingWithinLayover2), Duration.ofHours(2));
+        List<FlightDetails> connections = testee.join(List.of(firstLeg));
+
+        BDDAssertions.then(connections).extracting(FlightDetails::toString).containsExactly(
+                new FlightDetails(List.of(firstLeg, departingWithinLayover2)).toString(),
+                new FlightDetails(List.of(firstLeg, departingWithinLayover1)).toString());
+    }
+
+    @Test
+    void shouldJoinOnlySecondLegsLeavingAfterTheMinimumLayover() {
+        Leg firstLeg = new Leg("DUB", "STN", "2023-03-02T16:00", "2023-03-02T18:00");
+        Leg departingTooSoon = new Leg("STN", "WRO", "2023-03-02T18:29", "2023-03-02T20:29");
+        Leg departingAtMinimumLayover = new Leg("STN", "WRO", "2023-03-02T18:30", "2023-03-02T20:30");
+
+        ConnectionJoiner testee = ConnectionJoiner.of(List.of(departingTooSoon, departingAtMinimumLayover),
+                Duration.ofMinutes(30), Duration.ofHours(2));
+
+        BDDAssertions.then(testee.join(List.of(firstLeg))).extracting(FlightDetails::toString).containsExactly(
+                new FlightDetails(List.of(firstLeg, departingAtMinimumLayover)).toString());
+    }
+
+    @Test
+    void shouldJoinNothingWhenNoSecondLegLeavesTheConnectingAirport() {
+        Leg firstLeg = new Leg("DUB", "STN", "2023-03-02T16:00", "2023-03-02T18:00");
+        Leg secondLeg = new Leg("BGY", "WRO", "2023-03-02T19:00", "2023-03-02T21:00");
+
+        ConnectionJoiner testee = ConnectionJoiner.of(List.of(secondLeg), Duration.ofHours(2));
+
+        BDDAssertions.then(testee.join(List.of(firstLeg))).isEmpty();
+    }
+}
@@ -0,0 +1,150 @@
+package com.pet.flights.search;
+
+import com.pet.flights.model.FlightDetails;
+import com.pet.flights.model.Leg;
+import com.pet.flights.model.LegRange;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+class ConnectionScanSearchEngineTest {
+
+    private final ConnectionScanSearchEngine testee =
+            new ConnectionScanSearchEngine(Duration.ofMinutes(30), Duration.ofHours(3));
+
+    @Test
+    void shouldFindItinerariesUpToMaxStopsOrderedByStops() {
+        Leg direct = new Leg("DUB", "WRO", "2023-03-02T20:00", "2023-03-02T23:00");
+        Leg dubStn = new Leg("DUB", "STN", "2023-03-02T08:00", "2023-03-02T09:00");
+        Leg stnWro = new Leg("STN", "WRO", "2023-03-02T10:00", "2023-03-02T12:00");
+        Leg stnBgy = new Leg("STN", "BGY", "2023-03-02T09:30", "2023-03-02T11:00");
+        Leg bgyWro = new Leg("BGY", "WRO", "2023-03-02T12:00", "2023-03-02T14:00");
+
+        List<Leg> legs = List.of(bgyWro, stnBgy, stnWro, dubStn, direct);
+
+        BDDAssertions.then(testee.search(legs, new ItineraryQuery("DUB", "WRO", 2)))
+                .extracting(FlightDetails::toString).containsExactly(
+                        new FlightDetails(List.of(direct)).toString(),
+                        new FlightDetails(List.of(dubStn, stnWro)).toString(),
+                        new FlightDetails(List.of(dubStn, stnBgy, bgyWro)).toString());
+        BDDAssertions.then(testee.search(legs, new ItineraryQuery("DUB", "WRO", 0)))
+                .extracting(FlightDetails::toString)
+                .containsExactly(new FlightDetails(List.of(direct)).toString());
+    }
+
+    @Test
+    void shouldRespectMinimumAndMaximumLayover() {
+        Leg dubStn = new Leg("DUB", "STN", "2023-03-02T08:00", "2023-03-02T09:00");
+        Leg tooShort = new Leg("STN", "WRO", "2023-03-02T09:29", "2023-03-02T11:00");
+        Leg shortest = new Leg("STN", "WRO", "2023-03-02T09:30", "2023-03-02T11:00");
+        Leg longest = new Leg("STN", "WRO", "2023-03-02T11:59", "2023-03-02T13:00");
+        Leg tooLong = new Leg("STN", "WRO", "2023-03-02T12:00", "2023-03-02T13:00");
+
+        List<FlightDetails> itineraries = testee.search(
+                List.of(dubStn, tooShort, shortest, longest, tooLong), new ItineraryQuery("DUB", "WRO", 1));
+
+        BDDAssertions.then(itineraries).extracting(FlightDetails::toString).containsExactly(
+                new FlightDetails(List.of(dubStn, shortest)).toString(),
+                new FlightDetails(List.of(dubStn, longest)).toString());
+    }
+
+    @Test
+    void shouldNotVisitAnAirportTwice() {
+        Leg dubStn = new Leg("DUB", "STN", "2023-03-02T08:00", "2023-03-02T09:00");
+        Leg stnBgy = new Leg("STN", "BGY", "2023-03-02T10:00", "2023-03-02T11:00");
+        Leg bgyStn = new Leg("BGY", "STN", "2023-03-02T12:00", "2023-03-02T13:00");
+        Leg bgyDub = new Leg("BGY", "DUB", "2023-03-02T12:00", "2023-03-02T13:00");
+        Leg stnWro = new Leg("STN", "WRO", "2023-03-02T14:00", "2023-03-02T15:00");
+
+        List<FlightDetails> itineraries = testee.search(
+                List.of(dubStn, stnBgy, bgyStn, bgyDub, stnWro), new ItineraryQuery("DUB", "WRO", 3));
+
+        BDDAssertions.then(itineraries).isEmpty();
+    }
+
+    @Test
+    void shouldSearchAllOriginsAndDestinationsTogether() {
+        Leg dubWro = new Leg("DUB", "WRO", "2023-03-02T20:00", "2023-03-02T23:00");
+        Leg stnWro = new Leg("STN", "WRO", "2023-03-02T10:00", "2023-03-02T12:00");
+        Leg dubBgy = new Leg("DUB", "BGY", "2023-03-02T08:00", "2023-03-02T09:00");
+        Leg bgyKtw = new Leg("BGY", "KTW", "2023-03-02T10:00", "2023-03-02T12:00");
+        Leg dubStn = new Leg("DUB", "STN", "2023-03-02T08:00", "2023-03-02T09:00");
+        Leg wroKtw = new Leg("WRO", "KTW", "2023-03-02T13:00", "2023-03-02T14:00");
+
+        List<FlightDetails> itineraries = testee.search(List.of(dubWro, stnWro, dubBgy, bgyKtw, dubStn, wroKtw),
+                new ItineraryQuery(Set.of("DUB", "STN"), Set.of("WRO", "KTW"), 0, 1));
+
+        BDDAssertions.then(itineraries).extracting(FlightDetails::toString).containsExactlyInAnyOrder(
+                new FlightDetails(List.of(dubWro)).toString(),
+                new FlightDetails(List.of(stnWro)).toString(),
+                new FlightDetails(List.of(dubBgy, bgyKtw)).toString());
+    }
+
+    @Test
+    void shouldContinueThroughDestinationsWhenSearchingAnywhere() {
+        Leg dubStn = new Leg("DUB", "STN", "2023-03-02T08:00", "2023-03-02T09:00");
+        Leg stnWro = new Leg("STN", "WRO", "2023-03-02T10:00", "2023-03-02T12:00");
+        Leg stnDub = new Leg("STN", "DUB", "2023-03-02T10:00", "2023-03-02T11:00");
+
+        List<FlightDetails> itineraries = testee.search(List.of(dubStn, stnWro, stnDub),
+                new ItineraryQuery(Set.of("DUB"), Set.of(), 0, 1));
+
+        BDDAssertions.then(itineraries).extracting(FlightDetails::toString).containsExactly(
+                new FlightDetails(List.of(dubStn)).toString(),
+                new FlightDetails(List.of(dubStn, stnWro)).toString());
+    }
+
+    @Test
+    void shouldOnlyMaterializeLegsOfEmittedItineraries() {
+        Leg dubStn = new Leg("DUB", "STN", "2023-03-02T08:00", "2023-03-02T09:00");
+        Leg stnWro = new Leg("STN", "WRO", "2023-03-02T10:00", "2023-03-02T12:00");
+        Leg tooLate = new Leg("STN", "WRO", "2023-03-02T18:00", "2023-03-02T20:00");
+        Leg deadEnd = new Leg("STN", "BGY", "2023-03-02T10:00", "2023-03-02T11:00");
+        List<Leg> legs = List.of(dubStn, stnWro, tooLate, deadEnd);
+        Set<Leg> materialized = new HashSet<>();
+        LegRange range = LegRange.of(legs);
+        CandidateLegs candidateLegs = new CandidateLegs().add(new LegRange() {
+            @Override
+            public int size() {
+                return range.size();
+            }
+
+            @Override
+            public String getDepartureAirport(int index) {
+                return range.getDepartureAirport(index);
+            }
+
+            @Override
+            public String getArrivalAirport(int index) {
+                return range.getArrivalAirport(index);
+            }
+
+            @Override
+            public long getDepartureEpochMinute(int index) {
+                return range.getDepartureEpochMinute(index);
+            }
+
+            @Override
+            public long getArrivalEpochMinute(int index) {
+                return range.getArrivalEpochMinute(index);
+            }
+
+            @Override
+            public Leg get(int index) {
+                materialized.add(range.get(index));
+                return range.get(index);
+            }
+        });
+
+        List<FlightDetails> itineraries = new ArrayList<>();
+        testee.search(candidateLegs, new ItineraryQuery("DUB", "WRO", 1), itineraries::add);
+
+        BDDAssertions.then(itineraries).hasSize(1);
+        BDDAssertions.then(materialized).containsExactlyInAnyOrder(dubStn, stnWro);
+    }
+}
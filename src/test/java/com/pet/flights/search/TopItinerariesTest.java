@@ -0,0 +1,51 @@
+package com.pet.flights.search;
+
+import com.pet.flights.model.FlightDetails;
+import com.pet.flights.model.Leg;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class TopItinerariesTest {
+
+    private final FlightDetails early = getDummyFlight("2023-03-02T06:00", "2023-03-02T09:00");
+    private final FlightDetails short1 = getDummyFlight("2023-03-02T10:00", "2023-03-02T11:00");
+    private final FlightDetails late = getDummyFlight("2023-03-02T12:00", "2023-03-02T15:00");
+
+    @Test
+    void shouldKeepOnlyTheBestItinerariesInSortOrder() {
+        TopItineraries testee = new TopItineraries(ItinerarySort.DURATION, 2, null);
+
+        List.of(early, late, short1).forEach(testee);
+
+        BDDAssertions.then(testee.getItineraries()).containsExactly(short1, early);
+        BDDAssertions.then(testee.isFull()).isTrue();
+    }
+
+    @Test
+    void shouldRejectPartialItinerariesWorseThanTheKthResultOnceFull() {
+        TopItineraries testee = new TopItineraries(ItinerarySort.ARRIVAL, 1, null);
+        BDDAssertions.then(testee.mayAccept(0, Long.MAX_VALUE)).isTrue();
+
+        testee.accept(short1);
+
+        BDDAssertions.then(testee.mayAccept(early.getDepartureEpochMinute(), early.getArrivalEpochMinute())).isTrue();
+        BDDAssertions.then(testee.mayAccept(late.getDepartureEpochMinute(), late.getArrivalEpochMinute())).isFalse();
+    }
+
+    @Test
+    void shouldOnlyKeepItinerariesAfterTheCursor() {
+        ItineraryCursor cursor = ItineraryCursor.decode(
+                ItineraryCursor.after(ItinerarySort.DEPARTURE, short1).encode());
+        TopItineraries testee = new TopItineraries(ItinerarySort.DEPARTURE, 10, cursor);
+
+        List.of(early, late, short1).forEach(testee);
+
+        BDDAssertions.then(testee.getItineraries()).containsExactly(late);
+    }
+
+    private FlightDetails getDummyFlight(String departureDateTime, String arrivalDateTime) {
+        return new FlightDetails(List.of(new Leg("DUB", "WRO", departureDateTime, arrivalDateTime)));
+    }
+}
@@ -0,0 +1,175 @@
+package com.pet.flights.service;
+
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.graph.AirportPair;
+import com.pet.flights.graph.RouteGraph;
+import com.pet.flights.model.DaySchedule;
+import com.pet.flights.model.FlightDetails;
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Leg;
+import com.pet.flights.model.Route;
+import com.pet.flights.model.Schedule;
+import com.pet.flights.search.ConnectionScanSearchEngine;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionTableTest {
+
+    private final YearMonth thisMonth = YearMonth.now();
+    private final Map<ScheduleKey, Schedule> cachedSchedules = new HashMap<>();
+
+    @Mock
+    private RouteService routeService;
+
+    @Mock
+    private ScheduleService scheduleService;
+
+    private ExecutorService legFetchExecutor;
+
+    private ConnectionTable testee;
+
+    @BeforeEach
+    void setUp() {
+        legFetchExecutor = Executors.newFixedThreadPool(2);
+        testee = new ConnectionTable(routeService, scheduleService, legFetchExecutor,
+                new ConnectionScanSearchEngine(Duration.ZERO, Duration.ofHours(2)), 10, 2, 1, Duration.ofSeconds(10));
+        BDDMockito.given(routeService.getRouteGraph()).willReturn(RouteGraph.of(getDummyRoutes()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        legFetchExecutor.shutdownNow();
+    }
+
+    @Test
+    void shouldMaterializeOnlyPairsSearchedOftenEnough() {
+        givenSchedules();
+        testee.recordSearch("DUB", "WRO");
+        testee.recordSearch("DUB", "WRO");
+        testee.recordSearch("DUB", "STN");
+
+        testee.refresh();
+
+        BDDAssertions.then(testee.size()).isEqualTo(1);
+        BDDAssertions.then(testee.emitOneStopItineraries(getSearch("DUB", "WRO", 10, 12), itinerary -> {
+        })).isNotEmpty();
+        BDDAssertions.then(testee.emitOneStopItineraries(getSearch("DUB", "STN", 10, 12), itinerary -> {
+        })).isEmpty();
+    }
+
+    @Test
+    void shouldEmitConnectionsWithinSearchDaysOrderedByDeparture() {
+        givenSchedules();
+        testee.recordSearch("DUB", "WRO");
+        testee.recordSearch("DUB", "WRO");
+        testee.refresh();
+
+        List<FlightDetails> connections = new ArrayList<>();
+        BDDAssertions.then(testee.emitOneStopItineraries(getSearch("DUB", "WRO", 10, 12), connections::add))
+                .containsExactlyInAnyOrder(new AirportPair("DUB", "STN"), new AirportPair("STN", "WRO"));
+
+        BDDAssertions.then(connections).extracting(FlightDetails::toString).containsExactly(
+                new FlightDetails(List.of(getLeg("DUB", "STN", 10, "06:00", "08:00"),
+                        getLeg("STN", "WRO", 10, "09:00", "11:00"))).toString(),
+                new FlightDetails(List.of(getLeg("DUB", "STN", 11, "06:00", "08:00"),
+                        getLeg("STN", "WRO", 11, "09:00", "11:00"))).toString());
+    }
+
+    @Test
+    void shouldNotUseEntryBuiltFromScheduleNoLongerCached() {
+        givenSchedules();
+        testee.recordSearch("DUB", "WRO");
+        testee.recordSearch("DUB", "WRO");
+        testee.refresh();
+
+        ScheduleKey firstLegKey = new ScheduleKey("DUB", "STN", thisMonth.getYear(), thisMonth.getMonthValue());
+        cachedSchedules.put(firstLegKey, new Schedule(thisMonth.getMonthValue(), List.of()));
+
+        BDDAssertions.then(testee.emitOneStopItineraries(getSearch("DUB", "WRO", 10, 12), itinerary -> {
+        })).isEmpty();
+    }
+
+    @Test
+    void shouldNotUseEntryOutsideMaterializedMonths() {
+        givenSchedules();
+        testee.recordSearch("DUB", "WRO");
+        testee.recordSearch("DUB", "WRO");
+        testee.refresh();
+
+        LocalDateTime nextMonth = thisMonth.plusMonths(1).atDay(1).atStartOfDay();
+        FlightSearch search = new FlightSearch("DUB", "WRO", nextMonth, nextMonth.plusDays(2), 1,
+                null, Integer.MAX_VALUE, null);
+
+        BDDAssertions.then(testee.emitOneStopItineraries(search, itinerary -> {
+        })).isEmpty();
+    }
+
+    @Test
+    void shouldSkipPairWhoseSchedulesAreNotFetchedWithinTheDeadline() {
+        testee = new ConnectionTable(routeService, scheduleService, legFetchExecutor,
+                new ConnectionScanSearchEngine(Duration.ZERO, Duration.ofHours(2)), 10, 2, 1, Duration.ofMillis(100));
+        BDDMockito.given(scheduleService.getSchedule(any(ScheduleKey.class))).willAnswer(invocation -> {
+            Thread.sleep(5000);
+            return new Schedule(thisMonth.getMonthValue(), List.of());
+        });
+        testee.recordSearch("DUB", "WRO");
+        testee.recordSearch("DUB", "WRO");
+
+        long startedAt = System.nanoTime();
+        testee.refresh();
+
+        BDDAssertions.then(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(Duration.ofSeconds(2));
+        BDDAssertions.then(testee.size()).isZero();
+    }
+
+    private void givenSchedules() {
+        List<DaySchedule> firstLegDays = new ArrayList<>();
+        List<DaySchedule> secondLegDays = new ArrayList<>();
+        for (int day = 1; day <= thisMonth.lengthOfMonth(); day++) {
+            firstLegDays.add(new DaySchedule(day, List.of(new FlightSchedule(1, "06:00", "08:00"))));
+            secondLegDays.add(new DaySchedule(day, List.of(new FlightSchedule(2, "09:00", "11:00"))));
+        }
+        cachedSchedules.put(new ScheduleKey("DUB", "STN", thisMonth.getYear(), thisMonth.getMonthValue()),
+                new Schedule(thisMonth.getMonthValue(), firstLegDays));
+        cachedSchedules.put(new ScheduleKey("STN", "WRO", thisMonth.getYear(), thisMonth.getMonthValue()),
+                new Schedule(thisMonth.getMonthValue(), secondLegDays));
+        BDDMockito.given(scheduleService.getSchedule(any(ScheduleKey.class)))
+                .willAnswer(invocation -> cachedSchedules.get(invocation.<ScheduleKey>getArgument(0)));
+        BDDMockito.lenient().when(scheduleService.peekCachedSchedule(any(ScheduleKey.class)))
+                .thenAnswer(invocation -> cachedSchedules.get(invocation.<ScheduleKey>getArgument(0)));
+    }
+
+    private FlightSearch getSearch(String departure, String arrival, int fromDay, int toDay) {
+        return new FlightSearch(departure, arrival, thisMonth.atDay(fromDay).atTime(7, 0),
+                thisMonth.atDay(toDay).atTime(7, 0), 1, null, Integer.MAX_VALUE, null);
+    }
+
+    private Leg getLeg(String departure, String arrival, int day, String departureTime, String arrivalTime) {
+        String date = thisMonth.atDay(day).toString();
+        return new Leg(departure, arrival, date + "T" + departureTime, date + "T" + arrivalTime);
+    }
+
+    private List<Route> getDummyRoutes() {
+        return List.of(new Route("DUB", "STN", null, true, true, "RYANAIR", "dummyGroup"),
+                new Route("STN", "WRO", null, true, true, "RYANAIR", "dummyGroup"));
+    }
+}
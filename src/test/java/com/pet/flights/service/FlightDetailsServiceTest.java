@@ -1,27 +1,45 @@
 package com.pet.flights.service;
 
+import com.pet.flights.Exception.SearchParameterException;
+import com.pet.flights.Exception.SearchTimeoutException;
 import com.pet.flights.Exception.TravelDateException;
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.graph.AirportPair;
+import com.pet.flights.graph.RouteGraph;
+import com.pet.flights.model.DaySchedule;
 import com.pet.flights.model.FlightDetails;
 import com.pet.flights.model.FlightSchedule;
 import com.pet.flights.model.Leg;
 import com.pet.flights.model.Route;
+import com.pet.flights.model.Schedule;
+import com.pet.flights.search.ConnectionScanSearchEngine;
+import com.pet.flights.search.ItinerarySink;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.BDDMockito;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.ResourceAccessException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.lenient;
 
 @ExtendWith(MockitoExtension.class)
 class FlightDetailsServiceTest {
@@ -35,16 +53,40 @@ class FlightDetailsServiceTest {
     @Mock
     private RouteService routeService;
 
-    @InjectMocks
+    @Mock
+    private ConnectionTable connectionTable;
+
+    private ExecutorService legFetchExecutor;
+
+    private ExecutorService batchSearchExecutor;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private FlightDetailsService testee;
 
+    @BeforeEach
+    void setUp() {
+        legFetchExecutor = Executors.newFixedThreadPool(4);
+        batchSearchExecutor = Executors.newFixedThreadPool(2);
+        meterRegistry = new SimpleMeterRegistry();
+        testee = new FlightDetailsService(routeService, scheduleService, legFetchExecutor, batchSearchExecutor,
+                new ConnectionScanSearchEngine(Duration.ZERO, Duration.ofHours(2)), connectionTable,
+                Duration.ofSeconds(5), 3, 1, true, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        legFetchExecutor.shutdownNow();
+        batchSearchExecutor.shutdownNow();
+    }
+
     @Test
     void shouldGetDirectFlightDetails() throws TravelDateException {
 
         String departure = "DUB";
         String arrival = "WRO";
         String departureDateTime = "2023-03-01T07:00";
-        String arrivalDateTime = "2023-03-01T07:00";
+        String arrivalDateTime = "2023-03-02T07:00";
 
         String expectedDepartureTime1 = "2023-03-01T16:00";
         String expectedArrivalTime1 = "2023-03-01T18:00";
@@ -57,13 +99,9 @@ class FlightDetailsServiceTest {
         FlightDetails expectedDirectFlight1 = new FlightDetails(List.of(expectedDirectLeg1));
         FlightDetails expectedDirectFlight2 = new FlightDetails(List.of(expectedDirectLeg2));
 
-        BDDMockito.given(routeService.getAllRoutes())
-                .willReturn(getDummyRoutes());
-        List<FlightSchedule> dummyFlightSchedules = List.of(
-                getDummyFlightSchedule(expectedDepartureTime1, expectedArrivalTime1),
-                getDummyFlightSchedule(expectedDepartureTime2, expectedArrivalTime2));
-        BDDMockito.given(scheduleService.getAllSchedules(anyString(), anyString(),
-                any(LocalDateTime.class), any(LocalDateTime.class))).willReturn(dummyFlightSchedules);
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        givenFlights(expectedDirectLeg1, expectedDirectLeg2);
 
         List<FlightDetails> actualFlightDetails =
                 testee.getFlightDetails(departure, arrival, departureDateTime, arrivalDateTime);
@@ -111,20 +149,9 @@ class FlightDetailsServiceTest {
         Leg expectedLeg2 = new Leg(departure2, arrival2, expectedDepartureTime2, expectedArrivalTime2);
         FlightDetails expectedDirectFlight1 = new FlightDetails(List.of(expectedLeg1, expectedLeg2));
 
-        BDDMockito.given(routeService.getAllRoutes())
-                .willReturn(getDummyRoutes());
-        List<FlightSchedule> dummyFlightSchedule1 = List.of(
-                getDummyFlightSchedule(expectedDepartureTime1, expectedArrivalTime1));
-        List<FlightSchedule> dummyFlightSchedule2 = List.of(
-                getDummyFlightSchedule(expectedDepartureTime2, expectedArrivalTime2));
-
-        lenient().when(scheduleService.getAllSchedules(departure1, arrival1,
-                LocalDateTime.parse(departureDateTime, dateTimeFormatter),
-                LocalDateTime.parse(arrivalDateTime, dateTimeFormatter))).thenReturn(dummyFlightSchedule1);
-
-        lenient().when(scheduleService.getAllSchedules(departure2, arrival2,
-                LocalDateTime.parse(departureDateTime, dateTimeFormatter),
-                LocalDateTime.parse(arrivalDateTime, dateTimeFormatter))).thenReturn(dummyFlightSchedule2);
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        givenFlights(expectedLeg1, expectedLeg2);
 
         List<FlightDetails> actualFlightDetails =
                 testee.getFlightDetails(departure1, arrival2, departureDateTime, arrivalDateTime);
@@ -135,6 +162,332 @@ class FlightDetailsServiceTest {
         BDDAssertions.then(actualFlight1.toString()).isEqualTo(expectedDirectFlight1.toString());
     }
 
+    @Test
+    void shouldEmitDirectFlightsBeforeConnections() throws TravelDateException {
+        Leg directLeg = new Leg("DUB", "WRO", "2023-03-02T20:00", "2023-03-02T22:00");
+        Leg firstLeg = new Leg("DUB", "STN", "2023-03-02T16:00", "2023-03-02T18:00");
+        Leg secondLeg = new Leg("STN", "WRO", "2023-03-02T19:00", "2023-03-02T21:00");
+
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        givenFlights(directLeg, firstLeg, secondLeg);
+
+        List<FlightDetails> emitted = new ArrayList<>();
+        testee.getFlightDetails(testee.prepareSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00", 1),
+                emitted::add);
+
+        BDDAssertions.then(emitted).extracting(FlightDetails::toString).containsExactly(
+                new FlightDetails(List.of(directLeg)).toString(),
+                new FlightDetails(List.of(firstLeg, secondLeg)).toString());
+    }
+
+    @Test
+    void shouldRecordSearchPhases() throws TravelDateException {
+        Leg directLeg = new Leg("DUB", "WRO", "2023-03-02T20:00", "2023-03-02T22:00");
+        Leg firstLeg = new Leg("DUB", "STN", "2023-03-02T16:00", "2023-03-02T18:00");
+        Leg secondLeg = new Leg("STN", "WRO", "2023-03-02T19:00", "2023-03-02T21:00");
+
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        givenFlights(directLeg, firstLeg, secondLeg);
+
+        FlightDetailsPage page = testee.getFlightDetailsPage(
+                testee.prepareSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00", 1));
+        SearchPhases phases = page.getPhases();
+
+        BDDAssertions.then(phases.getScheduleFetches()).isEqualTo(3);
+        BDDAssertions.then(phases.getCandidateLegs()).isEqualTo(3);
+        BDDAssertions.then(phases.getItineraries()).isEqualTo(2);
+        for (SearchPhase phase : SearchPhase.values()) {
+            BDDAssertions.then(phases.getNanos(phase)).isNotNegative();
+            BDDAssertions.then(meterRegistry.get("flights.search.phase").tag("phase", phase.getTag()).timer().count())
+                    .isEqualTo(1);
+        }
+        BDDAssertions.then(phases.getTotalNanos()).isNotNegative();
+        BDDAssertions.then(meterRegistry.get("flights.search.itineraries").summary().totalAmount()).isEqualTo(2);
+        BDDAssertions.then(phases.toServerTiming())
+                .startsWith("routes;dur=")
+                .endsWith("fetches;desc=3, legs;desc=3, itineraries;desc=2");
+    }
+
+    @Test
+    void shouldTakeConnectionsOfHotPairsFromConnectionTable() throws TravelDateException {
+        Leg directLeg = new Leg("DUB", "WRO", "2023-03-02T20:00", "2023-03-02T22:00");
+        FlightDetails tabledConnection = new FlightDetails(List.of(
+                new Leg("DUB", "STN", "2023-03-02T16:00", "2023-03-02T18:00"),
+                new Leg("STN", "WRO", "2023-03-02T19:00", "2023-03-02T21:00")));
+
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        BDDMockito.given(connectionTable.emitOneStopItineraries(any(FlightSearch.class), any(ItinerarySink.class)))
+                .willAnswer(invocation -> {
+                    invocation.<ItinerarySink>getArgument(1).accept(tabledConnection);
+                    return Set.of(new AirportPair("DUB", "STN"), new AirportPair("STN", "WRO"));
+                });
+        givenFlights(directLeg);
+
+        List<FlightDetails> actualFlightDetails =
+                testee.getFlightDetails("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00");
+
+        BDDAssertions.then(actualFlightDetails).containsExactly(
+                actualFlightDetails.get(0), tabledConnection);
+        BDDAssertions.then(actualFlightDetails.get(0).toString())
+                .isEqualTo(new FlightDetails(List.of(directLeg)).toString());
+        BDDMockito.then(scheduleService).should().getSchedule(new ScheduleKey("DUB", "WRO", 2023, 3));
+        BDDMockito.then(scheduleService).should(Mockito.never()).getSchedule(new ScheduleKey("DUB", "STN", 2023, 3));
+        BDDMockito.then(connectionTable).should().recordSearch("DUB", "WRO");
+    }
+
+    @Test
+    void shouldPageSortedResultsWithCursor() throws TravelDateException {
+        String departure = "DUB";
+        String arrival = "WRO";
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        givenFlights(new Leg(departure, arrival, "2023-03-01T16:00", "2023-03-01T18:00"),
+                new Leg(departure, arrival, "2023-03-01T12:00", "2023-03-01T13:00"),
+                new Leg(departure, arrival, "2023-03-01T09:00", "2023-03-01T12:00"));
+
+        FlightDetailsPage firstPage = testee.getFlightDetailsPage(testee.prepareSearch(departure, arrival,
+                "2023-03-01T07:00", "2023-03-02T07:00", 0, "duration", 2, null));
+        FlightDetailsPage secondPage = testee.getFlightDetailsPage(testee.prepareSearch(departure, arrival,
+                "2023-03-01T07:00", "2023-03-02T07:00", 0, null, 2, firstPage.getNextCursor()));
+
+        BDDAssertions.then(firstPage.getFlightDetails()).extracting(FlightDetails::toString).containsExactly(
+                new FlightDetails(List.of(new Leg(departure, arrival, "2023-03-01T12:00", "2023-03-01T13:00"))).toString(),
+                new FlightDetails(List.of(new Leg(departure, arrival, "2023-03-01T16:00", "2023-03-01T18:00"))).toString());
+        BDDAssertions.then(firstPage.getNextCursor()).isNotNull();
+        BDDAssertions.then(secondPage.getFlightDetails()).extracting(FlightDetails::toString).containsExactly(
+                new FlightDetails(List.of(new Leg(departure, arrival, "2023-03-01T09:00", "2023-03-01T12:00"))).toString());
+        BDDAssertions.then(secondPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shouldNotIssueACursorWhenThePageHoldsTheLastItinerary() throws TravelDateException {
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        givenFlights(new Leg("DUB", "WRO", "2023-03-01T16:00", "2023-03-01T18:00"),
+                new Leg("DUB", "WRO", "2023-03-01T12:00", "2023-03-01T13:00"));
+
+        FlightDetailsPage page = testee.getFlightDetailsPage(testee.prepareSearch("DUB", "WRO",
+                "2023-03-01T07:00", "2023-03-02T07:00", 0, "duration", 2, null));
+
+        BDDAssertions.then(page.getFlightDetails()).hasSize(2);
+        BDDAssertions.then(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shouldRejectUnknownSortAndCursor() {
+        Assertions.assertThrows(SearchParameterException.class, () -> testee.prepareSearch("DUB", "WRO",
+                "2023-03-01T07:00", "2023-03-03T07:00", 1, "cheapest", null, null));
+        Assertions.assertThrows(SearchParameterException.class, () -> testee.prepareSearch("DUB", "WRO",
+                "2023-03-01T07:00", "2023-03-03T07:00", 1, null, 10, "not-a-cursor"));
+    }
+
+    @Test
+    void shouldAnswerPairsWithoutRouteWithinStopsBeforeFetching() throws TravelDateException {
+        BDDMockito.given(routeService.getRouteGraph()).willReturn(RouteGraph.of(getDummyRoutes()));
+
+        BDDAssertions.then(testee.getFlightDetails("BER", "WRO", "2023-03-01T07:00", "2023-03-03T07:00", 3)).isEmpty();
+        BDDAssertions.then(testee.getFlightDetails("COK", "WRO", "2023-03-01T07:00", "2023-03-03T07:00", 3)).isEmpty();
+
+        BDDMockito.then(scheduleService).shouldHaveNoInteractions();
+        BDDMockito.then(connectionTable).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void shouldRejectMoreStopsThanConfigured() {
+        SearchParameterException searchParameterException = Assertions.assertThrows(SearchParameterException.class,
+                () -> testee.getFlightDetails("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00", 4));
+
+        BDDAssertions.then(searchParameterException.getMessage()).isEqualTo("Number of stops must be between 0 and 3");
+    }
+
+    @Test
+    void shouldFailWhenLegFetchesExceedSearchDeadline() {
+        FlightDetailsService testee =
+                new FlightDetailsService(routeService, scheduleService, legFetchExecutor, batchSearchExecutor,
+                        new ConnectionScanSearchEngine(Duration.ZERO, Duration.ofHours(2)), connectionTable,
+                        Duration.ofMillis(50), 3, 1, false, new SimpleMeterRegistry());
+
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        BDDMockito.given(scheduleService.getSchedule(any(ScheduleKey.class))).willAnswer(invocation -> {
+            Thread.sleep(1000);
+            return new Schedule(3, List.of());
+        });
+
+        SearchTimeoutException searchTimeoutException = Assertions.assertThrows(SearchTimeoutException.class,
+                () -> testee.getFlightDetails("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00"));
+
+        BDDAssertions.then(searchTimeoutException.getMessage()).contains("PT0.05S");
+    }
+
+    @Test
+    void shouldFetchMonthsSharedByABatchOnce() throws TravelDateException {
+        Leg directLeg = new Leg("DUB", "WRO", "2023-03-02T20:00", "2023-03-02T22:00");
+        Leg firstLeg = new Leg("DUB", "STN", "2023-03-02T16:00", "2023-03-02T18:00");
+        Leg secondLeg = new Leg("STN", "WRO", "2023-03-02T19:00", "2023-03-02T21:00");
+
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        givenFlights(directLeg, firstLeg, secondLeg);
+
+        List<FlightSearch> searches = List.of(
+                testee.prepareSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00", 1),
+                testee.prepareSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00", 0),
+                testee.prepareSearch("STN", "WRO", "2023-03-02T07:00", "2023-03-03T07:00", 0));
+        Map<Integer, FlightDetailsPage> pages = new TreeMap<>();
+        testee.getFlightDetailsPages(searches, new BatchSearchSink() {
+            @Override
+            public void accept(int index, FlightDetailsPage page) {
+                pages.put(index, page);
+            }
+
+            @Override
+            public void fail(int index, RuntimeException error) {
+                throw error;
+            }
+        });
+
+        BDDAssertions.then(pages).containsOnlyKeys(0, 1, 2);
+        BDDAssertions.then(pages.get(0).getFlightDetails()).hasSize(2);
+        BDDAssertions.then(pages.get(1).getFlightDetails()).extracting(FlightDetails::toString)
+                .containsExactly(new FlightDetails(List.of(directLeg)).toString());
+        BDDAssertions.then(pages.get(2).getFlightDetails()).extracting(FlightDetails::toString)
+                .containsExactly(new FlightDetails(List.of(secondLeg)).toString());
+        for (ScheduleKey scheduleKey : List.of(new ScheduleKey("DUB", "WRO", 2023, 3),
+                new ScheduleKey("DUB", "STN", 2023, 3), new ScheduleKey("STN", "WRO", 2023, 3))) {
+            BDDMockito.then(scheduleService).should().getSchedule(scheduleKey);
+        }
+    }
+
+    @Test
+    void shouldReportAFailedSearchOfABatchWithoutFailingTheOthers() throws TravelDateException {
+        Leg directLeg = new Leg("DUB", "WRO", "2023-03-02T20:00", "2023-03-02T22:00");
+
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        BDDMockito.given(scheduleService.getSchedule(any(ScheduleKey.class))).willAnswer(invocation -> {
+            ScheduleKey scheduleKey = invocation.getArgument(0);
+            if (scheduleKey.getMonth() == 4) {
+                throw new IllegalStateException("Schedules of April are broken");
+            }
+            return getDummySchedule(scheduleKey, List.of(directLeg));
+        });
+        FlightDetailsService testee =
+                new FlightDetailsService(routeService, scheduleService, legFetchExecutor, batchSearchExecutor,
+                        new ConnectionScanSearchEngine(Duration.ZERO, Duration.ofHours(2)), connectionTable,
+                        Duration.ofSeconds(5), 3, 1, false, new SimpleMeterRegistry());
+
+        List<FlightSearch> searches = List.of(
+                testee.prepareSearch("DUB", "WRO", "2023-04-01T07:00", "2023-04-03T07:00", 0),
+                testee.prepareSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00", 0));
+        Map<Integer, Object> results = new TreeMap<>();
+        testee.getFlightDetailsPages(searches, new BatchSearchSink() {
+            @Override
+            public void accept(int index, FlightDetailsPage page) {
+                results.put(index, page.getFlightDetails().size());
+            }
+
+            @Override
+            public void fail(int index, RuntimeException error) {
+                results.put(index, error.getMessage());
+            }
+        });
+
+        BDDAssertions.then(results).containsExactly(
+                Map.entry(0, "Schedules of April are broken"), Map.entry(1, 1));
+    }
+
+    @Test
+    void shouldGroupItinerariesOfSeveralAirportsByPair() throws TravelDateException {
+        Leg directLeg = new Leg("DUB", "WRO", "2023-03-02T20:00", "2023-03-02T22:00");
+        Leg firstLeg = new Leg("DUB", "STN", "2023-03-02T16:00", "2023-03-02T18:00");
+        Leg secondLeg = new Leg("STN", "WRO", "2023-03-02T19:00", "2023-03-02T21:00");
+
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        givenFlights(directLeg, firstLeg, secondLeg);
+
+        FlightDetailsByPair byPair = testee.getFlightDetailsByPair(List.of("DUB", "BER"), List.of(),
+                "2023-03-01T07:00", "2023-03-03T07:00", 1);
+
+        BDDAssertions.then(byPair.getFlightDetails()).containsOnlyKeys(
+                new AirportPair("DUB", "STN"), new AirportPair("DUB", "WRO"));
+        BDDAssertions.then(byPair.getFlightDetails().keySet()).extracting(AirportPair::getArrival)
+                .containsExactly("STN", "WRO");
+        BDDAssertions.then(byPair.getFlightDetails().get(new AirportPair("DUB", "WRO")))
+                .extracting(FlightDetails::toString).containsExactly(
+                        new FlightDetails(List.of(directLeg)).toString(),
+                        new FlightDetails(List.of(firstLeg, secondLeg)).toString());
+    }
+
+    @Test
+    void shouldLimitStopsOfAnywhereSearches() throws TravelDateException {
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        givenFlights();
+
+        SearchParameterException exception = Assertions.assertThrows(SearchParameterException.class,
+                () -> testee.getFlightDetailsByPair(List.of("DUB"), List.of(), "2023-03-01T07:00", "2023-03-03T07:00", 2));
+
+        BDDAssertions.then(exception.getMessage()).isEqualTo("Number of stops must be between 0 and 1");
+        BDDAssertions.then(testee.getFlightDetailsByPair(List.of("DUB"), List.of("STN", "WRO"),
+                "2023-03-01T07:00", "2023-03-03T07:00", 2).getFlightDetails()).isEmpty();
+    }
+
+    @Test
+    void shouldLeaveOutFailedRouteAndFlagResultsAsPartial() throws TravelDateException {
+        Leg directLeg = new Leg("DUB", "WRO", "2023-03-02T20:00", "2023-03-02T22:00");
+        Leg firstLeg = new Leg("DUB", "STN", "2023-03-02T16:00", "2023-03-02T18:00");
+        Leg secondLeg = new Leg("STN", "WRO", "2023-03-02T19:00", "2023-03-02T21:00");
+
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        BDDMockito.given(scheduleService.getSchedule(any(ScheduleKey.class))).willAnswer(invocation -> {
+            ScheduleKey scheduleKey = invocation.getArgument(0);
+            if (scheduleKey.getDeparture().equals("STN")) {
+                throw new ResourceAccessException("Schedules API circuit is open");
+            }
+            return getDummySchedule(scheduleKey, List.of(directLeg, firstLeg, secondLeg));
+        });
+
+        FlightDetailsPage page = testee.getFlightDetailsPage(
+                testee.prepareSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00", 1));
+
+        BDDAssertions.then(page.isPartial()).isTrue();
+        BDDAssertions.then(page.getPhases().getSkippedRoutes()).isEqualTo(1);
+        BDDAssertions.then(page.getFlightDetails()).extracting(FlightDetails::toString)
+                .containsExactly(new FlightDetails(List.of(directLeg)).toString());
+    }
+
+    @Test
+    void shouldReturnWhatArrivedBeforeDeadlineAsPartialResults() throws TravelDateException {
+        FlightDetailsService testee =
+                new FlightDetailsService(routeService, scheduleService, legFetchExecutor, batchSearchExecutor,
+                        new ConnectionScanSearchEngine(Duration.ZERO, Duration.ofHours(2)), connectionTable,
+                        Duration.ofMillis(200), 3, 1, true, new SimpleMeterRegistry());
+        Leg directLeg = new Leg("DUB", "WRO", "2023-03-02T20:00", "2023-03-02T22:00");
+
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(RouteGraph.of(getDummyRoutes()));
+        BDDMockito.given(scheduleService.getSchedule(any(ScheduleKey.class))).willAnswer(invocation -> {
+            ScheduleKey scheduleKey = invocation.getArgument(0);
+            if (!scheduleKey.getDeparture().equals("DUB") || !scheduleKey.getArrival().equals("WRO")) {
+                Thread.sleep(5000);
+            }
+            return getDummySchedule(scheduleKey, List.of(directLeg));
+        });
+
+        FlightDetailsPage page = testee.getFlightDetailsPage(
+                testee.prepareSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00", 1));
+
+        BDDAssertions.then(page.isPartial()).isTrue();
+        BDDAssertions.then(page.getPhases().getSkippedRoutes()).isEqualTo(2);
+        BDDAssertions.then(page.getFlightDetails()).hasSize(1);
+    }
+
     private List<Route> getDummyRoutes() {
         Route route1 = new Route("DUB", "WRO",
                 null, true, true, "RYANAIR", "dummyGroup");
@@ -149,9 +502,29 @@ class FlightDetailsServiceTest {
         return List.of(route1, route2, route3, route4, route5);
     }
 
-    private FlightSchedule getDummyFlightSchedule(String departureTime, String arrivalTime) {
-        return new FlightSchedule(1, departureTime, arrivalTime);
+    private void givenFlights(Leg... legs) {
+        BDDMockito.given(scheduleService.getSchedule(any(ScheduleKey.class)))
+                .willAnswer(invocation -> getDummySchedule(invocation.getArgument(0), List.of(legs)));
+    }
+
+    private Schedule getDummySchedule(ScheduleKey scheduleKey, List<Leg> legs) {
+        Map<Integer, List<FlightSchedule>> flightsByDay = new TreeMap<>();
+        for (Leg leg : legs) {
+            LocalDateTime departureDateTime = LocalDateTime.parse(leg.getDepartureDateTime(), dateTimeFormatter);
+            LocalDateTime arrivalDateTime = LocalDateTime.parse(leg.getArrivalDateTime(), dateTimeFormatter);
+            if (leg.getDepartureAirport().equals(scheduleKey.getDeparture())
+                    && leg.getArrivalAirport().equals(scheduleKey.getArrival())
+                    && departureDateTime.getYear() == scheduleKey.getYear()
+                    && departureDateTime.getMonthValue() == scheduleKey.getMonth()) {
+                flightsByDay.computeIfAbsent(departureDateTime.getDayOfMonth(), day -> new ArrayList<>())
+                        .add(new FlightSchedule(1, departureDateTime.toLocalTime().toString(),
+                                arrivalDateTime.toLocalTime().toString()));
+            }
+        }
+        List<DaySchedule> days = new ArrayList<>();
+        flightsByDay.forEach((day, flights) -> days.add(new DaySchedule(day, flights)));
+        return new Schedule(scheduleKey.getMonth(), days);
     }
 
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package com.pet.flights.service;
+
+import com.pet.flights.model.DaySchedule;
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Schedule;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+class MonthSliceTest {
+
+    @Test
+    void shouldCoverEveryMonthBetweenDepartureAndArrivalDay() {
+        List<MonthSlice> monthSlices = MonthSlice.between(
+                LocalDateTime.parse("2023-11-20T07:00"), LocalDateTime.parse("2024-02-10T07:00"));
+
+        BDDAssertions.then(monthSlices).extracting(MonthSlice::toString)
+                .containsExactly("2023-11[20,31)", "2023-12[1,32)", "2024-1[1,32)", "2024-2[1,10)");
+    }
+
+    @Test
+    void shouldLeaveOutMonthsWithoutDaysInTheWindow() {
+        BDDAssertions.then(MonthSlice.between(
+                        LocalDateTime.parse("2023-03-30T07:00"), LocalDateTime.parse("2023-04-01T07:00")))
+                .extracting(MonthSlice::toString).containsExactly("2023-3[30,32)");
+        BDDAssertions.then(MonthSlice.between(
+                LocalDateTime.parse("2023-03-01T07:00"), LocalDateTime.parse("2023-03-01T09:00"))).isEmpty();
+    }
+
+    @Test
+    void shouldSelectFlightsOnTheSliceDaysOnly() {
+        Schedule schedule = new Schedule(3, List.of(
+                new DaySchedule(1, List.of(new FlightSchedule(1, "06:00", "08:00"))),
+                new DaySchedule(2, List.of(new FlightSchedule(2, "16:00", "18:00")))));
+
+        List<FlightSchedule> flightSchedules = MonthSlice.between(
+                LocalDateTime.parse("2023-03-02T00:00"), LocalDateTime.parse("2023-03-03T00:00")).get(0).select(schedule);
+
+        BDDAssertions.then(flightSchedules).extracting(FlightSchedule::getNumber).containsExactly(2);
+        BDDAssertions.then(flightSchedules.get(0).getDepartureTime()).isEqualTo("2023-03-02T16:00");
+    }
+}
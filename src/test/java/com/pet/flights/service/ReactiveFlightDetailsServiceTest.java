@@ -0,0 +1,115 @@
+package com.pet.flights.service;
+
+import com.pet.flights.Exception.TravelDateException;
+import com.pet.flights.graph.RouteGraph;
+import com.pet.flights.model.EpochMinutes;
+import com.pet.flights.model.FlightDetails;
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Leg;
+import com.pet.flights.model.Route;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveFlightDetailsServiceTest {
+
+    @Mock
+    private ReactiveRouteService routeService;
+
+    @Mock
+    private ReactiveScheduleService scheduleService;
+
+    private ReactiveFlightDetailsService testee;
+
+    @BeforeEach
+    void setUp() {
+        testee = new ReactiveFlightDetailsService(routeService, scheduleService, 4, Duration.ZERO, Duration.ofHours(2));
+    }
+
+    @Test
+    void shouldEmitDirectFlightsThenInterConnectedFlights() throws TravelDateException {
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(Mono.just(RouteGraph.of(getDummyRoutes())));
+        givenSchedules("DUB", "WRO", getDummyFlightSchedule("2023-03-02T08:00", "2023-03-02T10:00"));
+        givenSchedules("DUB", "STN", getDummyFlightSchedule("2023-03-02T16:00", "2023-03-02T18:00"));
+        givenSchedules("STN", "WRO",
+                getDummyFlightSchedule("2023-03-02T19:00", "2023-03-02T21:00"),
+                getDummyFlightSchedule("2023-03-02T21:00", "2023-03-02T23:00"));
+
+        Leg expectedDirectLeg = new Leg("DUB", "WRO", "2023-03-02T08:00", "2023-03-02T10:00");
+        Leg expectedFirstLeg = new Leg("DUB", "STN", "2023-03-02T16:00", "2023-03-02T18:00");
+        Leg expectedSecondLeg = new Leg("STN", "WRO", "2023-03-02T19:00", "2023-03-02T21:00");
+
+        StepVerifier.create(testee.getFlightDetails("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00")
+                        .map(FlightDetails::toString))
+                .expectNext(new FlightDetails(List.of(expectedDirectLeg)).toString())
+                .expectNext(new FlightDetails(List.of(expectedFirstLeg, expectedSecondLeg)).toString())
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldFetchFirstAndSecondLegsConcurrently() throws TravelDateException {
+        BDDMockito.given(routeService.getRouteGraph())
+                .willReturn(Mono.just(RouteGraph.of(getDummyRoutes())));
+        Sinks.Empty<Void> firstLegsRequested = Sinks.empty();
+        givenSchedules("DUB", "WRO");
+        BDDMockito.given(scheduleService.getAllSchedules(eq("DUB"), eq("STN"), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .willReturn(Flux.just(getDummyFlightSchedule("2023-03-02T16:00", "2023-03-02T18:00"))
+                        .doOnSubscribe(subscription -> firstLegsRequested.tryEmitEmpty()));
+        BDDMockito.given(scheduleService.getAllSchedules(eq("STN"), eq("WRO"), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .willReturn(firstLegsRequested.asMono()
+                        .thenMany(Flux.just(getDummyFlightSchedule("2023-03-02T19:00", "2023-03-02T21:00"))));
+
+        Leg expectedFirstLeg = new Leg("DUB", "STN", "2023-03-02T16:00", "2023-03-02T18:00");
+        Leg expectedSecondLeg = new Leg("STN", "WRO", "2023-03-02T19:00", "2023-03-02T21:00");
+
+        StepVerifier.create(testee.getFlightDetails("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00")
+                        .map(FlightDetails::toString))
+                .expectNext(new FlightDetails(List.of(expectedFirstLeg, expectedSecondLeg)).toString())
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldThrowExceptionIfDepartureDateIsAfterArrivalDate() {
+        TravelDateException travelDateException = Assertions.assertThrows(TravelDateException.class,
+                () -> testee.getFlightDetails("DUB", "WRO", "2023-03-01T07:00", "2020-03-01T07:00"));
+
+        Assertions.assertEquals("Departure date is after arrival dates", travelDateException.getMessage());
+    }
+
+    private void givenSchedules(String departure, String arrival, FlightSchedule... flightSchedules) {
+        BDDMockito.given(scheduleService.getAllSchedules(eq(departure), eq(arrival),
+                any(LocalDateTime.class), any(LocalDateTime.class))).willReturn(Flux.just(flightSchedules));
+    }
+
+    private List<Route> getDummyRoutes() {
+        Route route1 = new Route("DUB", "WRO",
+                null, true, true, "RYANAIR", "dummyGroup");
+        Route route2 = new Route("STN", "WRO",
+                null, true, true, "RYANAIR", "dummyGroup");
+        Route route3 = new Route("DUB", "STN",
+                null, true, true, "RYANAIR", "dummyGroup");
+        return List.of(route1, route2, route3);
+    }
+
+    private FlightSchedule getDummyFlightSchedule(String departureTime, String arrivalTime) {
+        return new FlightSchedule(1, EpochMinutes.parse(departureTime), EpochMinutes.parse(arrivalTime));
+    }
+}
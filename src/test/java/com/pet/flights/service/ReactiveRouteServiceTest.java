@@ -0,0 +1,57 @@
+package com.pet.flights.service;
+
+import com.pet.flights.resilience.StubUpstreamServer;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+
+class ReactiveRouteServiceTest {
+
+    private static final String PATH = "/routes";
+    private static final String ROUTES = "[{\"airportFrom\":\"DUB\",\"airportTo\":\"WRO\",\"connectingAirport\":null,"
+            + "\"newRoute\":false,\"seasonalRoute\":false,\"operator\":\"RYANAIR\",\"group\":\"CITY\"}]";
+
+    private StubUpstreamServer upstream;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        upstream = StubUpstreamServer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+    }
+
+    @Test
+    void shouldServeTheLastLoadedGraphWhenAReloadFails() {
+        upstream.stub(PATH, StubUpstreamServer.Response.json(ROUTES), StubUpstreamServer.Response.status(503));
+        ReactiveRouteService testee = new ReactiveRouteService(WebClient.create(), upstream.getBaseUrl() + PATH, Duration.ZERO);
+
+        StepVerifier.create(testee.getRouteGraph())
+                .assertNext(graph -> BDDAssertions.then(graph.hasRoute("DUB", "WRO")).isTrue())
+                .verifyComplete();
+        StepVerifier.create(testee.getRouteGraph())
+                .assertNext(graph -> BDDAssertions.then(graph.hasRoute("DUB", "WRO")).isTrue())
+                .verifyComplete();
+
+        BDDAssertions.then(upstream.getRequestCount(PATH)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldFailWhenRoutesWereNeverLoaded() {
+        upstream.stub(PATH, StubUpstreamServer.Response.status(503));
+        ReactiveRouteService testee = new ReactiveRouteService(WebClient.create(), upstream.getBaseUrl() + PATH, Duration.ofHours(1));
+
+        StepVerifier.create(testee.getRouteGraph())
+                .expectError(WebClientResponseException.class)
+                .verify();
+    }
+}
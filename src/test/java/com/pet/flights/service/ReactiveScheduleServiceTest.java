@@ -0,0 +1,129 @@
+package com.pet.flights.service;
+
+import com.pet.flights.cache.ScheduleCache;
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Schedule;
+import com.pet.flights.resilience.CircuitBreaker;
+import com.pet.flights.resilience.StubUpstreamServer;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReactiveScheduleServiceTest {
+
+    private static final String PATH = "/schedules/DUB/WRO/years/2023/months/3";
+    private static final String SCHEDULE = "{\"month\":3,\"days\":[{\"day\":1,\"flights\":"
+            + "[{\"number\":\"1926\",\"departureTime\":\"06:25\",\"arrivalTime\":\"07:35\"}]}]}";
+
+    private final LocalDateTime departureDate = LocalDateTime.parse("2023-03-01T07:00");
+    private final LocalDateTime arrivalDate = LocalDateTime.parse("2023-03-03T07:00");
+    private final MonthSlice monthSlice = new MonthSlice(2023, Month.MARCH, 1, 3);
+    private final ScheduleKey dubToWro = new ScheduleKey("DUB", "WRO", 2023, 3);
+    private final FlightSchedule flight = new FlightSchedule(1926, 0L, 60L);
+
+    @Mock
+    private ScheduleService scheduleService;
+
+    private StubUpstreamServer upstream;
+    private ScheduleCache scheduleCache;
+    private CircuitBreaker circuitBreaker;
+    private ReactiveScheduleService testee;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        upstream = StubUpstreamServer.start();
+        scheduleCache = new ScheduleCache(Duration.ofMinutes(15), Duration.ofMinutes(5), 100);
+        circuitBreaker = new CircuitBreaker("schedules", 2, 1, 0.5, Duration.ofMinutes(1));
+        testee = new ReactiveScheduleService(WebClient.create(), upstream.getBaseUrl() + "/schedules/",
+                scheduleService, scheduleCache, circuitBreaker);
+        BDDMockito.given(scheduleService.getMonthSlices(departureDate, arrivalDate)).willReturn(List.of(monthSlice));
+        BDDMockito.given(scheduleService.getCachedSchedule(dubToWro))
+                .willAnswer(invocation -> scheduleCache.getIfPresent(dubToWro));
+        BDDMockito.given(scheduleService.getValidFlightSchedulesForDatesWithinMonth(ArgumentMatchers.any(), ArgumentMatchers.eq(monthSlice)))
+                .willReturn(List.of(flight));
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+    }
+
+    @Test
+    void shouldFetchMonthsThatAreNotCachedAndCacheThem() {
+        upstream.stub(PATH, StubUpstreamServer.Response.json(SCHEDULE));
+
+        StepVerifier.create(testee.getAllSchedules("DUB", "WRO", departureDate, arrivalDate))
+                .expectNext(flight)
+                .verifyComplete();
+        StepVerifier.create(testee.getAllSchedules("DUB", "WRO", departureDate, arrivalDate))
+                .expectNext(flight)
+                .verifyComplete();
+
+        BDDAssertions.then(upstream.getRequestCount(PATH)).isEqualTo(1);
+        BDDAssertions.then(scheduleCache.getIfPresent(dubToWro).getDays()).hasSize(1);
+        BDDMockito.then(scheduleService).should().recordUpstreamRequest(ArgumentMatchers.eq("success"), ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    void shouldShareOneRequestBetweenConcurrentSearches() {
+        upstream.stub(PATH, StubUpstreamServer.Response.json(SCHEDULE).after(Duration.ofMillis(300)));
+
+        StepVerifier.create(Flux.merge(
+                        testee.getAllSchedules("DUB", "WRO", departureDate, arrivalDate),
+                        testee.getAllSchedules("DUB", "WRO", departureDate, arrivalDate),
+                        testee.getAllSchedules("DUB", "WRO", departureDate, arrivalDate)))
+                .expectNext(flight, flight, flight)
+                .verifyComplete();
+
+        BDDAssertions.then(upstream.getRequestCount(PATH)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCacheAnEmptyScheduleWhenTheMonthIsNotFound() {
+        upstream.stub(PATH, StubUpstreamServer.Response.status(404));
+
+        StepVerifier.create(testee.getAllSchedules("DUB", "WRO", departureDate, arrivalDate))
+                .expectNext(flight)
+                .verifyComplete();
+
+        BDDAssertions.then(scheduleCache.getIfPresent(dubToWro).getDays()).isEmpty();
+        BDDAssertions.then(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldFailFastWithoutRequestingOnceTheCircuitIsOpen() {
+        upstream.stub(PATH, StubUpstreamServer.Response.status(503));
+
+        StepVerifier.create(testee.getAllSchedules("DUB", "WRO", departureDate, arrivalDate))
+                .expectError()
+                .verify();
+        StepVerifier.create(testee.getAllSchedules("DUB", "WRO", departureDate, arrivalDate))
+                .expectError(ResourceAccessException.class)
+                .verify();
+
+        BDDAssertions.then(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        BDDAssertions.then(upstream.getRequestCount(PATH)).isEqualTo(1);
+        BDDMockito.then(scheduleService).should().recordUpstreamRequest(ArgumentMatchers.eq("short_circuited"), ArgumentMatchers.anyLong());
+    }
+}
@@ -1,18 +1,27 @@
 package com.pet.flights.service;
 
 import com.pet.flights.model.Route;
+import com.pet.flights.resilience.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.BDDAssertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.BDDMockito;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @ExtendWith(MockitoExtension.class)
 class RouteServiceTest {
 
     private static final String RYANAIR = "RYANAIR";
+    private static final String expectedRoutesApi = "https://dummy.url";
     @Mock
     private RestTemplate restTemplate;
 
@@ -24,14 +33,118 @@ class RouteServiceTest {
         Route route2 = Mockito.mock(Route.class);
         BDDMockito.given(route2.getOperator()).willReturn(RYANAIR);
 
-        String expectedRoutesApi = "https://dummy.url";
         BDDMockito.given(restTemplate.getForObject(expectedRoutesApi, Route[].class))
                 .willReturn(new Route[]{route1, route2});
 
-        RouteService testee = new RouteService(restTemplate, expectedRoutesApi);
+        RouteService testee = new RouteService(restTemplate, expectedRoutesApi, Duration.ofHours(1), Duration.ofHours(6),
+                getCircuitBreaker(), new SimpleMeterRegistry(), Runnable::run);
+        testee.getAllRoutes();
+
+        Mockito.verify(restTemplate, Mockito.times(1)).getForObject(expectedRoutesApi, Route[].class);
+    }
+
+    @Test
+    public void shouldServeLoadedRoutesWithoutCallingApiAgain() {
+        BDDMockito.given(restTemplate.getForObject(expectedRoutesApi, Route[].class))
+                .willReturn(getDummyRoutes());
+
+        RouteService testee = new RouteService(restTemplate, expectedRoutesApi, Duration.ofHours(1), Duration.ofHours(6),
+                getCircuitBreaker(), new SimpleMeterRegistry(), Runnable::run);
+        List<Route> firstRoutes = testee.getAllRoutes();
+        List<Route> secondRoutes = testee.getAllRoutes();
+        testee.getRouteGraph();
+
+        BDDAssertions.then(secondRoutes).isSameAs(firstRoutes).hasSize(1);
+        Mockito.verify(restTemplate, Mockito.times(1)).getForObject(expectedRoutesApi, Route[].class);
+    }
+
+    @Test
+    public void shouldReplaceRoutesOnRefresh() {
+        BDDMockito.given(restTemplate.getForObject(expectedRoutesApi, Route[].class))
+                .willReturn(getDummyRoutes())
+                .willReturn(new Route[0]);
+
+        RouteService testee = new RouteService(restTemplate, expectedRoutesApi, Duration.ofHours(1), Duration.ofHours(6),
+                getCircuitBreaker(), new SimpleMeterRegistry(), Runnable::run);
+        testee.refreshRoutes();
+        testee.refreshRoutes();
+
+        BDDAssertions.then(testee.getAllRoutes()).isEmpty();
+        BDDAssertions.then(testee.getRouteGraph().getRouteCount()).isZero();
+    }
+
+    @Test
+    public void shouldKeepLastRoutesWhenReloadFails() {
+        BDDMockito.given(restTemplate.getForObject(expectedRoutesApi, Route[].class))
+                .willReturn(getDummyRoutes())
+                .willThrow(new ResourceAccessException("dummy failure"));
+
+        RouteService testee = new RouteService(restTemplate, expectedRoutesApi, Duration.ZERO, Duration.ZERO,
+                getCircuitBreaker(), new SimpleMeterRegistry(), Runnable::run);
+        testee.refreshRoutes();
+        testee.refreshRoutes();
+
+        BDDAssertions.then(testee.getAllRoutes()).hasSize(1);
+        BDDAssertions.then(testee.getRouteGraph().hasRoute("DUB", "STN")).isTrue();
+    }
+
+    @Test
+    public void shouldKeepLastRoutesWhenReloadReturnsNoBody() {
+        BDDMockito.given(restTemplate.getForObject(expectedRoutesApi, Route[].class))
+                .willReturn(getDummyRoutes())
+                .willReturn(null);
+
+        RouteService testee = new RouteService(restTemplate, expectedRoutesApi, Duration.ZERO, Duration.ZERO,
+                getCircuitBreaker(), new SimpleMeterRegistry(), Runnable::run);
+        testee.refreshRoutes();
+        testee.refreshRoutes();
+
+        BDDAssertions.then(testee.getAllRoutes()).hasSize(1);
+        Mockito.verify(restTemplate, Mockito.times(3)).getForObject(expectedRoutesApi, Route[].class);
+    }
+
+    @Test
+    public void shouldSkipRoutesWithoutOperator() {
+        BDDMockito.given(restTemplate.getForObject(expectedRoutesApi, Route[].class))
+                .willReturn(new Route[]{
+                        new Route("DUB", "STN", null, true, true, null, "dummyGroup"),
+                        new Route("DUB", "WRO", null, true, true, RYANAIR, "dummyGroup")});
+
+        RouteService testee = new RouteService(restTemplate, expectedRoutesApi, Duration.ofHours(1), Duration.ofHours(6),
+                getCircuitBreaker(), new SimpleMeterRegistry(), Runnable::run);
+
+        BDDAssertions.then(testee.getAllRoutes()).hasSize(1);
+        BDDAssertions.then(testee.getRouteGraph().hasRoute("DUB", "WRO")).isTrue();
+    }
+
+    @Test
+    public void shouldRefreshStaleRoutesOnTheRefreshExecutor() {
+        BDDMockito.given(restTemplate.getForObject(expectedRoutesApi, Route[].class))
+                .willReturn(getDummyRoutes())
+                .willReturn(new Route[0]);
+        List<Runnable> refreshes = new ArrayList<>();
+
+        RouteService testee = new RouteService(restTemplate, expectedRoutesApi, Duration.ZERO, Duration.ofHours(6),
+                getCircuitBreaker(), new SimpleMeterRegistry(), refreshes::add);
         testee.getAllRoutes();
 
+        BDDAssertions.then(testee.getAllRoutes()).hasSize(1);
+        BDDAssertions.then(refreshes).hasSize(1);
         Mockito.verify(restTemplate, Mockito.times(1)).getForObject(expectedRoutesApi, Route[].class);
+
+        refreshes.get(0).run();
+
+        BDDAssertions.then(testee.getAllRoutes()).isEmpty();
+    }
+
+    private CircuitBreaker getCircuitBreaker() {
+        return new CircuitBreaker("routes", 20, 10, 0.5, Duration.ofSeconds(30));
+    }
+
+    private Route[] getDummyRoutes() {
+        return new Route[]{
+                new Route("DUB", "STN", null, true, true, RYANAIR, "dummyGroup"),
+                new Route("DUB", "WRO", "STN", true, true, RYANAIR, "dummyGroup")};
     }
 
-}
\ No newline at end of file
+}
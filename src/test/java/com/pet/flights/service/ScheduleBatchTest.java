@@ -0,0 +1,103 @@
+package com.pet.flights.service;
+
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.graph.AirportPair;
+import com.pet.flights.model.DaySchedule;
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Leg;
+import com.pet.flights.model.LegRange;
+import com.pet.flights.model.Schedule;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduleBatchTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @Mock
+    private ScheduleService scheduleService;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldFetchEveryDistinctRouteMonthOnce() throws Exception {
+        AirportPair route = new AirportPair("DUB", "STN");
+        BDDMockito.given(scheduleService.getSchedule(any(ScheduleKey.class))).willAnswer(invocation -> {
+            ScheduleKey scheduleKey = invocation.getArgument(0);
+            return new Schedule(scheduleKey.getMonth(), List.of(
+                    new DaySchedule(15, List.of(new FlightSchedule(scheduleKey.getMonth(), "16:00", "18:00")))));
+        });
+
+        AirportPair otherRoute = new AirportPair("STN", "WRO");
+        ScheduleBatch testee = ScheduleBatch.submit(scheduleService, List.of(route, route, otherRoute),
+                LocalDateTime.parse("2023-03-01T07:00"), LocalDateTime.parse("2023-05-20T07:00"), executor);
+
+        BDDAssertions.then(testee.size()).isEqualTo(6);
+        BDDAssertions.then(legsOf(testee.getLegs(route, System.nanoTime() + 5_000_000_000L)))
+                .extracting(Leg::getDepartureDateTime)
+                .containsExactly("2023-03-15T16:00", "2023-04-15T16:00", "2023-05-15T16:00");
+        BDDAssertions.then(legsOf(testee.getLegs(otherRoute, System.nanoTime() + 5_000_000_000L))).hasSize(3);
+        Mockito.verify(scheduleService, Mockito.times(6)).getSchedule(any(ScheduleKey.class));
+    }
+
+    @Test
+    void shouldNotSubmitCachedMonths() throws Exception {
+        AirportPair route = new AirportPair("DUB", "STN");
+        ScheduleKey scheduleKey = new ScheduleKey("DUB", "STN", 2023, 3);
+        BDDMockito.given(scheduleService.getCachedSchedule(scheduleKey)).willReturn(new Schedule(3, List.of()));
+
+        ScheduleBatch testee = ScheduleBatch.submit(scheduleService, List.of(route),
+                LocalDateTime.parse("2023-03-01T07:00"), LocalDateTime.parse("2023-03-20T07:00"), executor);
+
+        BDDAssertions.then(legsOf(testee.getLegs(route, System.nanoTime()))).isEmpty();
+        Mockito.verify(scheduleService, Mockito.never()).getSchedule(any(ScheduleKey.class));
+    }
+
+    @Test
+    void shouldShareLegsOfTheSameScheduleAcrossBatches() throws Exception {
+        AirportPair route = new AirportPair("DUB", "STN");
+        Schedule schedule = new Schedule(3, List.of(
+                new DaySchedule(2, List.of(new FlightSchedule(1, "06:00", "08:00"))),
+                new DaySchedule(15, List.of(new FlightSchedule(2, "16:00", "18:00")))));
+        BDDMockito.given(scheduleService.getCachedSchedule(new ScheduleKey("DUB", "STN", 2023, 3))).willReturn(schedule);
+
+        List<Leg> wholeMonth = legsOf(ScheduleBatch.submit(scheduleService, List.of(route),
+                LocalDateTime.parse("2023-03-01T00:00"), LocalDateTime.parse("2023-03-31T00:00"), executor)
+                .getLegs(route, System.nanoTime()));
+        List<Leg> midMonth = legsOf(ScheduleBatch.submit(scheduleService, List.of(route),
+                LocalDateTime.parse("2023-03-10T00:00"), LocalDateTime.parse("2023-03-20T00:00"), executor)
+                .getLegs(route, System.nanoTime()));
+
+        BDDAssertions.then(wholeMonth).extracting(Leg::getDepartureDateTime)
+                .containsExactly("2023-03-02T06:00", "2023-03-15T16:00");
+        BDDAssertions.then(midMonth).singleElement().isSameAs(wholeMonth.get(1));
+    }
+
+    private static List<Leg> legsOf(List<LegRange> ranges) {
+        List<Leg> legs = new ArrayList<>();
+        for (LegRange range : ranges) {
+            for (int i = 0; i < range.size(); i++) {
+                legs.add(range.get(i));
+            }
+        }
+        return legs;
+    }
+}
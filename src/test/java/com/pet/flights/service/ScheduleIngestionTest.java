@@ -0,0 +1,156 @@
+package com.pet.flights.service;
+
+import com.pet.flights.cache.ScheduleCache;
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.model.Schedule;
+import com.pet.flights.resilience.CircuitBreaker;
+import com.pet.flights.resilience.HedgedRequests;
+import com.pet.flights.resilience.StubUpstreamServer;
+import com.pet.flights.store.ScheduleStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Re-polls cached months from a local stub upstream whose schedules change between polls.
+ */
+class ScheduleIngestionTest {
+
+    private final YearMonth nextMonth = YearMonth.now().plusMonths(1);
+    private final ScheduleKey dubToWro = new ScheduleKey("DUB", "WRO", nextMonth.getYear(), nextMonth.getMonthValue());
+    private final List<Object> events = new ArrayList<>();
+    private StubUpstreamServer upstream;
+    private ScheduleCache scheduleCache;
+    private ScheduleService scheduleService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        upstream = StubUpstreamServer.start();
+        startScheduleService(Duration.ofMinutes(15));
+    }
+
+    private void startScheduleService(Duration ttl) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setReadTimeout(5000);
+        scheduleCache = new ScheduleCache(ttl, Duration.ofMinutes(5), 100);
+        scheduleService = new ScheduleService(new RestTemplate(requestFactory), upstream.getBaseUrl() + "/schedules/",
+                scheduleCache, new ScheduleStore("", Duration.ofHours(24)), Duration.ofSeconds(10), Runnable::run, 4,
+                Duration.ofSeconds(5), new CircuitBreaker("schedules", 20, 10, 0.5, Duration.ofSeconds(30)),
+                new HedgedRequests(Runnable::run, Duration.ZERO, 0), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+    }
+
+    @Test
+    void shouldPatchOnlyTheChangedDaysOfARepolledMonth() {
+        upstream.stub(pathOf(dubToWro),
+                StubUpstreamServer.Response.json(schedule("06:25", "09:10")),
+                StubUpstreamServer.Response.json(schedule("06:25", "09:40")));
+        ScheduleIngestion testee = getTestee(10);
+        Schedule held = scheduleService.getSchedule(dubToWro);
+        scheduleService.getSchedule(dubToWro);
+
+        testee.poll();
+
+        Schedule patched = scheduleCache.peek(dubToWro);
+        BDDAssertions.then(patched).isNotSameAs(held);
+        BDDAssertions.then(patched.getDays().get(0)).isSameAs(held.getDays().get(0));
+        BDDAssertions.then(patched.getDays().get(1).getFlights().get(0).getDepartureTime()).isEqualTo("09:40");
+        BDDAssertions.then(events).singleElement()
+                .isInstanceOfSatisfying(ScheduleChangedEvent.class, event -> {
+                    BDDAssertions.then(event.getScheduleKey()).isEqualTo(dubToWro);
+                    BDDAssertions.then(event.getChangedDays()).containsExactly(2);
+                });
+    }
+
+    @Test
+    void shouldKeepTheCachedInstanceOfAnUnchangedMonth() {
+        upstream.stub(pathOf(dubToWro), StubUpstreamServer.Response.json(schedule("06:25", "09:10")));
+        ScheduleIngestion testee = getTestee(10);
+        Schedule held = scheduleService.getSchedule(dubToWro);
+        scheduleService.getSchedule(dubToWro);
+
+        testee.poll();
+
+        BDDAssertions.then(upstream.getRequestCount(pathOf(dubToWro))).isEqualTo(2);
+        BDDAssertions.then(scheduleCache.peek(dubToWro)).isSameAs(held);
+        BDDAssertions.then(events).isEmpty();
+    }
+
+    @Test
+    void shouldNeitherRepollNorKeepAliveMonthsNobodyAsksFor() throws InterruptedException {
+        startScheduleService(Duration.ofMillis(500));
+        YearMonth later = nextMonth.plusMonths(1);
+        ScheduleKey laterDubToWro = new ScheduleKey("DUB", "WRO", later.getYear(), later.getMonthValue());
+        upstream.stub(pathOf(dubToWro), StubUpstreamServer.Response.json(schedule("06:25", "09:10")));
+        upstream.stub(pathOf(laterDubToWro), StubUpstreamServer.Response.json(schedule("06:25", "09:10")));
+        scheduleService.getSchedule(dubToWro);
+        scheduleService.getSchedule(laterDubToWro);
+        scheduleService.getSchedule(laterDubToWro);
+        ScheduleIngestion testee = getTestee(10);
+
+        testee.poll();
+        testee.poll();
+        Thread.sleep(600);
+
+        BDDAssertions.then(upstream.getRequestCount(pathOf(dubToWro))).isEqualTo(1);
+        BDDAssertions.then(upstream.getRequestCount(pathOf(laterDubToWro))).isEqualTo(2);
+        BDDAssertions.then(scheduleCache.peek(dubToWro)).isNull();
+        BDDAssertions.then(scheduleCache.peek(laterDubToWro)).isNull();
+    }
+
+    @Test
+    void shouldRepollPopularAndNearMonthsFirst() {
+        YearMonth later = nextMonth.plusMonths(6);
+        ScheduleKey laterDubToWro = new ScheduleKey("DUB", "WRO", later.getYear(), later.getMonthValue());
+        ScheduleKey lastMonth = new ScheduleKey("DUB", "WRO", nextMonth.minusMonths(2).getYear(),
+                nextMonth.minusMonths(2).getMonthValue());
+        for (ScheduleKey scheduleKey : List.of(dubToWro, laterDubToWro, lastMonth)) {
+            upstream.stub(pathOf(scheduleKey), StubUpstreamServer.Response.json(schedule("06:25", "09:10")));
+            scheduleService.getSchedule(scheduleKey);
+        }
+        scheduleService.getSchedule(dubToWro);
+        scheduleService.getSchedule(laterDubToWro);
+        scheduleService.getSchedule(laterDubToWro);
+        scheduleService.getSchedule(lastMonth);
+        scheduleService.getSchedule(lastMonth);
+        ScheduleIngestion testee = getTestee(1);
+
+        testee.poll();
+
+        BDDAssertions.then(upstream.getRequestCount(pathOf(dubToWro))).isEqualTo(2);
+        BDDAssertions.then(upstream.getRequestCount(pathOf(laterDubToWro))).isEqualTo(1);
+        BDDAssertions.then(upstream.getRequestCount(pathOf(lastMonth))).isEqualTo(1);
+    }
+
+    private ScheduleIngestion getTestee(int monthsPerPoll) {
+        return new ScheduleIngestion(scheduleService, scheduleCache, new ScheduleStore("", Duration.ofHours(24)),
+                events::add, monthsPerPoll, new SimpleMeterRegistry());
+    }
+
+    private String schedule(String firstDayDeparture, String secondDayDeparture) {
+        return "{\"month\":" + nextMonth.getMonthValue() + ",\"days\":["
+                + "{\"day\":1,\"flights\":[{\"number\":\"1926\",\"departureTime\":\"" + firstDayDeparture
+                + "\",\"arrivalTime\":\"11:35\"}]},"
+                + "{\"day\":2,\"flights\":[{\"number\":\"1926\",\"departureTime\":\"" + secondDayDeparture
+                + "\",\"arrivalTime\":\"12:35\"}]}]}";
+    }
+
+    private static String pathOf(ScheduleKey scheduleKey) {
+        return "/schedules/" + scheduleKey.getDeparture() + "/" + scheduleKey.getArrival()
+                + "/years/" + scheduleKey.getYear() + "/months/" + scheduleKey.getMonth();
+    }
+}
@@ -1,8 +1,13 @@
 package com.pet.flights.service;
 
+import com.pet.flights.cache.ScheduleCache;
 import com.pet.flights.model.DaySchedule;
 import com.pet.flights.model.FlightSchedule;
 import com.pet.flights.model.Schedule;
+import com.pet.flights.resilience.CircuitBreaker;
+import com.pet.flights.resilience.HedgedRequests;
+import com.pet.flights.store.ScheduleStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.BDDAssertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,8 +15,11 @@ import org.mockito.BDDMockito;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -42,7 +50,8 @@ class ScheduleServiceTest {
         BDDMockito.given(restTemplate.getForObject(expectedUrl, Schedule.class))
                 .willReturn(schedule);
 
-        ScheduleService testee = new ScheduleService(restTemplate, expectedSchedulesApi);
+        ScheduleService testee = new ScheduleService(restTemplate, expectedSchedulesApi, getScheduleCache(), getScheduleStore(), Duration.ofSeconds(10), Runnable::run, 4, Duration.ofSeconds(5),
+                getCircuitBreaker(), getHedgedRequests(), new SimpleMeterRegistry());
         testee.getAllSchedules(dummyDeparture, dummyArrival, departureDateTimeld, arrivalDateTimeld);
 
         Mockito.verify(restTemplate, Mockito.times(1))
@@ -78,7 +87,8 @@ class ScheduleServiceTest {
         BDDMockito.given(restTemplate.getForObject(expectedUrl, Schedule.class))
                 .willReturn(dummySchedule);
 
-        ScheduleService testee = new ScheduleService(restTemplate, expectedSchedulesApi);
+        ScheduleService testee = new ScheduleService(restTemplate, expectedSchedulesApi, getScheduleCache(), getScheduleStore(), Duration.ofSeconds(10), Runnable::run, 4, Duration.ofSeconds(5),
+                getCircuitBreaker(), getHedgedRequests(), new SimpleMeterRegistry());
         List<FlightSchedule> actualSchedules =
                 testee.getAllSchedules(dummyDeparture, dummyArrival, departureDateTimeld, arrivalDateTimeld);
 
@@ -106,6 +116,95 @@ class ScheduleServiceTest {
 
     }
 
+    @Test
+    public void shouldServeRepeatedMonthFromCache() {
+        Schedule dummySchedule = getDummySchedule(List.of(getDummyFlightSchedule("16:00", "18:00")));
+        LocalDateTime departureDateTime = LocalDateTime.parse("2023-03-01T07:00", dateTimeFormatter);
+        LocalDateTime arrivalDateTime = LocalDateTime.parse("2023-03-03T07:00", dateTimeFormatter);
+
+        String expectedSchedulesApi = "https://dummy.url/";
+        String expectedUrl = expectedSchedulesApi + "dummyDeparture/dummyArrival/years/2023/months/3";
+
+        BDDMockito.given(restTemplate.getForObject(expectedUrl, Schedule.class))
+                .willReturn(dummySchedule);
+
+        ScheduleCache scheduleCache = getScheduleCache();
+        ScheduleService testee = new ScheduleService(restTemplate, expectedSchedulesApi, scheduleCache, getScheduleStore(), Duration.ofSeconds(10), Runnable::run, 4, Duration.ofSeconds(5),
+                getCircuitBreaker(), getHedgedRequests(), new SimpleMeterRegistry());
+        testee.getAllSchedules("dummyDeparture", "dummyArrival", departureDateTime, arrivalDateTime);
+        List<FlightSchedule> actualSchedules =
+                testee.getAllSchedules("dummyDeparture", "dummyArrival", departureDateTime, arrivalDateTime);
+
+        BDDAssertions.then(actualSchedules).hasSize(1);
+        BDDAssertions.then(scheduleCache.getHitCount()).isEqualTo(1);
+        Mockito.verify(restTemplate, Mockito.times(1))
+                .getForObject(expectedUrl, Schedule.class);
+    }
+
+    @Test
+    public void shouldCacheMonthWithoutScheduleAsEmpty() {
+        LocalDateTime departureDateTime = LocalDateTime.parse("2023-03-01T07:00", dateTimeFormatter);
+        LocalDateTime arrivalDateTime = LocalDateTime.parse("2023-03-03T07:00", dateTimeFormatter);
+
+        String expectedSchedulesApi = "https://dummy.url/";
+        String expectedUrl = expectedSchedulesApi + "dummyDeparture/dummyArrival/years/2023/months/3";
+
+        BDDMockito.given(restTemplate.getForObject(expectedUrl, Schedule.class))
+                .willThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        ScheduleService testee = new ScheduleService(restTemplate, expectedSchedulesApi, getScheduleCache(), getScheduleStore(), Duration.ofSeconds(10), Runnable::run, 4, Duration.ofSeconds(5),
+                getCircuitBreaker(), getHedgedRequests(), new SimpleMeterRegistry());
+        List<FlightSchedule> firstSchedules =
+                testee.getAllSchedules("dummyDeparture", "dummyArrival", departureDateTime, arrivalDateTime);
+        List<FlightSchedule> secondSchedules =
+                testee.getAllSchedules("dummyDeparture", "dummyArrival", departureDateTime, arrivalDateTime);
+
+        BDDAssertions.then(firstSchedules).isEmpty();
+        BDDAssertions.then(secondSchedules).isEmpty();
+        Mockito.verify(restTemplate, Mockito.times(1))
+                .getForObject(expectedUrl, Schedule.class);
+    }
+
+    @Test
+    public void shouldTimeUpstreamRequestsByOutcome() {
+        LocalDateTime departureDateTime = LocalDateTime.parse("2023-03-01T07:00", dateTimeFormatter);
+        LocalDateTime arrivalDateTime = LocalDateTime.parse("2023-04-03T07:00", dateTimeFormatter);
+
+        String expectedSchedulesApi = "https://dummy.url/";
+        BDDMockito.given(restTemplate.getForObject(expectedSchedulesApi + "dummyDeparture/dummyArrival/years/2023/months/3",
+                        Schedule.class))
+                .willReturn(getDummySchedule(List.of()));
+        BDDMockito.given(restTemplate.getForObject(expectedSchedulesApi + "dummyDeparture/dummyArrival/years/2023/months/4",
+                        Schedule.class))
+                .willThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ScheduleService testee = new ScheduleService(restTemplate, expectedSchedulesApi, getScheduleCache(), getScheduleStore(), Duration.ofSeconds(10), Runnable::run, 4, Duration.ofSeconds(5),
+                getCircuitBreaker(), getHedgedRequests(), meterRegistry);
+        testee.getAllSchedules("dummyDeparture", "dummyArrival", departureDateTime, arrivalDateTime);
+
+        BDDAssertions.then(meterRegistry.get("upstream.schedules.requests").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+        BDDAssertions.then(meterRegistry.get("upstream.schedules.requests").tag("outcome", "not_found").timer().count())
+                .isEqualTo(1);
+    }
+
+    private ScheduleCache getScheduleCache() {
+        return new ScheduleCache(Duration.ofMinutes(15), Duration.ofMinutes(5), 100);
+    }
+
+    private CircuitBreaker getCircuitBreaker() {
+        return new CircuitBreaker("schedules", 20, 10, 0.5, Duration.ofSeconds(30));
+    }
+
+    private HedgedRequests getHedgedRequests() {
+        return new HedgedRequests(Runnable::run, Duration.ZERO, 0);
+    }
+
+    private ScheduleStore getScheduleStore() {
+        return new ScheduleStore("", Duration.ofHours(24));
+    }
+
     private Schedule getDummySchedule(List<FlightSchedule> flightSchedules) {
         DaySchedule daySchedule = new DaySchedule(2, flightSchedules);
         return new Schedule(3, List.of(daySchedule));
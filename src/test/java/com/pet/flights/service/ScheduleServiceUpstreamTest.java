@@ -0,0 +1,105 @@
+package com.pet.flights.service;
+
+import com.pet.flights.cache.ScheduleCache;
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.model.Schedule;
+import com.pet.flights.resilience.CircuitBreaker;
+import com.pet.flights.resilience.HedgedRequests;
+import com.pet.flights.resilience.StubUpstreamServer;
+import com.pet.flights.store.ScheduleStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the schedule client against a local stub upstream that can be slow or failing.
+ */
+class ScheduleServiceUpstreamTest {
+
+    private static final String SCHEDULE = "{\"month\":3,\"days\":[{\"day\":1,\"flights\":"
+            + "[{\"number\":\"1926\",\"departureTime\":\"06:25\",\"arrivalTime\":\"07:35\"}]}]}";
+
+    private StubUpstreamServer upstream;
+    private ExecutorService upstreamRequestExecutor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        upstream = StubUpstreamServer.start();
+        upstreamRequestExecutor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+        upstreamRequestExecutor.shutdownNow();
+    }
+
+    @Test
+    void shouldAnswerSlowRequestFromHedge() {
+        String path = "/schedules/DUB/WRO/years/2023/months/3";
+        upstream.stub(path,
+                StubUpstreamServer.Response.json(SCHEDULE).after(Duration.ofSeconds(2)),
+                StubUpstreamServer.Response.json(SCHEDULE));
+        ScheduleService testee = getScheduleService(new CircuitBreaker("schedules", 20, 10, 0.5, Duration.ofMinutes(1)),
+                Duration.ofMillis(100));
+
+        long startedAt = System.nanoTime();
+        Schedule schedule = testee.getSchedule(new ScheduleKey("DUB", "WRO", 2023, 3));
+
+        BDDAssertions.then(schedule.getDays().get(0).getFlights()).hasSize(1);
+        BDDAssertions.then(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(Duration.ofSeconds(2));
+        BDDAssertions.then(upstream.getRequestCount(path)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldStopCallingFailingUpstreamOnceCircuitIsOpen() {
+        for (int month = 1; month <= 4; month++) {
+            upstream.stub("/schedules/DUB/WRO/years/2023/months/" + month, StubUpstreamServer.Response.status(503));
+        }
+        CircuitBreaker circuitBreaker = new CircuitBreaker("schedules", 4, 2, 0.5, Duration.ofMinutes(1));
+        ScheduleService testee = getScheduleService(circuitBreaker, Duration.ZERO);
+
+        Assertions.assertThrows(HttpServerErrorException.class,
+                () -> testee.getSchedule(new ScheduleKey("DUB", "WRO", 2023, 1)));
+        Assertions.assertThrows(HttpServerErrorException.class,
+                () -> testee.getSchedule(new ScheduleKey("DUB", "WRO", 2023, 2)));
+        ResourceAccessException exception = Assertions.assertThrows(ResourceAccessException.class,
+                () -> testee.getSchedule(new ScheduleKey("DUB", "WRO", 2023, 3)));
+
+        BDDAssertions.then(exception.getMessage()).contains("circuit is open");
+        BDDAssertions.then(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        BDDAssertions.then(upstream.getRequestCount("/schedules/DUB/WRO/years/2023/months/3")).isZero();
+    }
+
+    @Test
+    void shouldNotCountMissingMonthAgainstCircuit() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("schedules", 2, 1, 0.5, Duration.ofMinutes(1));
+        ScheduleService testee = getScheduleService(circuitBreaker, Duration.ZERO);
+
+        Schedule schedule = testee.getSchedule(new ScheduleKey("DUB", "WRO", 2023, 5));
+
+        BDDAssertions.then(schedule.getDays()).isEmpty();
+        BDDAssertions.then(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private ScheduleService getScheduleService(CircuitBreaker circuitBreaker, Duration hedgeDelay) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setReadTimeout(5000);
+        return new ScheduleService(new RestTemplate(requestFactory), upstream.getBaseUrl() + "/schedules/",
+                new ScheduleCache(Duration.ofMinutes(15), Duration.ofMinutes(5), 100),
+                new ScheduleStore("", Duration.ofHours(24)), Duration.ofSeconds(10), Runnable::run, 4, Duration.ofSeconds(5),
+                circuitBreaker, new HedgedRequests(upstreamRequestExecutor, hedgeDelay, 1.0), new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,129 @@
+package com.pet.flights.service;
+
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.config.CacheMetricsConfiguration;
+import com.pet.flights.graph.AirportPair;
+import com.pet.flights.graph.RouteGraph;
+import com.pet.flights.model.Route;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+@ExtendWith(MockitoExtension.class)
+class SearchResultCacheTest {
+
+    private final RouteGraph routeGraph = RouteGraph.of(getDummyRoutes());
+    private final Set<AirportPair> routes = Set.of(new AirportPair("DUB", "STN"), new AirportPair("STN", "WRO"),
+            new AirportPair("DUB", "WRO"));
+
+    @Mock
+    private RouteService routeService;
+
+    @Mock
+    private ConnectionTable connectionTable;
+
+    @BeforeEach
+    void setUp() {
+        BDDMockito.given(routeService.getRouteGraph()).willReturn(routeGraph);
+    }
+
+    @Test
+    void shouldShareThePageOfSearchesOnTheSameDays() {
+        SearchResultCache testee = new SearchResultCache(routeService, connectionTable, 1024, Duration.ofMinutes(5));
+        SerializedPage page = new SerializedPage(new byte[10], null);
+        testee.put(getSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00"), page, routes);
+
+        BDDAssertions.then(testee.get(getSearch("DUB", "WRO", "2023-03-01T22:15", "2023-03-03T00:00"))).isSameAs(page);
+        BDDAssertions.then(testee.get(getSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-04T07:00"))).isNull();
+        BDDAssertions.then(testee.getHitCount()).isEqualTo(1);
+        BDDAssertions.then(testee.getMissCount()).isEqualTo(1);
+        BDDMockito.then(connectionTable).should().recordSearch("DUB", "WRO");
+    }
+
+    @Test
+    void shouldExposeHitsMissesAndBytesAsMeters() {
+        SearchResultCache testee = new SearchResultCache(routeService, connectionTable, 1024, Duration.ofMinutes(5));
+        MeterRegistry registry = new SimpleMeterRegistry();
+        new CacheMetricsConfiguration().searchResultCacheMetrics(testee).bindTo(registry);
+        FlightSearch search = getSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00");
+        testee.get(search);
+        testee.put(search, new SerializedPage(new byte[10], null), routes);
+        testee.get(search);
+
+        BDDAssertions.then(registry.get("flights.result.cache.requests").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+        BDDAssertions.then(registry.get("flights.result.cache.requests").tag("result", "miss").functionCounter().count())
+                .isEqualTo(1);
+        BDDAssertions.then(registry.get("flights.result.cache.size").gauge().value()).isEqualTo(1);
+        BDDAssertions.then(registry.get("flights.result.cache.bytes").gauge().value()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldDropPagesThatReadAChangedDay() {
+        SearchResultCache testee = new SearchResultCache(routeService, connectionTable, 1024, Duration.ofMinutes(5));
+        FlightSearch search = getSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00");
+        testee.put(search, new SerializedPage(new byte[10], null), routes);
+
+        testee.onScheduleChanged(new ScheduleChangedEvent(new ScheduleKey("STN", "WRO", 2023, 3), new TreeSet<>(List.of(3))));
+        testee.onScheduleChanged(new ScheduleChangedEvent(new ScheduleKey("DUB", "BCN", 2023, 3), new TreeSet<>(List.of(2))));
+        BDDAssertions.then(testee.get(search)).isNotNull();
+
+        testee.onScheduleChanged(new ScheduleChangedEvent(new ScheduleKey("STN", "WRO", 2023, 3), new TreeSet<>(List.of(2))));
+        BDDAssertions.then(testee.get(search)).isNull();
+        BDDAssertions.then(testee.getBytes()).isZero();
+    }
+
+    @Test
+    void shouldDropPagesOfAReplacedRouteGraph() {
+        SearchResultCache testee = new SearchResultCache(routeService, connectionTable, 1024, Duration.ofMinutes(5));
+        FlightSearch search = getSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00");
+        testee.put(search, new SerializedPage(new byte[10], null), routes);
+
+        BDDMockito.given(routeService.getRouteGraph()).willReturn(RouteGraph.of(getDummyRoutes()));
+
+        BDDAssertions.then(testee.get(search)).isNull();
+        BDDAssertions.then(testee.size()).isZero();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedPagesBeyondMaxBytes() {
+        SearchResultCache testee = new SearchResultCache(routeService, connectionTable, 25, Duration.ofMinutes(5));
+        FlightSearch first = getSearch("DUB", "WRO", "2023-03-01T07:00", "2023-03-03T07:00");
+        FlightSearch second = getSearch("DUB", "STN", "2023-03-01T07:00", "2023-03-03T07:00");
+        FlightSearch third = getSearch("STN", "WRO", "2023-03-01T07:00", "2023-03-03T07:00");
+        testee.put(first, new SerializedPage(new byte[10], null), routes);
+        testee.put(second, new SerializedPage(new byte[10], null), routes);
+        testee.get(first);
+        testee.put(third, new SerializedPage(new byte[10], null), routes);
+        testee.put(getSearch("DUB", "WRO", "2023-03-05T07:00", "2023-03-06T07:00"), new SerializedPage(new byte[30], null), routes);
+
+        BDDAssertions.then(testee.getEvictionCount()).isEqualTo(1);
+        BDDAssertions.then(testee.getBytes()).isEqualTo(20);
+        BDDAssertions.then(testee.get(second)).isNull();
+        BDDAssertions.then(testee.get(first)).isNotNull();
+        BDDAssertions.then(testee.get(third)).isNotNull();
+    }
+
+    private FlightSearch getSearch(String departure, String arrival, String departureDateTime, String arrivalDateTime) {
+        return new FlightSearch(departure, arrival, LocalDateTime.parse(departureDateTime),
+                LocalDateTime.parse(arrivalDateTime), 1, null, Integer.MAX_VALUE, null);
+    }
+
+    private List<Route> getDummyRoutes() {
+        return List.of(new Route("DUB", "STN", null, true, true, "RYANAIR", "dummyGroup"),
+                new Route("STN", "WRO", null, true, true, "RYANAIR", "dummyGroup"),
+                new Route("DUB", "WRO", null, true, true, "RYANAIR", "dummyGroup"));
+    }
+}
@@ -0,0 +1,171 @@
+package com.pet.flights.store;
+
+import com.pet.flights.cache.ScheduleKey;
+import com.pet.flights.model.DaySchedule;
+import com.pet.flights.model.FlightSchedule;
+import com.pet.flights.model.Schedule;
+import org.assertj.core.api.BDDAssertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+class ScheduleStoreTest {
+
+    private final ScheduleKey dubToStn = new ScheduleKey("DUB", "STN", 2023, 3);
+    private final ScheduleKey bcnToBgy = new ScheduleKey("BCN", "BGY", 2023, 4);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldServeSchedulesStoredByPreviousRun() {
+        try (ScheduleStore previousRun = new ScheduleStore(directory.toString(), Duration.ofHours(24))) {
+            previousRun.put(dubToStn, getDummySchedule());
+            previousRun.put(bcnToBgy, new Schedule(4, List.of()));
+        }
+
+        try (ScheduleStore testee = new ScheduleStore(directory.toString(), Duration.ofHours(24))) {
+            Schedule schedule = testee.get(dubToStn);
+
+            BDDAssertions.then(testee.size()).isEqualTo(2);
+            BDDAssertions.then(schedule.getMonth()).isEqualTo(3);
+            BDDAssertions.then(schedule.getDays()).hasSize(1);
+            BDDAssertions.then(schedule.getDays().get(0).getDay()).isEqualTo(1);
+            BDDAssertions.then(schedule.getDays().get(0).getFlights())
+                    .extracting(FlightSchedule::getNumber, FlightSchedule::getDepartureTime, FlightSchedule::getArrivalTime)
+                    .containsExactly(BDDAssertions.tuple(1926, "06:25", "07:35"),
+                            BDDAssertions.tuple(1928, "17:00", "18:10"));
+            BDDAssertions.then(testee.get(bcnToBgy).getDays()).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldServeStoredScheduleOnlyOnce() {
+        try (ScheduleStore previousRun = new ScheduleStore(directory.toString(), Duration.ofHours(24))) {
+            previousRun.put(dubToStn, getDummySchedule());
+        }
+
+        try (ScheduleStore testee = new ScheduleStore(directory.toString(), Duration.ofHours(24))) {
+            BDDAssertions.then(testee.get(dubToStn)).isNotNull();
+            BDDAssertions.then(testee.get(dubToStn)).isNull();
+        }
+    }
+
+    @Test
+    void shouldNotServeSchedulesStoredByThisRun() {
+        try (ScheduleStore testee = new ScheduleStore(directory.toString(), Duration.ofHours(24))) {
+            testee.put(dubToStn, getDummySchedule());
+
+            BDDAssertions.then(testee.get(dubToStn)).isNull();
+        }
+    }
+
+    @Test
+    void shouldNotServeSchedulesOlderThanMaxAge() throws InterruptedException {
+        try (ScheduleStore previousRun = new ScheduleStore(directory.toString(), Duration.ofMillis(1))) {
+            previousRun.put(dubToStn, getDummySchedule());
+        }
+        Thread.sleep(10);
+
+        try (ScheduleStore testee = new ScheduleStore(directory.toString(), Duration.ofMillis(1))) {
+            BDDAssertions.then(testee.get(dubToStn)).isNull();
+        }
+    }
+
+    @Test
+    void shouldTruncateTornTail() throws IOException {
+        try (ScheduleStore previousRun = new ScheduleStore(directory.toString(), Duration.ofHours(24))) {
+            previousRun.put(dubToStn, getDummySchedule());
+        }
+        Path logFile = directory.resolve("schedules.log");
+        long intactSize = Files.size(logFile);
+        Files.write(logFile, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (ScheduleStore testee = new ScheduleStore(directory.toString(), Duration.ofHours(24))) {
+            BDDAssertions.then(Files.size(logFile)).isEqualTo(intactSize);
+            BDDAssertions.then(testee.get(dubToStn)).isNotNull();
+        }
+    }
+
+    @Test
+    void shouldDoNothingWithoutDirectory() {
+        try (ScheduleStore testee = new ScheduleStore("", Duration.ofHours(24))) {
+            testee.put(dubToStn, getDummySchedule());
+
+            BDDAssertions.then(testee.isEnabled()).isFalse();
+            BDDAssertions.then(testee.get(dubToStn)).isNull();
+            BDDAssertions.then(testee.size()).isZero();
+        }
+    }
+
+    @Test
+    void shouldReadRecordsAcrossMappedChunks() {
+        try (ScheduleStore previousRun = new ScheduleStore(directory.toString(), Duration.ofHours(24), 16, 1 << 20)) {
+            for (int month = 1; month <= 12; month++) {
+                previousRun.put(new ScheduleKey("DUB", "STN", 2023, month), getDummySchedule());
+            }
+        }
+
+        try (ScheduleStore testee = new ScheduleStore(directory.toString(), Duration.ofHours(24), 16, 1 << 20)) {
+            BDDAssertions.then(testee.size()).isEqualTo(12);
+            for (int month = 1; month <= 12; month++) {
+                BDDAssertions.then(testee.get(new ScheduleKey("DUB", "STN", 2023, month)).getDays()).hasSize(1);
+            }
+        }
+    }
+
+    @Test
+    void shouldNotAppendAMonthStoredUnchanged() throws IOException {
+        try (ScheduleStore testee = new ScheduleStore(directory.toString(), Duration.ofHours(24))) {
+            testee.put(dubToStn, getDummySchedule());
+            long size = Files.size(directory.resolve("schedules.log"));
+
+            testee.put(dubToStn, getDummySchedule());
+            BDDAssertions.then(Files.size(directory.resolve("schedules.log"))).isEqualTo(size);
+
+            testee.put(dubToStn, new Schedule(3, List.of()));
+            BDDAssertions.then(Files.size(directory.resolve("schedules.log"))).isGreaterThan(size);
+        }
+    }
+
+    @Test
+    void shouldCompactWhileRunning() throws IOException {
+        try (ScheduleStore testee = new ScheduleStore(directory.toString(), Duration.ofHours(24), 1 << 30, 1024)) {
+            for (int i = 0; i < 1000; i++) {
+                testee.put(dubToStn, new Schedule(3, List.of(new DaySchedule(1,
+                        List.of(new FlightSchedule(i, "06:25", "07:35"))))));
+            }
+            testee.put(bcnToBgy, getDummySchedule());
+
+            BDDAssertions.then(Files.size(directory.resolve("schedules.log"))).isLessThan(2048);
+            BDDAssertions.then(testee.size()).isEqualTo(2);
+        }
+
+        try (ScheduleStore testee = new ScheduleStore(directory.toString(), Duration.ofHours(24))) {
+            BDDAssertions.then(testee.get(dubToStn).getDays().get(0).getFlights().get(0).getNumber()).isEqualTo(999);
+            BDDAssertions.then(testee.get(bcnToBgy)).isNotNull();
+        }
+    }
+
+    @Test
+    void shouldRunWithoutStoreWhenItCannotBeOpened() {
+        try (ScheduleStore testee = new ScheduleStore("invalid\u0000directory", Duration.ofHours(24))) {
+            testee.put(dubToStn, getDummySchedule());
+
+            BDDAssertions.then(testee.isEnabled()).isFalse();
+            BDDAssertions.then(testee.get(dubToStn)).isNull();
+        }
+    }
+
+    private Schedule getDummySchedule() {
+        List<FlightSchedule> flights = List.of(new FlightSchedule(1926, "06:25", "07:35"),
+                new FlightSchedule(1928, "17:00", "18:10"));
+        return new Schedule(3, List.of(new DaySchedule(1, flights)));
+    }
+}